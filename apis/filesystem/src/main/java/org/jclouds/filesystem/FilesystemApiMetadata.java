@@ -17,6 +17,7 @@
 package org.jclouds.filesystem;
 
 import static org.jclouds.filesystem.reference.FilesystemConstants.PROPERTY_AUTO_DETECT_CONTENT_TYPE;
+import static org.jclouds.filesystem.reference.FilesystemConstants.PROPERTY_METADATA_CACHE_SIZE;
 
 import java.net.URI;
 import java.util.Properties;
@@ -52,6 +53,7 @@ public class FilesystemApiMetadata extends BaseApiMetadata {
    public Properties getDefaultProperties() {
       Properties properties = BaseHttpApiMetadata.defaultProperties();
       properties.setProperty(PROPERTY_AUTO_DETECT_CONTENT_TYPE, "false");
+      properties.setProperty(PROPERTY_METADATA_CACHE_SIZE, "10000");
       return properties;
    }
 
@@ -27,6 +27,9 @@ public final class FilesystemConstants {
     /** Specify if the Content-Type of a file should be autodetected if it is not set */
     public static final String PROPERTY_AUTO_DETECT_CONTENT_TYPE = "jclouds.filesystem.auto-detect-content-type";
 
+    /** Maximum number of files whose extended attributes are cached between reads */
+    public static final String PROPERTY_METADATA_CACHE_SIZE = "jclouds.filesystem.metadata-cache-size";
+
     private FilesystemConstants() {
         throw new AssertionError("intentionally unimplemented");
     }
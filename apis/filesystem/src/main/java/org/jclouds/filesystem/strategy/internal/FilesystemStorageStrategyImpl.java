@@ -24,6 +24,7 @@ import static java.nio.file.Files.getPosixFilePermissions;
 import static java.nio.file.Files.probeContentType;
 import static java.nio.file.Files.readAttributes;
 import static java.nio.file.Files.setPosixFilePermissions;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.filesystem.util.Utils.delete;
 import static org.jclouds.filesystem.util.Utils.isPrivate;
 import static org.jclouds.filesystem.util.Utils.isWindows;
@@ -35,17 +36,26 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -57,6 +67,7 @@ import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.MutableStorageMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
@@ -71,16 +82,23 @@ import org.jclouds.filesystem.reference.FilesystemConstants;
 import org.jclouds.filesystem.util.Utils;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.annotations.ParamValidators;
 
 import com.google.common.base.Function;
+import com.google.common.base.Objects;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
@@ -88,6 +106,7 @@ import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Files;
 import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
  * FilesystemStorageStrategyImpl implements a blob store that stores objects
@@ -120,6 +139,11 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    protected final FilesystemContainerNameValidator filesystemContainerNameValidator;
    protected final FilesystemBlobKeyValidator filesystemBlobKeyValidator;
    private final Supplier<Location> defaultLocation;
+   private final ListeningExecutorService userExecutor;
+   // keyed by absolute path; entries are checked against the file's modification time and size
+   private final Cache<Path, FileMetadata> metadataCache;
+   private final Set<Path> backfilling = Sets.newConcurrentHashSet();
+   private volatile boolean recordMissingContentMD5 = true;
 
    @Inject
    protected FilesystemStorageStrategyImpl(Provider<BlobBuilder> blobBuilders,
@@ -127,7 +151,9 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
          @Named(FilesystemConstants.PROPERTY_AUTO_DETECT_CONTENT_TYPE) boolean autoDetectContentType,
          FilesystemContainerNameValidator filesystemContainerNameValidator,
          FilesystemBlobKeyValidator filesystemBlobKeyValidator,
-         Supplier<Location> defaultLocation) {
+         Supplier<Location> defaultLocation,
+         @Named(FilesystemConstants.PROPERTY_METADATA_CACHE_SIZE) long metadataCacheSize,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
       this.blobBuilders = checkNotNull(blobBuilders, "filesystem storage strategy blobBuilders");
       this.baseDirectory = checkNotNull(baseDir, "filesystem storage strategy base directory");
       this.autoDetectContentType = autoDetectContentType;
@@ -135,6 +161,8 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
             "filesystem container name validator");
       this.filesystemBlobKeyValidator = checkNotNull(filesystemBlobKeyValidator, "filesystem blob key validator");
       this.defaultLocation = defaultLocation;
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.metadataCache = CacheBuilder.newBuilder().maximumSize(metadataCacheSize).build();
    }
 
    @Override
@@ -321,89 +349,253 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       return blobNames;
    }
 
+   /**
+    * Returns the keys in order without walking the whole container: directories are read only when
+    * the iteration reaches them, and those which cannot hold keys with the prefix or after the
+    * marker are not read at all.
+    */
+   @Override
+   public Iterable<String> getBlobKeysInsideContainer(String container, final String prefix, final String marker)
+         throws IOException {
+      filesystemContainerNameValidator.validate(container);
+      if (!containerExists(container)) {
+         return ImmutableSet.of();
+      }
+      final Path containerPath = openFolder(container).toPath();
+      return new Iterable<String>() {
+         @Override
+         public Iterator<String> iterator() {
+            return new BlobKeyIterator(containerPath, prefix, marker);
+         }
+      };
+   }
+
+   @Override
+   public MutableBlobMetadata getBlobMetadata(String container, String key) {
+      // the payload of a blob is opened only when read
+      return blobExists(container, key) ? getBlob(container, key).getMetadata() : null;
+   }
+
    @Override
    public Blob getBlob(final String container, final String key) {
       BlobBuilder builder = blobBuilders.get();
       builder.name(key);
       File file = getFileForBlobKey(container, key);
-      ByteSource byteSource;
+      boolean directory = getDirectoryBlobSuffix(key) != null;
+      BlobBuilder.PayloadBlobBuilder payloadBuilder;
 
-      if (getDirectoryBlobSuffix(key) != null) {
+      if (directory) {
          logger.debug("%s - %s is a directory", container, key);
-         byteSource = ByteSource.empty();
+         payloadBuilder = builder.payload(ByteSource.empty());
       } else {
-         byteSource = Files.asByteSource(file);
+         // a file payload lets copies and HTTP drivers transfer the file without reading it
+         payloadBuilder = builder.payload(file);
       }
+      BasicFileAttributes attributes;
+      FileMetadata metadata;
       try {
-         String cacheControl = null;
-         String contentDisposition = null;
-         String contentEncoding = null;
-         String contentLanguage = null;
-         String contentType = null;
-         HashCode hashCode = null;
-         Date expires = null;
-         ImmutableMap.Builder<String, String> userMetadata = ImmutableMap.builder();
-
-         UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(file.toPath());
-         if (view != null) {
-            Set<String> attributes = ImmutableSet.copyOf(view.list());
-
-            cacheControl = readStringAttributeIfPresent(view, attributes, XATTR_CACHE_CONTROL);
-            contentDisposition = readStringAttributeIfPresent(view, attributes, XATTR_CONTENT_DISPOSITION);
-            contentEncoding = readStringAttributeIfPresent(view, attributes, XATTR_CONTENT_ENCODING);
-            contentLanguage = readStringAttributeIfPresent(view, attributes, XATTR_CONTENT_LANGUAGE);
-            contentType = readStringAttributeIfPresent(view, attributes, XATTR_CONTENT_TYPE);
-            if (contentType == null && autoDetectContentType) {
-               contentType = probeContentType(file.toPath());
-            }
-            if (attributes.contains(XATTR_CONTENT_MD5)) {
-               ByteBuffer buf = ByteBuffer.allocate(view.size(XATTR_CONTENT_MD5));
-               view.read(XATTR_CONTENT_MD5, buf);
-               hashCode = HashCode.fromBytes(buf.array());
-            }
-            if (attributes.contains(XATTR_EXPIRES)) {
-               ByteBuffer buf = ByteBuffer.allocate(view.size(XATTR_EXPIRES));
-               view.read(XATTR_EXPIRES, buf);
-               buf.flip();
-               expires = new Date(buf.asLongBuffer().get());
-            }
-            for (String attribute : attributes) {
-               if (!attribute.startsWith(XATTR_USER_METADATA_PREFIX)) {
-                  continue;
-               }
-               String value = readStringAttributeIfPresent(view, attributes, attribute);
-               userMetadata.put(attribute.substring(XATTR_USER_METADATA_PREFIX.length()), value);
-            }
-
-            builder.payload(byteSource)
-               .cacheControl(cacheControl)
-               .contentDisposition(contentDisposition)
-               .contentEncoding(contentEncoding)
-               .contentLanguage(contentLanguage)
-               .contentLength(byteSource.size())
-               .contentMD5(hashCode)
-               .contentType(contentType)
-               .expires(expires)
-               .userMetadata(userMetadata.build());
-         } else {
-            builder.payload(byteSource)
-               .contentLength(byteSource.size())
-               .contentMD5(byteSource.hash(Hashing.md5()).asBytes());
-         }
+         attributes = readAttributes(file.toPath(), BasicFileAttributes.class);
+         metadata = readMetadata(file, attributes, directory);
+      } catch (NoSuchFileException nsfe) {
+         return null;
       } catch (FileNotFoundException fnfe) {
          return null;
       } catch (IOException e) {
          throw Throwables.propagate(e);
       }
+      payloadBuilder.cacheControl(metadata.cacheControl)
+         .contentDisposition(metadata.contentDisposition)
+         .contentEncoding(metadata.contentEncoding)
+         .contentLanguage(metadata.contentLanguage)
+         .contentLength(directory ? 0 : attributes.size())
+         .contentMD5(metadata.contentMD5)
+         .contentType(metadata.contentType)
+         .expires(metadata.expires)
+         .userMetadata(metadata.userMetadata);
       Blob blob = builder.build();
       blob.getMetadata().setContainer(container);
-      blob.getMetadata().setLastModified(new Date(file.lastModified()));
-      blob.getMetadata().setSize(file.length());
+      blob.getMetadata().setLastModified(new Date(attributes.lastModifiedTime().toMillis()));
+      blob.getMetadata().setSize(attributes.size());
       if (blob.getPayload().getContentMetadata().getContentMD5() != null)
          blob.getMetadata().setETag(base16().lowerCase().encode(blob.getPayload().getContentMetadata().getContentMD5()));
       return blob;
    }
 
+   /**
+    * Returns the metadata of a file from the cache, unless the file has been modified since it was
+    * cached. Files without a recorded MD5 have it written in the background, and are cached only
+    * once it is.
+    */
+   private FileMetadata readMetadata(File file, BasicFileAttributes attributes, boolean directory)
+         throws IOException {
+      Path path = cacheKey(file);
+      FileMetadata cached = metadataCache.getIfPresent(path);
+      if (cached != null && cached.isCurrent(attributes)) {
+         return cached;
+      }
+      FileMetadata metadata = new FileMetadata(attributes);
+      UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(path);
+      if (view != null) {
+         Set<String> names = ImmutableSet.copyOf(view.list());
+
+         metadata.cacheControl = readStringAttributeIfPresent(view, names, XATTR_CACHE_CONTROL);
+         metadata.contentDisposition = readStringAttributeIfPresent(view, names, XATTR_CONTENT_DISPOSITION);
+         metadata.contentEncoding = readStringAttributeIfPresent(view, names, XATTR_CONTENT_ENCODING);
+         metadata.contentLanguage = readStringAttributeIfPresent(view, names, XATTR_CONTENT_LANGUAGE);
+         metadata.contentType = readStringAttributeIfPresent(view, names, XATTR_CONTENT_TYPE);
+         if (metadata.contentType == null && autoDetectContentType) {
+            metadata.contentType = probeContentType(path);
+         }
+         if (names.contains(XATTR_CONTENT_MD5)) {
+            ByteBuffer buf = ByteBuffer.allocate(view.size(XATTR_CONTENT_MD5));
+            view.read(XATTR_CONTENT_MD5, buf);
+            metadata.contentMD5 = HashCode.fromBytes(buf.array());
+         }
+         if (names.contains(XATTR_EXPIRES)) {
+            ByteBuffer buf = ByteBuffer.allocate(view.size(XATTR_EXPIRES));
+            view.read(XATTR_EXPIRES, buf);
+            buf.flip();
+            metadata.expires = new Date(buf.asLongBuffer().get());
+         }
+         ImmutableMap.Builder<String, String> userMetadata = ImmutableMap.builder();
+         for (String name : names) {
+            if (!name.startsWith(XATTR_USER_METADATA_PREFIX)) {
+               continue;
+            }
+            String value = readStringAttributeIfPresent(view, names, name);
+            userMetadata.put(name.substring(XATTR_USER_METADATA_PREFIX.length()), value);
+         }
+         metadata.userMetadata = userMetadata.build();
+      } else if (directory) {
+         metadata.contentMD5 = ByteSource.empty().hash(Hashing.md5());
+      } else {
+         // nowhere to record it, so the cache is all that saves hashing the file again
+         metadata.contentMD5 = Files.asByteSource(file).hash(Hashing.md5());
+      }
+      if (metadata.contentMD5 == null && !directory && view != null && recordMissingContentMD5) {
+         backfillContentMD5(path);
+      } else {
+         metadataCache.put(path, metadata);
+      }
+      return metadata;
+   }
+
+   /**
+    * Hashes a file which has no recorded MD5 on the user executor and records it, unless the file
+    * is modified in the meantime.
+    */
+   private void backfillContentMD5(final Path path) {
+      if (!backfilling.add(path)) {
+         return;
+      }
+      try {
+         userExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  BasicFileAttributes before = readAttributes(path, BasicFileAttributes.class);
+                  HashCode md5 = Files.asByteSource(path.toFile()).hash(Hashing.md5());
+                  BasicFileAttributes after = readAttributes(path, BasicFileAttributes.class);
+                  if (!new FileMetadata(before).isCurrent(after)) {
+                     return;
+                  }
+                  UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(path);
+                  if (view != null) {
+                     view.write(XATTR_CONTENT_MD5, ByteBuffer.wrap(md5.asBytes()));
+                     metadataCache.invalidate(path);
+                  }
+               } catch (NoSuchFileException e) {
+                  // removed in the meantime
+               } catch (IOException e) {
+                  // the file system cannot record it, so do not hash files in vain
+                  logger.debug("Could not record the MD5 of %s: %s", path, e);
+                  recordMissingContentMD5 = false;
+               } finally {
+                  backfilling.remove(path);
+               }
+            }
+         });
+      } catch (RejectedExecutionException e) {
+         backfilling.remove(path);
+      }
+   }
+
+   private static Path cacheKey(File file) {
+      return file.toPath().toAbsolutePath().normalize();
+   }
+
+   /**
+    * The metadata of a file as of a given modification time and size.
+    */
+   private static final class FileMetadata {
+      private final long lastModified;
+      private final long size;
+      private final Object fileKey;
+      private String cacheControl;
+      private String contentDisposition;
+      private String contentEncoding;
+      private String contentLanguage;
+      private String contentType;
+      private HashCode contentMD5;
+      private Date expires;
+      private Map<String, String> userMetadata = ImmutableMap.of();
+
+      FileMetadata(BasicFileAttributes attributes) {
+         this.lastModified = attributes.lastModifiedTime().toMillis();
+         this.size = attributes.size();
+         this.fileKey = attributes.fileKey();
+      }
+
+      boolean isCurrent(BasicFileAttributes attributes) {
+         return lastModified == attributes.lastModifiedTime().toMillis() && size == attributes.size()
+               && Objects.equal(fileKey, attributes.fileKey());
+      }
+   }
+
+   /**
+    * Copies a file within the kernel, without reading it into the heap.
+    */
+   private static long transfer(File source, File target) throws IOException {
+      try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+            FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.WRITE,
+                  StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+         long size = in.size();
+         long position = 0;
+         while (position < size) {
+            long transferred = in.transferTo(position, size - position, out);
+            if (transferred <= 0) {
+               // the source was truncated while it was copied
+               break;
+            }
+            position += transferred;
+         }
+         return position;
+      }
+   }
+
+   /**
+    * Returns the MD5 recorded for a file which is a blob of this store, so that copying a blob
+    * does not need to hash it again.
+    */
+   private HashCode recordedContentMD5(File file) {
+      Path path = file.toPath().toAbsolutePath().normalize();
+      if (!path.startsWith(new File(baseDirectory).toPath().toAbsolutePath().normalize())) {
+         return null;
+      }
+      try {
+         UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(path);
+         if (view == null || !view.list().contains(XATTR_CONTENT_MD5)) {
+            return null;
+         }
+         ByteBuffer buf = ByteBuffer.allocate(view.size(XATTR_CONTENT_MD5));
+         view.read(XATTR_CONTENT_MD5, buf);
+         return HashCode.fromBytes(buf.array());
+      } catch (IOException e) {
+         logger.debug("xattrs not supported on %s", path);
+         return null;
+      }
+   }
+
    private void writeCommonMetadataAttr(UserDefinedFileAttributeView view, Blob blob) throws IOException {
       ContentMetadata metadata = blob.getMetadata().getContentMetadata();
       writeStringAttributeIfPresent(view, XATTR_CACHE_CONTROL, metadata.getCacheControl());
@@ -432,6 +624,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       }
       File outputFile = getFileForBlobKey(containerName, blobKey);
       Path outputPath = outputFile.toPath();
+      metadataCache.invalidate(cacheKey(outputFile));
       if (!outputFile.isDirectory() && !outputFile.mkdirs()) {
          throw new IOException("Unable to mkdir: " + outputPath);
       }
@@ -468,14 +661,25 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       HashingInputStream his = null;
       try {
          Files.createParentDirs(tmpFile);
-         his = new HashingInputStream(Hashing.md5(), payload.openStream());
-         long actualSize = Files.asByteSink(tmpFile).writeFrom(his);
+         long actualSize;
+         HashCode actualHashCode;
+         if (payload.getRawContent() instanceof File) {
+            File source = (File) payload.getRawContent();
+            actualSize = transfer(source, tmpFile);
+            actualHashCode = recordedContentMD5(source);
+            if (actualHashCode == null) {
+               actualHashCode = Files.hash(tmpFile, Hashing.md5());
+            }
+         } else {
+            his = new HashingInputStream(Hashing.md5(), payload.openStream());
+            actualSize = Files.asByteSink(tmpFile).writeFrom(his);
+            actualHashCode = his.hash();
+         }
          Long expectedSize = blob.getMetadata().getContentMetadata().getContentLength();
          if (expectedSize != null && actualSize != expectedSize) {
             throw new IOException("Content-Length mismatch, actual: " + actualSize +
                   " expected: " + expectedSize);
          }
-         HashCode actualHashCode = his.hash();
          HashCode expectedHashCode = payload.getContentMetadata().getContentMD5AsHashCode();
          if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
             throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
@@ -486,6 +690,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
          if (outputFile.exists()) {
             delete(outputFile);
          }
+         metadataCache.invalidate(cacheKey(outputFile));
 
          UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(tmpPath);
          if (view != null) {
@@ -527,6 +732,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       String fileName = buildPathStartingFromBaseDir(container, blobKey);
       logger.debug("Deleting blob %s", fileName);
       File fileToBeDeleted = new File(fileName);
+      metadataCache.invalidate(cacheKey(fileToBeDeleted));
 
       if (fileToBeDeleted.isDirectory()) {
          try {
@@ -870,6 +1076,106 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       }
    }
 
+   /**
+    * Visits the files and directories below a container depth first, in the order of their keys.
+    * A directory's key ends with the separator and every key below it starts with its key, so
+    * sorting the entries of each directory by key sorts the whole walk.
+    */
+   private static final class BlobKeyIterator extends AbstractIterator<String> {
+      private final String prefix;
+      private final String marker;
+      private final Deque<Iterator<KeyedPath>> directories = new ArrayDeque<Iterator<KeyedPath>>();
+      private KeyedPath nextDirectory;
+
+      BlobKeyIterator(Path containerPath, @Nullable String prefix, @Nullable String marker) {
+         this.prefix = prefix;
+         this.marker = marker;
+         this.nextDirectory = new KeyedPath("", containerPath, true);
+      }
+
+      @Override
+      protected String computeNext() {
+         while (true) {
+            if (nextDirectory != null) {
+               directories.push(entries(nextDirectory));
+               nextDirectory = null;
+            }
+            Iterator<KeyedPath> entries = directories.peek();
+            if (entries == null) {
+               return endOfData();
+            }
+            if (!entries.hasNext()) {
+               directories.pop();
+               continue;
+            }
+            KeyedPath entry = entries.next();
+            if (entry.directory) {
+               if (!mayContainMatches(entry.key)) {
+                  continue;
+               }
+               // read on the next call, so that a caller which stops here does not pay for it
+               nextDirectory = entry;
+            }
+            if (matches(entry.key)) {
+               return entry.key;
+            }
+         }
+      }
+
+      private boolean matches(String key) {
+         return (prefix == null || key.replace(File.separatorChar, '/').startsWith(prefix))
+               && (marker == null || key.compareTo(marker) > 0);
+      }
+
+      private boolean mayContainMatches(String directoryKey) {
+         if (prefix != null) {
+            String key = directoryKey.replace(File.separatorChar, '/');
+            if (!key.startsWith(prefix) && !prefix.startsWith(key)) {
+               return false;
+            }
+         }
+         return marker == null || marker.compareTo(directoryKey + Character.MAX_VALUE) < 0;
+      }
+
+      private static Iterator<KeyedPath> entries(KeyedPath directory) {
+         List<KeyedPath> entries = Lists.newArrayList();
+         try (DirectoryStream<Path> children = java.nio.file.Files.newDirectoryStream(directory.path)) {
+            for (Path child : children) {
+               String name = directory.key + child.getFileName();
+               if (java.nio.file.Files.isDirectory(child)) {
+                  entries.add(new KeyedPath(name + File.separator, child, true));
+               } else if (java.nio.file.Files.isRegularFile(child)) {
+                  entries.add(new KeyedPath(name, child, false));
+               }
+            }
+         } catch (NoSuchFileException nsfe) {
+            // removed since its parent was read
+            return Iterators.emptyIterator();
+         } catch (IOException ioe) {
+            throw Throwables.propagate(ioe);
+         }
+         Collections.sort(entries);
+         return entries.iterator();
+      }
+   }
+
+   private static final class KeyedPath implements Comparable<KeyedPath> {
+      private final String key;
+      private final Path path;
+      private final boolean directory;
+
+      KeyedPath(String key, Path path, boolean directory) {
+         this.key = key;
+         this.path = path;
+         this.directory = directory;
+      }
+
+      @Override
+      public int compareTo(KeyedPath other) {
+         return key.compareTo(other.key);
+      }
+   }
+
    /**
     * Creates a directory and returns the result
     *
@@ -23,6 +23,7 @@ import static org.jclouds.utils.TestUtils.randomByteSource;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -55,11 +56,14 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
@@ -95,7 +99,8 @@ public class FilesystemStorageStrategyImplTest {
             return new BlobBuilderImpl();
          }
 
-      }, TestUtils.TARGET_BASE_DIR, false, new FilesystemContainerNameValidatorImpl(), new FilesystemBlobKeyValidatorImpl(), defaultLocation);
+      }, TestUtils.TARGET_BASE_DIR, false, new FilesystemContainerNameValidatorImpl(), new FilesystemBlobKeyValidatorImpl(), defaultLocation,
+            1000, MoreExecutors.sameThreadExecutor());
       TestUtils.cleanDirectoryContent(TestUtils.TARGET_BASE_DIR);
       TestUtils.createResources();
    }
@@ -394,7 +399,8 @@ public class FilesystemStorageStrategyImplTest {
              public BlobBuilder get() {
                 return new BlobBuilderImpl();
              }
-          }, TestUtils.TARGET_BASE_DIR, true, new FilesystemContainerNameValidatorImpl(), new FilesystemBlobKeyValidatorImpl(), defaultLocation);
+          }, TestUtils.TARGET_BASE_DIR, true, new FilesystemContainerNameValidatorImpl(), new FilesystemBlobKeyValidatorImpl(), defaultLocation,
+            1000, MoreExecutors.sameThreadExecutor());
 
       String blobKey = TestUtils.createRandomBlobKey("file-", ".jpg");
       TestUtils.createBlobsInContainer(CONTAINER_NAME, blobKey);
@@ -492,6 +498,53 @@ public class FilesystemStorageStrategyImplTest {
             "Files are not equal");
    }
 
+   public void testWritePayloadOnFileWithIncorrectMD5() throws IOException {
+      String blobKey = TestUtils.createRandomBlobKey("writePayload-", ".img");
+      FilePayload filePayload = new FilePayload(TestUtils.getImageForBlobPayload());
+      filePayload.getContentMetadata().setContentMD5(Hashing.md5().hashInt(0));
+      Blob blob = storageStrategy.newBlob(blobKey);
+      blob.setPayload(filePayload);
+      try {
+         storageStrategy.putBlob(CONTAINER_NAME, blob);
+         Fail.failBecauseExceptionWasNotThrown(IOException.class);
+      } catch (IOException ioe) {
+         // expected
+      }
+      assertFalse(storageStrategy.blobExists(CONTAINER_NAME, blobKey));
+   }
+
+   public void testCopyBlobFromFile() throws IOException {
+      String sourceKey = TestUtils.createRandomBlobKey("copySource-", ".img");
+      String targetKey = TestUtils.createRandomBlobKey("copyTarget-", ".img");
+      File sourceFile = TestUtils.getImageForBlobPayload();
+      Blob blob = storageStrategy.newBlob(sourceKey);
+      blob.setPayload(new FilePayload(sourceFile));
+      String eTag = storageStrategy.putBlob(CONTAINER_NAME, blob);
+
+      Blob source = storageStrategy.getBlob(CONTAINER_NAME, sourceKey);
+      assertTrue(source.getPayload().getRawContent() instanceof File);
+      Blob copy = storageStrategy.newBlob(targetKey);
+      copy.setPayload(source.getPayload());
+      assertEquals(storageStrategy.putBlob(CONTAINER_NAME, copy), eTag);
+
+      ByteSource expectedInput = Files.asByteSource(sourceFile);
+      ByteSource actualInput = Files.asByteSource(new File(TARGET_CONTAINER_NAME, targetKey));
+      assertTrue(expectedInput.contentEquals(actualInput), "Files are not equal");
+   }
+
+   @Test(dataProvider = "ignoreOnMacOSX")
+   public void testGetBlobRecordsMissingContentMD5() throws IOException {
+      String blobKey = TestUtils.createRandomBlobKey("recordMD5-", ".txt");
+      byte[] content = { 1, 2, 3 };
+      storageStrategy.createContainer(CONTAINER_NAME);
+      Files.write(content, new File(TARGET_CONTAINER_NAME, blobKey));
+
+      // the first read records the MD5, here on the calling thread
+      assertNull(storageStrategy.getBlob(CONTAINER_NAME, blobKey).getMetadata().getETag());
+      assertEquals(storageStrategy.getBlob(CONTAINER_NAME, blobKey).getMetadata().getETag(),
+            Hashing.md5().hashBytes(content).toString());
+   }
+
    public void testWritePayloadOnFile_SourceFileDoesntExist() {
       File sourceFile = new File("asdfkjsadkfjasdlfasdflk.asdfasdfas");
       FilePayload payload = new FilePayload(sourceFile);
@@ -529,7 +582,8 @@ public class FilesystemStorageStrategyImplTest {
                   public BlobBuilder get() {
                      return new BlobBuilderImpl();
                   }
-               }, absoluteBasePath, false, new FilesystemContainerNameValidatorImpl(), new FilesystemBlobKeyValidatorImpl(), defaultLocation);
+               }, absoluteBasePath, false, new FilesystemContainerNameValidatorImpl(), new FilesystemBlobKeyValidatorImpl(), defaultLocation,
+            1000, MoreExecutors.sameThreadExecutor());
       TestUtils.cleanDirectoryContent(absoluteContainerPath);
 
       String blobKey;
@@ -622,6 +676,21 @@ public class FilesystemStorageStrategyImplTest {
       }
    }
 
+   public void testGetBlobKeysInsideContainerWithPrefixAndMarker() throws IOException {
+      storageStrategy.createContainer(CONTAINER_NAME);
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, new String[] {
+               "b", "ab", "a" + FS + "d", "a" + FS + "b" + FS + "c" });
+
+      assertEquals(ImmutableList.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null, null)),
+            ImmutableList.of("a" + FS, "a" + FS + "b" + FS, "a" + FS + "b" + FS + "c", "a" + FS + "d", "ab", "b"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, "a/b", null)),
+            ImmutableList.of("a" + FS + "b" + FS, "a" + FS + "b" + FS + "c"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, null,
+            "a" + FS + "b" + FS + Character.MAX_VALUE)), ImmutableList.of("a" + FS + "d", "ab", "b"));
+      assertEquals(ImmutableList.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME, "a", "a" + FS
+            + "d")), ImmutableList.of("ab"));
+   }
+
    public void testCountsBlob() {
       storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE);
    }
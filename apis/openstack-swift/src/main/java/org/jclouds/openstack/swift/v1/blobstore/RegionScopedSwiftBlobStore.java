@@ -25,6 +25,7 @@ import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursi
 import static org.jclouds.location.predicates.LocationPredicates.idEquals;
 import static org.jclouds.openstack.swift.v1.options.PutOptions.Builder.metadata;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +52,7 @@ import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
 import org.jclouds.blobstore.domain.internal.BlobImpl;
 import org.jclouds.blobstore.domain.internal.PageSetImpl;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
 import org.jclouds.blobstore.functions.BlobToHttpGetOptions;
 import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.CreateContainerOptions;
@@ -58,6 +60,7 @@ import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
 import org.jclouds.blobstore.strategy.ClearListStrategy;
+import org.jclouds.blobstore.strategy.internal.MultipartDownloader;
 import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
@@ -128,6 +131,8 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
       }).getInstance(ClearListStrategy.class);
    }
 
+   private static final int MAX_DELETE_ATTEMPTS = 3;
+
    private final BlobStoreContext context;
    private final ClearListStrategy clearList;
    private final SwiftApi api;
@@ -376,18 +381,48 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
 
    /**
     * Delete multiple single-part objects.  Note that this does not remove the
-    * subobjects of a multi-part upload.
+    * subobjects of a multi-part upload.  Objects that could not be deleted are
+    * sent again, up to {@link #MAX_DELETE_ATTEMPTS} times.
     */
    @Override
    public void removeBlobs(String container, Iterable<String> names) {
       BulkApi bulkApi = api.getBulkApi(regionId);
       for (List<String> partition : Iterables.partition(names, 1000)) {
-         ImmutableList.Builder<String> builder = ImmutableList.builder();
+         ImmutableSet.Builder<String> builder = ImmutableSet.builder();
          for (String name : partition) {
             builder.add(container + "/" + name);
          }
-         bulkApi.bulkDelete(builder.build());
+         Set<String> paths = builder.build();
+         Map<String, String> errors = bulkApi.bulkDelete(paths).getErrors();
+         // paths that failed are sent again
+         for (int attempt = 1; attempt < MAX_DELETE_ATTEMPTS && !errors.isEmpty(); attempt++) {
+            List<String> failed = failedPaths(paths, errors.keySet());
+            if (failed.isEmpty())
+               break;
+            errors = bulkApi.bulkDelete(failed).getErrors();
+         }
+         if (!errors.isEmpty()) {
+            throw new BlobRuntimeException(String.format("could not delete %d objects from %s: %s", errors.size(),
+                  container, errors));
+         }
+      }
+   }
+
+   /**
+    * Swift reports failed paths decoded, and prefixed with the account path or a slash.
+    */
+   private static List<String> failedPaths(Set<String> sent, Set<String> errors) {
+      ImmutableList.Builder<String> failed = ImmutableList.builder();
+      for (String error : errors) {
+         for (int slash = error.indexOf('/'); slash != -1; slash = error.indexOf('/', slash + 1)) {
+            String path = error.substring(slash + 1);
+            if (sent.contains(path)) {
+               failed.add(path);
+               break;
+            }
+         }
       }
+      return failed.build();
    }
 
    @Override
@@ -543,6 +578,16 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
       return Integer.MAX_VALUE;
    }
 
+   @Override
+   public void downloadBlob(String container, String name, File destination) {
+      downloadBlob(container, name, destination, userExecutor);
+   }
+
+   @Override
+   public void downloadBlob(String container, String name, File destination, ListeningExecutorService executor) {
+      new MultipartDownloader(this, executor).download(container, name, destination);
+   }
+
    @Override
    public void clearContainer(String containerName) {
       clearContainer(containerName, recursive());
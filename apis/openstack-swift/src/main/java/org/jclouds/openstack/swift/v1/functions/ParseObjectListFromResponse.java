@@ -20,15 +20,16 @@ import static com.google.common.io.BaseEncoding.base16;
 import static org.jclouds.http.Uris.uriBuilder;
 
 import java.util.Date;
-import java.util.List;
 
 import javax.inject.Inject;
 
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
-import org.jclouds.http.functions.ParseJson;
+import org.jclouds.http.functions.ParseJsonArrayElements;
+import org.jclouds.http.functions.ParseJsonArrayElements.JsonArrayIterator;
 import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
+import org.jclouds.json.internal.GsonWrapper;
 import org.jclouds.openstack.swift.v1.domain.Container;
 import org.jclouds.openstack.swift.v1.domain.ObjectList;
 import org.jclouds.openstack.swift.v1.domain.SwiftObject;
@@ -37,9 +38,11 @@ import org.jclouds.rest.internal.GeneratedHttpRequest;
 
 import com.google.common.base.Function;
 import com.google.common.base.Strings;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.hash.HashCode;
 import com.google.common.io.ByteSource;
+import com.google.inject.TypeLiteral;
 
 public class ParseObjectListFromResponse implements Function<HttpResponse, ObjectList>,
       InvocationContext<ParseObjectListFromResponse> {
@@ -56,12 +59,12 @@ public class ParseObjectListFromResponse implements Function<HttpResponse, Objec
       Date expires;
    }
 
-   private final ParseJson<List<InternalObject>> json;
+   private final ParseJsonArrayElements<InternalObject> json;
    private final ParseContainerFromHeaders parseContainer;
 
    @Inject
-   ParseObjectListFromResponse(ParseJson<List<InternalObject>> json, ParseContainerFromHeaders parseContainer) {
-      this.json = json;
+   ParseObjectListFromResponse(GsonWrapper json, ParseContainerFromHeaders parseContainer) {
+      this.json = new ParseJsonArrayElements<InternalObject>(json, TypeLiteral.get(InternalObject.class));
       this.parseContainer = parseContainer;
    }
 
@@ -69,7 +72,14 @@ public class ParseObjectListFromResponse implements Function<HttpResponse, Objec
 
    @Override
    public ObjectList apply(HttpResponse from) {
-      List<SwiftObject> objects = Lists.transform(json.apply(from), toSwiftObject);
+      // objects are converted as they are read, rather than after the whole listing is parsed
+      JsonArrayIterator<InternalObject> internalObjects = json.apply(from);
+      ImmutableList<SwiftObject> objects;
+      try {
+         objects = ImmutableList.copyOf(Iterators.transform(internalObjects, toSwiftObject));
+      } finally {
+         internalObjects.close();
+      }
 
       Container container = parseContainer.apply(from);
       return ObjectList.create(objects, container);
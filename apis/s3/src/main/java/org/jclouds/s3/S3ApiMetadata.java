@@ -24,6 +24,7 @@ import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_BLOBST
 import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_USER_METADATA_PREFIX;
 import static org.jclouds.reflect.Reflection2.typeToken;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_SIZE;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_SERVICE_PATH;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_VIRTUAL_HOST_BUCKETS;
 
@@ -84,6 +85,7 @@ public class S3ApiMetadata extends BaseHttpApiMetadata {
 
       // Chunk size must be at least 8 KB. We recommend a chunk size of a least 64 KB for better performance.
       properties.setProperty(PROPERTY_JCLOUDS_S3_CHUNKED_SIZE, String.valueOf(64 * 1024));
+      properties.setProperty(PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD, "non-repeatable");
       return properties;
    }
    
@@ -27,6 +27,7 @@ import javax.inject.Named;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -89,6 +90,7 @@ import org.jclouds.s3.functions.ObjectKey;
 import org.jclouds.s3.functions.ObjectMetadataKey;
 import org.jclouds.s3.functions.ParseObjectFromHeadersAndHttpContent;
 import org.jclouds.s3.functions.ParseObjectMetadataFromHeaders;
+import org.jclouds.s3.functions.StreamListBucket;
 import org.jclouds.s3.functions.UploadIdFromHttpResponseViaRegex;
 import org.jclouds.s3.options.CopyObjectOptions;
 import org.jclouds.s3.options.ListBucketOptions;
@@ -106,6 +108,7 @@ import org.jclouds.s3.xml.LocationConstraintHandler;
 import org.jclouds.s3.xml.PartIdsFromHttpResponse;
 import org.jclouds.s3.xml.PayerHandler;
 
+import com.google.common.annotations.Beta;
 import com.google.inject.Provides;
 
 /**
@@ -345,6 +348,20 @@ public interface S3Client extends Closeable {
          BindAsHostPrefixIfConfigured.class) @ParamValidators(BucketNameValidator.class) String bucketName,
          ListBucketOptions... options);
 
+   /**
+    * Like {@link #listBucket}, but returns once the response headers have arrived. Keys can be
+    * iterated as they are parsed, while the rest of the listing is still being read; the other
+    * accessors of the response wait for the whole listing.
+    */
+   @Beta
+   @Named("ListBucket")
+   @GET
+   @Path("/")
+   @ResponseParser(StreamListBucket.class)
+   ListBucketResponse listBucketStreaming(@Bucket @EndpointParam(parser = AssignCorrectHostnameForBucket.class)
+         @BinderParam(BindAsHostPrefixIfConfigured.class) @ParamValidators(BucketNameValidator.class) String bucketName,
+         ListBucketOptions... options);
+
    /**
     * Returns a list of all of the buckets owned by the authenticated sender of the request.
     * 
@@ -739,6 +756,24 @@ public interface S3Client extends Closeable {
          @PathParam("sourceBucket") String sourceBucket, @PathParam("sourceObject") String sourceObject,
          @PathParam("startOffset") long startOffset, @PathParam("endOffset") long endOffset);
 
+   /**
+    * Copies a range of a source object into a part, as
+    * {@link #uploadPartCopy(String, String, int, String, String, String, long, long)}, but only
+    * while the source object has the given ETag; otherwise S3 answers 412 (Precondition Failed).
+    */
+   @Named("UploadPartCopy")
+   @PUT
+   @Path("/{key}")
+   @Headers(keys = {"x-amz-copy-source", "x-amz-copy-source-range"}, values = {"/{sourceBucket}/{sourceObject}", "bytes={startOffset}-{endOffset}"})
+   @ResponseParser(ETagFromHttpResponseViaRegex.class)
+   String uploadPartCopy(@Bucket @EndpointParam(parser = AssignCorrectHostnameForBucket.class) @BinderParam(
+         BindAsHostPrefixIfConfigured.class) @ParamValidators(BucketNameValidator.class) String bucketName,
+         @PathParam("key") String key, @QueryParam("partNumber") int partNumber,
+         @QueryParam("uploadId") String uploadId,
+         @PathParam("sourceBucket") String sourceBucket, @PathParam("sourceObject") String sourceObject,
+         @PathParam("startOffset") long startOffset, @PathParam("endOffset") long endOffset,
+         @HeaderParam("x-amz-copy-source-if-match") String ifSourceETagMatches);
+
    /**
     *
     This operation completes a multipart upload by assembling previously uploaded parts.
@@ -19,6 +19,7 @@ package org.jclouds.s3.blobstore;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static org.jclouds.util.Predicates2.retry;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 
 import java.util.List;
 import java.util.Map;
@@ -28,6 +29,7 @@ import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.jclouds.aws.AWSResponseException;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
@@ -40,6 +42,7 @@ import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.functions.BlobToHttpGetOptions;
 import org.jclouds.blobstore.internal.BaseBlobStore;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
 import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
@@ -52,6 +55,7 @@ import org.jclouds.http.options.GetOptions;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
 import org.jclouds.io.PayloadSlicer;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.s3.S3Client;
 import org.jclouds.s3.blobstore.functions.BlobToObject;
 import org.jclouds.s3.blobstore.functions.BlobToObjectMetadata;
@@ -64,6 +68,7 @@ import org.jclouds.s3.domain.AccessControlList.GroupGranteeURI;
 import org.jclouds.s3.domain.AccessControlList.Permission;
 import org.jclouds.s3.domain.BucketMetadata;
 import org.jclouds.s3.domain.CannedAccessPolicy;
+import org.jclouds.s3.domain.DeleteResult;
 import org.jclouds.s3.domain.ListMultipartUploadsResponse;
 import org.jclouds.s3.options.CopyObjectOptions;
 import org.jclouds.s3.options.ListBucketOptions;
@@ -80,6 +85,10 @@ import com.google.common.collect.Iterables;
 
 @Singleton
 public class S3BlobStore extends BaseBlobStore {
+   private static final int MAX_DELETE_ATTEMPTS = 3;
+   /** Largest object copied by a single CopyObject request. */
+   private static final long MAX_SINGLE_COPY_SIZE = 5L * 1024L * 1024L * 1024L;
+
    private final S3Client sync;
    private final Function<Set<BucketMetadata>, PageSet<? extends StorageMetadata>> convertBucketsToStorageMetadata;
    private final ContainerToBucketListOptions container2BucketListOptions;
@@ -164,7 +173,8 @@ public class S3BlobStore extends BaseBlobStore {
    }
 
    /**
-    * This implementation invokes {@link S3Client#listBucket}
+    * This implementation invokes {@link S3Client#listBucket}, or {@link S3Client#listBucketStreaming}
+    * for recursive listings without details, whose keys are returned as they are parsed.
     * 
     * @param container
     *           bucket name
@@ -172,6 +182,8 @@ public class S3BlobStore extends BaseBlobStore {
    @Override
    public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
       ListBucketOptions httpOptions = container2BucketListOptions.apply(options);
+      if (options.isRecursive() && !options.isDetailed())
+         return bucket2ResourceList.view(sync.listBucketStreaming(container, httpOptions));
       PageSet<? extends StorageMetadata> list = bucket2ResourceList.apply(sync.listBucket(container, httpOptions));
       return options.isDetailed() ? fetchBlobMetadataProvider.get().setContainerName(container).apply(list) : list;
    }
@@ -267,9 +279,34 @@ public class S3BlobStore extends BaseBlobStore {
       return sync.putObject(container, blob2Object.apply(blob), options);
    }
 
+   /**
+    * This implementation invokes {@link S3Client#copyObject}. When S3 refuses that because the source
+    * is larger than {@link #MAX_SINGLE_COPY_SIZE}, it copies the parts of the blob in parallel with
+    * {@link S3Client#uploadPartCopy} instead.
+    */
    @Override
    public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
          CopyOptions options) {
+      try {
+         return copyObject(fromContainer, fromName, toContainer, toName, options);
+      } catch (RuntimeException re) {
+         // only the size of a source S3 refuses to copy in one request is worth a HEAD
+         AWSResponseException exception = getFirstThrowableOfType(re, AWSResponseException.class);
+         if (exception == null || exception.getError() == null
+               || !"InvalidRequest".equals(exception.getError().getCode())) {
+            throw re;
+         }
+         BlobMetadata source = blobMetadata(fromContainer, fromName);
+         Long contentLength = source == null ? null : source.getContentMetadata().getContentLength();
+         if (contentLength == null || contentLength <= MAX_SINGLE_COPY_SIZE) {
+            throw re;
+         }
+         return copyMultipartBlob(fromContainer, fromName, source, toContainer, toName, options);
+      }
+   }
+
+   private String copyObject(String fromContainer, String fromName, String toContainer, String toName,
+         CopyOptions options) {
       CopyObjectOptions s3Options = new CopyObjectOptions();
       if (options.ifMatch() != null) {
          s3Options.ifSourceETagMatches(options.ifMatch());
@@ -333,10 +370,24 @@ public class S3BlobStore extends BaseBlobStore {
       sync.deleteObject(container, key);
    }
 
+   /**
+    * This implementation invokes {@link S3Client#deleteObjects} with up to 1000 keys at a time.
+    * Keys that could not be deleted are sent again, up to {@link #MAX_DELETE_ATTEMPTS} times.
+    * 
+    * @throws BlobRuntimeException
+    *            if some keys still could not be deleted
+    */
    @Override
    public void removeBlobs(String container, Iterable<String> keys) {
       for (List<String> partition : Iterables.partition(keys, 1000)) {
-         sync.deleteObjects(container, partition);
+         Map<String, DeleteResult.Error> errors = sync.deleteObjects(container, partition).getErrors();
+         for (int attempt = 1; attempt < MAX_DELETE_ATTEMPTS && !errors.isEmpty(); attempt++) {
+            errors = sync.deleteObjects(container, errors.keySet()).getErrors();
+         }
+         if (!errors.isEmpty()) {
+            throw new BlobRuntimeException(String.format("could not delete %d keys from %s: %s", errors.size(),
+                  container, errors));
+         }
       }
    }
 
@@ -390,6 +441,20 @@ public class S3BlobStore extends BaseBlobStore {
       return MultipartPart.create(partNumber, partSize, eTag);
    }
 
+   @Override
+   protected MultipartPart copyMultipartPart(MultipartUpload mpu, int partNumber, String fromContainer,
+         String fromName, @Nullable String sourceETag, long offset, long length) {
+      String eTag;
+      if (sourceETag != null) {
+         eTag = sync.uploadPartCopy(mpu.containerName(), mpu.blobName(), partNumber, mpu.id(), fromContainer,
+               fromName, offset, offset + length - 1, maybeQuoteETag(sourceETag));
+      } else {
+         eTag = sync.uploadPartCopy(mpu.containerName(), mpu.blobName(), partNumber, mpu.id(), fromContainer,
+               fromName, offset, offset + length - 1);
+      }
+      return MultipartPart.create(partNumber, length, eTag);
+   }
+
    @Override
    public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
       ImmutableList.Builder<MultipartPart> parts = ImmutableList.builder();
@@ -16,6 +16,8 @@
  */
 package org.jclouds.s3.blobstore.functions;
 
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.SortedSet;
 
 import javax.inject.Inject;
@@ -28,6 +30,7 @@ import org.jclouds.s3.domain.ListBucketResponse;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 
 @Singleton
@@ -60,4 +63,38 @@ public class BucketToResourceList implements
       }
       return new PageSetImpl<StorageMetadata>(contents, from.getNextMarker());
    }
+
+   /**
+    * Converts keys as they are iterated instead of copying them into a sorted set, so that a
+    * {@link org.jclouds.s3.S3Client#listBucketStreaming streaming} listing is not read up front.
+    * Only suitable for listings without a delimiter, as S3 returns keys in order but common
+    * prefixes after all keys.
+    */
+   public PageSet<? extends StorageMetadata> view(final ListBucketResponse from) {
+      return new ListBucketPageSet(from);
+   }
+
+   private final class ListBucketPageSet extends AbstractSet<StorageMetadata> implements PageSet<StorageMetadata> {
+      private final ListBucketResponse from;
+
+      private ListBucketPageSet(ListBucketResponse from) {
+         this.from = from;
+      }
+
+      @Override
+      public Iterator<StorageMetadata> iterator() {
+         return Iterators.<StorageMetadata> concat(Iterators.transform(from.iterator(), object2blobMd),
+               Iterators.transform(from.getCommonPrefixes().iterator(), prefix2ResourceMd));
+      }
+
+      @Override
+      public int size() {
+         return from.size() + from.getCommonPrefixes().size();
+      }
+
+      @Override
+      public String getNextMarker() {
+         return from.getNextMarker();
+      }
+   }
 }
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.s3.domain.internal;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jclouds.s3.domain.ListBucketResponse;
+import org.jclouds.s3.domain.ObjectMetadata;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
+
+/**
+ * A listing whose keys can be iterated while the response is still being parsed. All other
+ * accessors wait until the whole listing has been parsed.
+ * <p>
+ * If the parse has not started when a reader first waits, for example because the executor is
+ * saturated, the reader runs it itself.
+ */
+public class StreamingListBucketResponse extends AbstractSet<ObjectMetadata> implements ListBucketResponse {
+
+   private final AtomicBoolean started = new AtomicBoolean();
+   private Runnable parse;
+
+   // guarded by this
+   private final List<ObjectMetadata> contents = Lists.newArrayList();
+   private ListBucketResponse result;
+   private RuntimeException failure;
+
+   /**
+    * Starts the parse, which is expected to {@link #offer} each key as it is read and returns the
+    * remaining fields of the listing.
+    */
+   public void parseOn(Executor executor, final Supplier<ListBucketResponse> parser) {
+      checkState(parse == null, "already parsing");
+      parse = new Runnable() {
+         @Override
+         public void run() {
+            if (!started.compareAndSet(false, true))
+               return;
+            try {
+               complete(parser.get());
+            } catch (RuntimeException e) {
+               fail(e);
+            }
+         }
+      };
+      try {
+         executor.execute(parse);
+      } catch (RejectedExecutionException e) {
+         // the first reader will parse
+      }
+   }
+
+   public synchronized void offer(ObjectMetadata metadata) {
+      contents.add(metadata);
+      notifyAll();
+   }
+
+   private synchronized void complete(ListBucketResponse result) {
+      this.result = result;
+      notifyAll();
+   }
+
+   private synchronized void fail(RuntimeException failure) {
+      this.failure = failure;
+      notifyAll();
+   }
+
+   private boolean isDone() {
+      return result != null || failure != null;
+   }
+
+   /**
+    * Waits until more than {@code index} keys have been parsed or the parse is done, returning
+    * whether key {@code index} exists.
+    */
+   private boolean awaitKey(int index) {
+      parse.run();
+      synchronized (this) {
+         while (index >= contents.size() && !isDone()) {
+            try {
+               wait();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw Throwables.propagate(e);
+            }
+         }
+         if (index < contents.size())
+            return true;
+         if (failure != null)
+            throw failure;
+         return false;
+      }
+   }
+
+   private ListBucketResponse awaitResult() {
+      awaitKey(Integer.MAX_VALUE);
+      return result;
+   }
+
+   @Override
+   public Iterator<ObjectMetadata> iterator() {
+      return new AbstractIterator<ObjectMetadata>() {
+         private int index;
+
+         @Override
+         protected ObjectMetadata computeNext() {
+            if (!awaitKey(index))
+               return endOfData();
+            synchronized (StreamingListBucketResponse.this) {
+               return contents.get(index++);
+            }
+         }
+      };
+   }
+
+   @Override
+   public int size() {
+      awaitResult();
+      synchronized (this) {
+         return contents.size();
+      }
+   }
+
+   @Override
+   public String getPrefix() {
+      return awaitResult().getPrefix();
+   }
+
+   @Override
+   public String getNextMarker() {
+      return awaitResult().getNextMarker();
+   }
+
+   @Override
+   public String getMarker() {
+      return awaitResult().getMarker();
+   }
+
+   @Override
+   public int getMaxKeys() {
+      return awaitResult().getMaxKeys();
+   }
+
+   @Override
+   public boolean isTruncated() {
+      return awaitResult().isTruncated();
+   }
+
+   @Override
+   public String getDelimiter() {
+      return awaitResult().getDelimiter();
+   }
+
+   @Override
+   public Set<String> getCommonPrefixes() {
+      return awaitResult().getCommonPrefixes();
+   }
+
+   @Override
+   public String getName() {
+      return awaitResult().getName();
+   }
+}
@@ -19,37 +19,44 @@ package org.jclouds.s3.filters;
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.io.BaseEncoding.base16;
-import static com.google.common.io.ByteStreams.readBytes;
 import static org.jclouds.crypto.Macs.asByteProcessor;
 import static org.jclouds.http.utils.Queries.queryParser;
-import static org.jclouds.util.Strings2.toInputStream;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TimeZone;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import javax.inject.Inject;
 import javax.xml.ws.http.HTTPException;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Ordering;
 import com.google.common.escape.Escaper;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingInputStream;
+import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteProcessor;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
@@ -78,6 +85,25 @@ public abstract class Aws4SignerBase {
 
    private static final Escaper AWS_PATH_ESCAPER = new PercentEscaper("/-_.~", false);
 
+   private static final BaseEncoding HEX = base16().lowerCase();
+
+   private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+
+   private static final ThreadLocal<MessageDigest> SHA256 = new ThreadLocal<MessageDigest>() {
+      @Override
+      protected MessageDigest initialValue() {
+         try {
+            return MessageDigest.getInstance("SHA-256");
+         } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 must be supported", e);
+         }
+      }
+   };
+
+   // canonical requests are built and encoded in the same buffers for each request on a thread
+   private static final ThreadLocal<StringBuilder> CANONICAL_REQUEST = new ThreadLocal<StringBuilder>();
+   private static final ThreadLocal<byte[]> ASCII_BUFFER = new ThreadLocal<byte[]>();
+
    // Specifying a default for how to parse the service and region in this way allows
    // tests or other downstream services to not have to use guice overrides.
    @ImplementedBy(ServiceAndRegion.AWSServiceAndRegion.class)
@@ -117,6 +143,10 @@ public abstract class Aws4SignerBase {
    protected final Supplier<Date> timestampProvider;
    protected final Crypto crypto;
 
+   // signing keys only change daily, so are derived once per secret, date, region and service
+   private final Cache<List<String>, byte[]> signingKeys = CacheBuilder.newBuilder().maximumSize(64).build();
+   // Mac.getInstance looks up the provider each time; a Mac can be re-keyed instead
+   private final ThreadLocal<Mac> macs = new ThreadLocal<Mac>();
 
    protected Aws4SignerBase(SignatureWire signatureWire, String headerTag,
          Supplier<Credentials> creds, Supplier<Date> timestampProvider,
@@ -173,7 +203,7 @@ public abstract class Aws4SignerBase {
    }
 
    /**
-    * caluclate AWS signature key.
+    * caluclate AWS signature key. Keys are cached, so the returned array must not be modified.
     * <p>
     * <code>
     * DateKey = hmacSHA256(datestamp, "AWS4"+ secretKey)
@@ -195,11 +225,16 @@ public abstract class Aws4SignerBase {
     * @return SigningKey
     */
    protected byte[] signatureKey(String secretKey, String datestamp, String region, String service) {
-      byte[] kSecret = ("AWS4" + secretKey).getBytes(UTF_8);
-      byte[] kDate = hmacSHA256(datestamp, kSecret);
-      byte[] kRegion = hmacSHA256(region, kDate);
-      byte[] kService = hmacSHA256(service, kRegion);
-      byte[] kSigning = hmacSHA256("aws4_request", kService);
+      List<String> scope = ImmutableList.of(secretKey, datestamp, region, service);
+      byte[] kSigning = signingKeys.getIfPresent(scope);
+      if (kSigning == null) {
+         byte[] kSecret = ("AWS4" + secretKey).getBytes(UTF_8);
+         byte[] kDate = hmacSHA256(datestamp, kSecret);
+         byte[] kRegion = hmacSHA256(region, kDate);
+         byte[] kService = hmacSHA256(service, kRegion);
+         kSigning = hmacSHA256("aws4_request", kService);
+         signingKeys.put(scope, kSigning);
+      }
       return kSigning;
    }
 
@@ -211,9 +246,14 @@ public abstract class Aws4SignerBase {
     */
    protected byte[] hmacSHA256(String toSign, byte[] key) {
       try {
-         return readBytes(toInputStream(toSign), hmacSHA256(crypto, key));
-      } catch (IOException e) {
-         throw new HttpException("read sign error", e);
+         Mac mac = macs.get();
+         if (mac == null) {
+            mac = crypto.hmacSHA256(key);
+            macs.set(mac);
+         } else {
+            mac.init(new SecretKeySpec(key, mac.getAlgorithm()));
+         }
+         return mac.doFinal(toSign.getBytes(UTF_8));
       } catch (InvalidKeyException e) {
          throw new HttpException("invalid key", e);
       }
@@ -264,7 +304,31 @@ public abstract class Aws4SignerBase {
     * @throws HTTPException
     */
    public static byte[] hash(String input) throws HTTPException {
-      return hash(new ByteArrayInputStream(input.getBytes(UTF_8)));
+      return hash((CharSequence) input);
+   }
+
+   /**
+    * hash characters (encoding UTF_8) with sha256, without copying ASCII input to a new array.
+    */
+   static byte[] hash(CharSequence input) {
+      MessageDigest digest = SHA256.get();
+      digest.reset();
+      int length = input.length();
+      byte[] buffer = ASCII_BUFFER.get();
+      if (buffer == null || buffer.length < length) {
+         buffer = new byte[Math.max(length, 512)];
+         if (buffer.length <= MAX_RETAINED_BUFFER)
+            ASCII_BUFFER.set(buffer);
+      }
+      for (int i = 0; i < length; i++) {
+         char c = input.charAt(i);
+         if (c >= 0x80) {
+            return digest.digest(input.toString().getBytes(UTF_8));
+         }
+         buffer[i] = (byte) c;
+      }
+      digest.update(buffer, 0, length);
+      return digest.digest();
    }
 
    /**
@@ -319,7 +383,7 @@ public abstract class Aws4SignerBase {
     * @return base16 lower case hex string.
     */
    public static String hex(final byte[] bytes) {
-      return base16().lowerCase().encode(bytes);
+      return HEX.encode(bytes);
    }
 
    /**
@@ -374,7 +438,12 @@ public abstract class Aws4SignerBase {
       // lower case header keys
       Map<String, String> lowerCaseHeaders = lowerCaseNaturalOrderKeys(signedHeaders);
 
-      StringBuilder canonicalRequest = new StringBuilder();
+      StringBuilder canonicalRequest = CANONICAL_REQUEST.get();
+      if (canonicalRequest == null) {
+         canonicalRequest = new StringBuilder(1024);
+         CANONICAL_REQUEST.set(canonicalRequest);
+      }
+      canonicalRequest.setLength(0);
 
       // HTTPRequestMethod + '\n' +
       canonicalRequest.append(method).append("\n");
@@ -395,12 +464,20 @@ public abstract class Aws4SignerBase {
       canonicalRequest.append("\n");
 
       // SignedHeaders + '\n' +
-      canonicalRequest.append(Joiner.on(';').join(lowerCaseHeaders.keySet())).append('\n');
+      boolean first = true;
+      for (String header : lowerCaseHeaders.keySet()) {
+         if (!first)
+            canonicalRequest.append(';');
+         canonicalRequest.append(header);
+         first = false;
+      }
+      canonicalRequest.append('\n');
 
       // HexEncode(Hash(Payload))
       canonicalRequest.append(hashedPayload);
 
-      signatureWire.getWireLog().debug("<< " + canonicalRequest);
+      if (signatureWire.getWireLog().isDebugEnabled())
+         signatureWire.getWireLog().debug("<< " + canonicalRequest);
 
       // Create a String to Sign
       StringBuilder toSign = new StringBuilder();
@@ -411,7 +488,9 @@ public abstract class Aws4SignerBase {
       // CredentialScope + '\n' +
       toSign.append(credentialScope).append('\n');
       // HexEncode(Hash(CanonicalRequest))
-      toSign.append(hex(hash(canonicalRequest.toString())));
+      toSign.append(hex(hash(canonicalRequest)));
+      if (canonicalRequest.capacity() > MAX_RETAINED_BUFFER)
+         CANONICAL_REQUEST.remove();
 
       return toSign.toString();
    }
@@ -424,10 +503,26 @@ public abstract class Aws4SignerBase {
     */
    protected static Map<String, String> lowerCaseNaturalOrderKeys(Map<String, String> in) {
       checkNotNull(in, "input map");
+      if (in instanceof ImmutableSortedMap
+            && Ordering.natural().equals(((ImmutableSortedMap<String, String>) in).comparator())
+            && isLowerCase(in.keySet())) {
+         return in;
+      }
       ImmutableSortedMap.Builder<String, String> returnVal = ImmutableSortedMap.<String, String>naturalOrder();
       for (Map.Entry<String, String> entry : in.entrySet())
          returnVal.put(entry.getKey().toLowerCase(Locale.US), entry.getValue());
       return returnVal.build();
    }
 
+   private static boolean isLowerCase(Iterable<String> keys) {
+      for (String key : keys) {
+         for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c >= 'A' && c <= 'Z' || c >= 0x80)
+               return false;
+         }
+      }
+      return true;
+   }
+
 }
@@ -37,13 +37,11 @@ import org.jclouds.location.Provider;
 import org.jclouds.util.Closeables2;
 
 import javax.inject.Named;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.io.BaseEncoding.base16;
 import static com.google.common.net.HttpHeaders.AUTHORIZATION;
 import static com.google.common.net.HttpHeaders.CONTENT_MD5;
 import static com.google.common.net.HttpHeaders.DATE;
@@ -58,6 +56,8 @@ import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_VIRTUAL_HOST_BUCK
  * AWS4 signer sign requests to Amazon S3 using an 'Authorization' header.
  */
 public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
+   private static final String EMPTY_PAYLOAD_SHA256 = hex(hash(new byte[0]));
+
    @Inject
    public Aws4SignerForAuthorizationHeader(SignatureWire signatureWire,
          @Named(PROPERTY_S3_VIRTUAL_HOST_BUCKETS) boolean isVhostStyle,
@@ -152,10 +152,11 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
 
       String stringToSign = createStringToSign(request.getMethod(), request.getEndpoint(), signedHeaders, timestamp,
             credentialScope, contentSha256);
-      signatureWire.getWireLog().debug("<< " + stringToSign);
+      if (signatureWire.getWireLog().isDebugEnabled())
+         signatureWire.getWireLog().debug("<< " + stringToSign);
 
       byte[] signatureKey = signatureKey(credentials.credential, datestamp, region, service);
-      String signature = base16().lowerCase().encode(hmacSHA256(stringToSign, signatureKey));
+      String signature = hex(hmacSHA256(stringToSign, signatureKey));
 
       StringBuilder authorization = new StringBuilder(AMZ_ALGORITHM_HMAC_SHA256).append(" ");
       authorization.append("Credential=").append(Joiner.on("/").join(credentials.identity, credentialScope))
@@ -179,7 +180,7 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
     * The hash returns the following value: e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855
     */
    protected String getEmptyPayloadContentHash() {
-      return base16().lowerCase().encode(hash(new ByteArrayInputStream(new byte[0])));
+      return EMPTY_PAYLOAD_SHA256;
    }
 
    /**
@@ -194,7 +195,7 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
          throw new HttpException("unable to open payload stream to calculate AWS4 signature.");
       }
       try {
-         return base16().lowerCase().encode(hash(payloadStream));
+         return hex(hash(payloadStream));
       } finally {
          closeOrResetPayloadStream(payloadStream, payload.isRepeatable());
       }
@@ -31,7 +31,6 @@ import static org.jclouds.s3.filters.AwsSignatureV4Constants.UNSIGNED_PAYLOAD;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_VIRTUAL_HOST_BUCKETS;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.io.BaseEncoding.base16;
 
 import java.util.Date;
 
@@ -136,7 +135,7 @@ public class Aws4SignerForQueryString extends Aws4SignerBase {
 
 
       byte[] signatureKey = signatureKey(credentials.credential, datestamp, region, service);
-      String signature = base16().lowerCase().encode(hmacSHA256(stringToSign, signatureKey));
+      String signature = hex(hmacSHA256(stringToSign, signatureKey));
 
       // X-Amz-Signature=Signature
       endpointBuilder.replaceQuery(AMZ_SIGNATURE_PARAM, signature);
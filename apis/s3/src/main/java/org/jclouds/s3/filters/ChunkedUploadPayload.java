@@ -18,38 +18,39 @@ package org.jclouds.s3.filters;
 
 import com.google.common.io.ByteProcessor;
 import com.google.common.io.ByteStreams;
-import org.jclouds.http.HttpException;
 import org.jclouds.io.MutableContentMetadata;
 import org.jclouds.io.Payload;
 import org.jclouds.io.payloads.BaseMutableContentMetadata;
 import org.jclouds.io.payloads.BasePayload;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.SequenceInputStream;
-import java.util.Enumeration;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import static com.google.common.base.Charsets.UTF_8;
-import static com.google.common.io.ByteStreams.readBytes;
 import static org.jclouds.s3.filters.Aws4SignerBase.hash;
 import static org.jclouds.s3.filters.Aws4SignerBase.hex;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.CHUNK_SIGNATURE_HEADER;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.CHUNK_STRING_TO_SIGN_PREFIX;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.CLRF;
-import static org.jclouds.s3.filters.AwsSignatureV4Constants.FINAL_CHUNK;
-import static org.jclouds.util.Strings2.toInputStream;
 
+/**
+ * Sends a payload as {@code aws-chunked} content, signing each chunk as it is read. Each attempt
+ * reads the payload once and holds only one chunk of it in memory, whatever its size.
+ */
 public class ChunkedUploadPayload extends BasePayload<Payload> {
    private static final byte[] TRAILER = CLRF.getBytes(UTF_8);
 
+   // we send no chunk extensions, so the hash of an empty string is signed for each chunk
+   private static final String NONSIG_EXTENSION_SHA256 = hex(hash(""));
+
    private final Payload payload;
    private final int chunkedBlockSize;
    private final String timestamp;
    private final String scope;
    private final ByteProcessor<byte[]> hmacSHA256;
-   private String lastComputedSignature;
+   private final String seedSignature;
 
    public ChunkedUploadPayload(Payload payload, int blockSize, String timestamp, String scope,
          ByteProcessor<byte[]> hmacSHA256, String seedSignature) {
@@ -59,7 +60,7 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
       this.timestamp = timestamp;
       this.scope = scope;
       this.hmacSHA256 = hmacSHA256;
-      this.lastComputedSignature = seedSignature;
+      this.seedSignature = seedSignature;
 
       // init content metadata
       MutableContentMetadata contentMetadata = BaseMutableContentMetadata.fromContentMetadata(
@@ -72,88 +73,30 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
    }
 
    /**
-    * Returns a chunk for upload consisting of the signed 'header' or chunk
-    * prefix plus the user data. The signature of the chunk incorporates the
-    * signature of the previous chunk (or, if the first chunk, the signature of
-    * the headers portion of the request).
+    * Signs a chunk. The signature of the chunk incorporates the signature of the previous chunk
+    * (or, if the first chunk, the signature of the headers portion of the request).
     *
-    * @param userDataLen The length of the user data contained in userData
-    * @param userData   Contains the user data to be sent in the upload chunk
-    * @return A new buffer of data for upload containing the chunk header plus
-    * user data
+    * @param previousSignature signature of the previous chunk, or the seed signature
+    * @param dataSha256 hex encoded SHA-256 of the chunk data
+    * @return hex encoded signature of the chunk
     */
-   protected byte[] constructSignedChunk(int userDataLen, byte[] userData) {
-      // to keep our computation routine signatures simple, if the userData
-      // buffer contains less data than it could, shrink it. Note the special case
-      // to handle the requirement that we send an empty chunk to complete
-      // our chunked upload.
-      byte[] dataToChunk;
-      if (userDataLen == 0) {
-         dataToChunk = FINAL_CHUNK;
-      } else {
-         if (userDataLen < userData.length) {
-            // shrink the chunkdata to fit
-            dataToChunk = new byte[userDataLen];
-            System.arraycopy(userData, 0, dataToChunk, 0, userDataLen);
-         } else {
-            dataToChunk = userData;
+   protected String signChunk(String previousSignature, String dataSha256) {
+      String chunkStringToSign = new StringBuilder(CHUNK_STRING_TO_SIGN_PREFIX).append('\n')
+            .append(timestamp).append('\n')
+            .append(scope).append('\n')
+            .append(previousSignature).append('\n')
+            .append(NONSIG_EXTENSION_SHA256).append('\n')
+            .append(dataSha256).toString();
+      byte[] toSign = chunkStringToSign.getBytes(UTF_8);
+      // streams reopened for a retry share the processor
+      synchronized (hmacSHA256) {
+         try {
+            hmacSHA256.processBytes(toSign, 0, toSign.length);
+         } catch (IOException e) {
+            throw new ChunkedUploadException("hmac sha256 chunked signature error", e);
          }
+         return hex(hmacSHA256.getResult());
       }
-
-      // string(IntHexBase(chunk-size)) + ";chunk-signature=" + signature + \r\n + chunk-data + \r\n
-      StringBuilder chunkHeader = new StringBuilder();
-
-      // start with size of user data
-      // IntHexBase(chunk-size)
-      chunkHeader.append(Integer.toHexString(dataToChunk.length));
-
-      // chunk-signature
-
-      // nonsig-extension; we have none in these samples
-      String nonsigExtension = "";
-
-      // if this is the first chunk, we package it with the signing result
-      // of the request headers, otherwise we use the cached signature
-      // of the previous chunk
-
-      // sig-extension
-      StringBuilder buffer = new StringBuilder();
-      buffer.append(CHUNK_STRING_TO_SIGN_PREFIX);
-      buffer.append("\n");
-      buffer.append(timestamp).append("\n");
-      buffer.append(scope).append("\n");
-      buffer.append(lastComputedSignature).append("\n");
-      buffer.append(hex(hash(nonsigExtension))).append("\n");
-      buffer.append(hex(hash(dataToChunk)));
-
-      String chunkStringToSign = buffer.toString();
-
-      // compute the V4 signature for the chunk
-      String chunkSignature;
-      try {
-         chunkSignature = hex(readBytes(toInputStream(chunkStringToSign), hmacSHA256));
-      } catch (IOException e) {
-         throw new HttpException("hmac sha256 chunked signature error");
-      }
-
-      // cache the signature to include with the next chunk's signature computation
-      lastComputedSignature = chunkSignature;
-
-      // construct the actual chunk, comprised of the non-signed extensions, the
-      // 'headers' we just signed and their signature, plus a newline then copy
-      // that plus the user's data to a payload to be written to the request stream
-      chunkHeader.append(nonsigExtension + CHUNK_SIGNATURE_HEADER + chunkSignature);
-      chunkHeader.append(CLRF);
-
-      byte[] header = chunkHeader.toString().getBytes(UTF_8);
-      byte[] signedChunk = new byte[header.length + dataToChunk.length + TRAILER.length];
-      System.arraycopy(header, 0, signedChunk, 0, header.length);
-      // chunk-data
-      System.arraycopy(dataToChunk, 0, signedChunk, header.length, dataToChunk.length);
-      System.arraycopy(TRAILER, 0, signedChunk, header.length + dataToChunk.length, TRAILER.length);
-
-      // this is the total data for the chunk that will be sent to the request stream
-      return signedChunk;
    }
 
    @Override
@@ -166,52 +109,91 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
       return this.payload.isRepeatable();
    }
 
+   /**
+    * Each stream signs its chunks from the seed signature again, so a repeatable payload can be
+    * resent after a failure.
+    */
    @Override
    public InputStream openStream() throws IOException {
-      return new SequenceInputStream(new ChunkedInputStreamEnumeration(this.payload.openStream(), chunkedBlockSize));
+      return new SignedChunkInputStream(this.payload.openStream());
    }
 
-   private class ChunkedInputStreamEnumeration implements Enumeration<InputStream> {
-      private final InputStream inputStream;
-      private boolean lastChunked;
-      private byte[] buffer;
+   /**
+    * Serves each chunk as its header, then the data read into a single reused block, then a CRLF.
+    */
+   private final class SignedChunkInputStream extends InputStream {
+      private final InputStream in;
+      private final MessageDigest sha256;
+      private final byte[] block;
+      private String previousSignature = seedSignature;
+      private byte[] header = new byte[0];
+      private int blockLength;
+      private int position;
+      private boolean sentFinalChunk;
+      private boolean loaded;
+
+      SignedChunkInputStream(InputStream in) {
+         this.in = in;
+         this.block = new byte[chunkedBlockSize];
+         try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+         } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 must be supported", e);
+         }
+      }
 
-      ChunkedInputStreamEnumeration(InputStream inputStream, int chunkedBlockSize) {
-         this.inputStream = new BufferedInputStream(inputStream, chunkedBlockSize);
-         buffer = new byte[chunkedBlockSize];
-         lastChunked = false;
+      private int chunkLength() {
+         return header.length + blockLength + TRAILER.length;
       }
 
-      @Override
-      public boolean hasMoreElements() {
-         return !lastChunked;
+      private boolean nextChunk() throws IOException {
+         if (sentFinalChunk)
+            return false;
+         blockLength = ByteStreams.read(in, block, 0, block.length);
+         // an empty chunk ends the upload
+         sentFinalChunk = blockLength == 0;
+         sha256.update(block, 0, blockLength);
+         previousSignature = signChunk(previousSignature, hex(sha256.digest()));
+         // string(IntHexBase(chunk-size)) + ";chunk-signature=" + signature + \r\n
+         header = (Integer.toHexString(blockLength) + CHUNK_SIGNATURE_HEADER + previousSignature + CLRF)
+               .getBytes(UTF_8);
+         position = 0;
+         return true;
       }
 
       @Override
-      public InputStream nextElement() {
-         int bytesRead;
-         try {
-            bytesRead = ByteStreams.read(inputStream, buffer, 0, buffer.length);
-         } catch (IOException e) {
-            // IO EXCEPTION
-            throw new ChunkedUploadException("read from input stream error", e);
-         }
-
-         // buffer
-         byte[] chunk;
+      public int read() throws IOException {
+         byte[] b = new byte[1];
+         return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+      }
 
-         // ByteStreams.read(InputStream, byte[], int, int) returns the number of bytes read
-         // InputStream.read(byte[], int, int) returns -1 if the end of the stream has been reached.
-         if (bytesRead > 0) {
-            // process into a chunk
-            chunk = constructSignedChunk(bytesRead, buffer);
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         if (len == 0)
+            return 0;
+         if ((!loaded || position == chunkLength()) && !nextChunk())
+            return -1;
+         loaded = true;
+         int read;
+         if (position < header.length) {
+            read = Math.min(len, header.length - position);
+            System.arraycopy(header, position, b, off, read);
+         } else if (position < header.length + blockLength) {
+            int blockPosition = position - header.length;
+            read = Math.min(len, blockLength - blockPosition);
+            System.arraycopy(block, blockPosition, b, off, read);
          } else {
-            // construct last chunked block
-            chunk = constructSignedChunk(0, buffer);
-            lastChunked = true;
+            int trailerPosition = position - header.length - blockLength;
+            read = Math.min(len, TRAILER.length - trailerPosition);
+            System.arraycopy(TRAILER, trailerPosition, b, off, read);
          }
-         return new ByteArrayInputStream(chunk);
+         position += read;
+         return read;
       }
-   }
 
+      @Override
+      public void close() throws IOException {
+         in.close();
+      }
+   }
 }
@@ -16,6 +16,7 @@
  */
 package org.jclouds.s3.filters;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.TypeToken;
 import com.google.inject.Singleton;
 import org.jclouds.http.HttpException;
@@ -25,25 +26,54 @@ import org.jclouds.rest.internal.GeneratedHttpRequest;
 import org.jclouds.s3.S3Client;
 
 import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD;
 
 @Singleton
 public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
 
-   private static final String PUT_OBJECT_METHOD = "putObject";
+   /**
+    * When to send object and part payloads as {@code aws-chunked} content, signed chunk by chunk.
+    *
+    * @see org.jclouds.s3.reference.S3Constants#PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD
+    */
+   public enum ChunkedUploadMode {
+      /**
+       * every payload of known, non-zero length
+       */
+      ALWAYS,
+      /**
+       * only payloads that cannot be read twice, as signing them up front would consume them
+       */
+      NON_REPEATABLE,
+      NEVER;
+
+      public static ChunkedUploadMode fromValue(String value) {
+         return valueOf(value.trim().toUpperCase(Locale.US).replace('-', '_'));
+      }
+   }
+
+   private static final Set<String> CHUNKED_UPLOAD_METHODS = ImmutableSet.of("putObject", "uploadPart");
    private static final TypeToken<S3Client> S3_CLIENT_TYPE = new TypeToken<S3Client>() {
    };
 
    private final Aws4SignerForAuthorizationHeader signerForAuthorizationHeader;
    private final Aws4SignerForChunkedUpload signerForChunkedUpload;
    private final Aws4SignerForQueryString signerForQueryString;
+   private final ChunkedUploadMode chunkedUploadMode;
 
    @Inject
    public RequestAuthorizeSignatureV4(Aws4SignerForAuthorizationHeader signerForAuthorizationHeader,
          Aws4SignerForChunkedUpload signerForChunkedUpload,
-         Aws4SignerForQueryString signerForQueryString) {
+         Aws4SignerForQueryString signerForQueryString,
+         @Named(PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD) String chunkedUploadMode) {
       this.signerForAuthorizationHeader = signerForAuthorizationHeader;
       this.signerForChunkedUpload = signerForChunkedUpload;
       this.signerForQueryString = signerForQueryString;
+      this.chunkedUploadMode = ChunkedUploadMode.fromValue(chunkedUploadMode);
    }
 
    @Override
@@ -59,15 +89,15 @@ public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
     * returns true, if use AWS S3 chunked upload.
     */
    protected boolean useChunkedUpload(HttpRequest request) {
-      // only S3Client putObject method, payload not null, content-length > 0 and cannot repeatable
-      if (!GeneratedHttpRequest.class.isAssignableFrom(request.getClass())) {
+      // only S3Client putObject and uploadPart methods, with a payload whose content-length > 0
+      if (chunkedUploadMode == ChunkedUploadMode.NEVER
+            || !GeneratedHttpRequest.class.isAssignableFrom(request.getClass())) {
          return false;
       }
       GeneratedHttpRequest req = GeneratedHttpRequest.class.cast(request);
 
-      // s3 client type and method name is putObject
-      if (S3_CLIENT_TYPE.equals(req.getInvocation().getInvokable().getOwnerType()) &&
-            !PUT_OBJECT_METHOD.equals(req.getInvocation().getInvokable().getName())) {
+      if (!S3_CLIENT_TYPE.isAssignableFrom(req.getInvocation().getInvokable().getOwnerType()) ||
+            !CHUNKED_UPLOAD_METHODS.contains(req.getInvocation().getInvokable().getName())) {
          return false;
       }
 
@@ -80,11 +110,11 @@ public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
 
       Long contentLength = payload.getContentMetadata().getContentLength();
 
-      if (contentLength == null) {
+      if (contentLength == null || contentLength <= 0l) {
          return false;
       }
 
-      return contentLength > 0l && !payload.isRepeatable();
+      return chunkedUploadMode == ChunkedUploadMode.ALWAYS || !payload.isRepeatable();
    }
 
    protected HttpRequest signForAuthorizationHeader(HttpRequest request) {
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.s3.functions;
+
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.jclouds.date.DateService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseSax;
+import org.jclouds.rest.InvocationContext;
+import org.jclouds.s3.domain.ListBucketResponse;
+import org.jclouds.s3.domain.ObjectMetadata;
+import org.jclouds.s3.domain.internal.StreamingListBucketResponse;
+import org.jclouds.s3.xml.ListBucketHandler;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Parses a bucket listing on the user executor, returning a {@link StreamingListBucketResponse}
+ * before the body has been read.
+ */
+public class StreamListBucket implements Function<HttpResponse, ListBucketResponse>,
+      InvocationContext<StreamListBucket> {
+
+   private final ParseSax.Factory factory;
+   private final DateService dateService;
+   private final ListeningExecutorService userExecutor;
+   private HttpRequest request;
+
+   @Inject
+   StreamListBucket(ParseSax.Factory factory, DateService dateService,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this.factory = factory;
+      this.dateService = dateService;
+      this.userExecutor = userExecutor;
+   }
+
+   @Override
+   public ListBucketResponse apply(final HttpResponse from) {
+      final StreamingListBucketResponse response = new StreamingListBucketResponse();
+      ListBucketHandler handler = new ListBucketHandler(dateService) {
+         @Override
+         protected void addContents(ObjectMetadata metadata) {
+            response.offer(metadata);
+         }
+      };
+      final ParseSax<ListBucketResponse> parser = factory.create(handler).setContext(request);
+      response.parseOn(userExecutor, new Supplier<ListBucketResponse>() {
+         @Override
+         public ListBucketResponse get() {
+            return parser.apply(from);
+         }
+      });
+      return response;
+   }
+
+   @Override
+   public StreamListBucket setContext(HttpRequest request) {
+      this.request = request;
+      return this;
+   }
+}
@@ -32,6 +32,11 @@ public final class S3Constants {
    public static final String PROPERTY_S3_SERVICE_PATH = "jclouds.s3.service-path";
    public static final String PROPERTY_S3_VIRTUAL_HOST_BUCKETS = "jclouds.s3.virtual-host-buckets";
    public static final String PROPERTY_JCLOUDS_S3_CHUNKED_SIZE = "jclouds.s3.chunked.size";
+   /**
+    * When to sign object and part uploads chunk by chunk, as they are sent, rather than hashing the
+    * payload before the request: {@code always}, {@code non-repeatable} (the default) or {@code never}.
+    */
+   public static final String PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD = "jclouds.s3.chunked.upload";
 
    private S3Constants() {
       throw new AssertionError("intentionally unimplemented");
@@ -116,7 +116,7 @@ public class ListBucketHandler extends ParseSax.HandlerWithResult<ListBucketResp
       } else if (qName.equals("StorageClass")) {
          builder.storageClass(ObjectMetadata.StorageClass.valueOf(currentOrNull(currentText)));
       } else if (qName.equals("Contents")) {
-         contents.add(builder.build());
+         addContents(builder.build());
          builder = new ObjectMetadataBuilder().bucket(bucketName);
       } else if (qName.equals("Name")) {
          this.bucketName = currentOrNull(currentText);
@@ -140,6 +140,13 @@ public class ListBucketHandler extends ParseSax.HandlerWithResult<ListBucketResp
       }
    }
 
+   /**
+    * Called as each {@code Contents} element is parsed, before the rest of the document.
+    */
+   protected void addContents(ObjectMetadata metadata) {
+      contents.add(metadata);
+   }
+
    public void characters(char ch[], int start, int length) {
       currentText.append(ch, start, length);
    }
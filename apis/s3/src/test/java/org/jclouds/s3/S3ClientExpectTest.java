@@ -19,6 +19,7 @@ package org.jclouds.s3;
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.hash.Hashing.md5;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 
 import java.net.URI;
@@ -28,11 +29,13 @@ import org.jclouds.http.HttpResponse;
 import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
 import org.jclouds.s3.domain.DeleteResult;
+import org.jclouds.s3.domain.ListBucketResponse;
 import org.jclouds.s3.internal.BaseS3ClientExpectTest;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 
 @Test(groups = "unit", testName = "S3ClientExpectTest")
 public class S3ClientExpectTest extends BaseS3ClientExpectTest {
@@ -55,6 +58,23 @@ public class S3ClientExpectTest extends BaseS3ClientExpectTest {
       
    }
 
+   @Test
+   public void testListBucketStreaming() {
+      HttpRequest listFoo = HttpRequest.builder().method("GET").endpoint("http://localhost/foo")
+            .addHeader("Date", CONSTANT_DATE)
+            .addHeader("Authorization", "AWS identity:p32RsBr2inawMBeCkkiA228BT2w=").build();
+
+      S3Client client = requestSendsResponse(listFoo, HttpResponse.builder().statusCode(200)
+            .payload(payloadFromResourceWithContentType("/list_bucket.xml", "application/xml")).build());
+
+      ListBucketResponse response = client.listBucketStreaming("foo");
+      assertEquals(Iterables.get(response, 0).getKey(), "apps/0");
+      assertEquals(response.size(), 10);
+      assertEquals(Iterables.getLast(response).getKey(), "apps/9");
+      assertEquals(response.getPrefix(), "apps/");
+      assertFalse(response.isTruncated());
+   }
+
    @Test
    public void testDeleteMultipleObjects() {
       final String request = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
@@ -58,6 +58,7 @@ import org.jclouds.s3.fallbacks.FalseIfBucketAlreadyOwnedByYouOrOperationAborted
 import org.jclouds.s3.functions.ETagFromHttpResponseViaRegex;
 import org.jclouds.s3.functions.ParseObjectFromHeadersAndHttpContent;
 import org.jclouds.s3.functions.ParseObjectMetadataFromHeaders;
+import org.jclouds.s3.functions.StreamListBucket;
 import org.jclouds.s3.functions.UploadIdFromHttpResponseViaRegex;
 import org.jclouds.s3.internal.BaseS3ClientTest;
 import org.jclouds.s3.options.CopyObjectOptions;
@@ -185,6 +186,22 @@ public abstract class S3ClientTest<T extends S3Client> extends BaseS3ClientTest<
       checkFilters(request);
    }
 
+   public void testListBucketStreaming() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(S3Client.class, "listBucketStreaming", String.class,
+               ListBucketOptions[].class);
+      GeneratedHttpRequest request = processor.createRequest(method, ImmutableList.<Object> of("bucket"));
+
+      assertRequestLineEquals(request, "GET https://bucket." + url + "/ HTTP/1.1");
+      assertNonPayloadHeadersEqual(request, "Host: bucket." + url + "\n");
+      assertPayloadEquals(request, null, null, false);
+
+      assertResponseParserClassEquals(method, request, StreamListBucket.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, null);
+
+      checkFilters(request);
+   }
+
    public void testBucketExists() throws SecurityException, NoSuchMethodException, IOException {
       Invokable<?, ?> method = method(S3Client.class, "bucketExists", String.class);
       GeneratedHttpRequest request = processor.createRequest(method, ImmutableList.<Object> of("bucket"));
@@ -606,6 +623,27 @@ public abstract class S3ClientTest<T extends S3Client> extends BaseS3ClientTest<
       checkFilters(request);
    }
 
+   public void testUploadPartCopyIfSourceETagMatches() throws SecurityException, NegativeArraySizeException,
+         NoSuchMethodException {
+      Invokable<?, ?> method = method(S3Client.class, "uploadPartCopy", String.class, String.class, int.class,
+            String.class, String.class, String.class, long.class, long.class, String.class);
+      GeneratedHttpRequest request = processor.createRequest(method, ImmutableList.<Object> of("bucket", "foo", 1, "asdsadasdas",
+            "anotherBucket", "anotherObject", 2, 10 * 1024 * 1024, "\"abc\""));
+
+      assertRequestLineEquals(request, "PUT https://bucket." + url + "/foo?partNumber=1&uploadId=asdsadasdas HTTP/1.1");
+      assertNonPayloadHeadersEqual(request, "Host: bucket." + url + "\n" +
+            "x-amz-copy-source: /anotherBucket/anotherObject\n" +
+            "x-amz-copy-source-if-match: \"abc\"\n" +
+            "x-amz-copy-source-range: bytes=2-10485760\n");
+      assertPayloadEquals(request, null, "application/unknown", false);
+
+      assertResponseParserClassEquals(method, request, ETagFromHttpResponseViaRegex.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, MapHttp4xxCodesToExceptions.class);
+
+      checkFilters(request);
+   }
+
    public void testCompleteMultipartUpload() throws SecurityException, NegativeArraySizeException,
          NoSuchMethodException {
       Invokable<?, ?> method = method(S3Client.class, "completeMultipartUpload", String.class, String.class,
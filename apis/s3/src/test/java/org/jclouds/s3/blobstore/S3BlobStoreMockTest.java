@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.s3.blobstore;
+
+import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.LAST_MODIFIED;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Properties;
+import java.util.Set;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.aws.AWSResponseException;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.http.okhttp.config.OkHttpCommandExecutorServiceModule;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(singleThreaded = true)
+public class S3BlobStoreMockTest {
+
+   private static final Set<Module> modules = ImmutableSet.<Module> of(new OkHttpCommandExecutorServiceModule(),
+         new ExecutorServiceModule(sameThreadExecutor()));
+
+   private static final long MAX_SINGLE_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+
+   static BlobStoreContext getBlobStoreContext(URL server) {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MAX_RETRIES, "1");
+      return ContextBuilder.newBuilder("s3")
+                           .credentials("accessKey", "secretKey")
+                           .endpoint(server.toString())
+                           .modules(modules)
+                           .overrides(overrides)
+                           .build(BlobStoreContext.class);
+   }
+
+   public void testCopyBlobWithoutHead() throws IOException, InterruptedException {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().setBody("<CopyObjectResult><LastModified>2009-03-12T02:00:07.000Z"
+            + "</LastModified><ETag>\"abc\"</ETag></CopyObjectResult>"));
+      server.play();
+
+      BlobStoreContext context = getBlobStoreContext(server.getUrl("/"));
+      try {
+         assertEquals(context.getBlobStore().copyBlob("bucket", "from", "bucket", "to", CopyOptions.NONE), "\"abc\"");
+
+         RecordedRequest request = server.takeRequest();
+         assertEquals(request.getRequestLine(), "PUT /bucket/to HTTP/1.1");
+         assertEquals(request.getHeaders("x-amz-copy-source"), ImmutableList.of("/bucket/from"));
+         assertEquals(server.getRequestCount(), 1);
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testCopyBlobLargerThanSingleCopyCopiesParts() throws IOException, InterruptedException {
+      long contentLength = MAX_SINGLE_COPY_SIZE + 1;
+      // as planned by MultipartUploadSlicingAlgorithm, ending with a part of one byte
+      long partSize = 64L * 1024 * 1024;
+      int parts = (int) ((contentLength + partSize - 1) / partSize);
+
+      MockWebServer server = new MockWebServer();
+      server.enqueue(copySourceTooLarge());
+      server.enqueue(head(contentLength));
+      server.enqueue(new MockResponse().setBody("<InitiateMultipartUploadResult><Bucket>bucket</Bucket><Key>to</Key>"
+            + "<UploadId>upload</UploadId></InitiateMultipartUploadResult>"));
+      for (int i = 1; i <= parts; i++) {
+         server.enqueue(new MockResponse().setBody("<CopyPartResult><LastModified>2009-03-12T02:00:07.000Z"
+               + "</LastModified><ETag>\"part" + i + "\"</ETag></CopyPartResult>"));
+      }
+      server.enqueue(new MockResponse().setBody("<CompleteMultipartUploadResult><Bucket>bucket</Bucket><Key>to</Key>"
+            + "<ETag>\"copy\"</ETag></CompleteMultipartUploadResult>"));
+      server.play();
+
+      BlobStoreContext context = getBlobStoreContext(server.getUrl("/"));
+      try {
+         assertEquals(context.getBlobStore().copyBlob("bucket", "from", "bucket", "to", CopyOptions.NONE),
+               "\"copy\"");
+
+         assertEquals(server.takeRequest().getRequestLine(), "PUT /bucket/to HTTP/1.1");
+         assertEquals(server.takeRequest().getRequestLine(), "HEAD /bucket/from HTTP/1.1");
+         RecordedRequest initiate = server.takeRequest();
+         assertEquals(initiate.getMethod(), "POST");
+         assertTrue(initiate.getPath().startsWith("/bucket/to?uploads"), initiate.getPath());
+         for (int i = 1; i <= parts; i++) {
+            RecordedRequest request = server.takeRequest();
+            assertEquals(request.getRequestLine(), "PUT /bucket/to?partNumber=" + i + "&uploadId=upload HTTP/1.1");
+            long offset = (i - 1) * partSize;
+            assertEquals(request.getHeader("x-amz-copy-source-range"),
+                  "bytes=" + offset + "-" + (Math.min(offset + partSize, contentLength) - 1));
+            assertEquals(request.getHeader("x-amz-copy-source-if-match"), "\"abc\"");
+         }
+         RecordedRequest complete = server.takeRequest();
+         assertEquals(complete.getRequestLine(), "POST /bucket/to?uploadId=upload HTTP/1.1");
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   public void testCopyBlobRefusedForOtherReason() throws IOException, InterruptedException {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(copySourceTooLarge());
+      server.enqueue(head(MAX_SINGLE_COPY_SIZE));
+      server.play();
+
+      BlobStoreContext context = getBlobStoreContext(server.getUrl("/"));
+      try {
+         context.getBlobStore().copyBlob("bucket", "from", "bucket", "to", CopyOptions.NONE);
+         fail("expected AWSResponseException");
+      } catch (RuntimeException expected) {
+         AWSResponseException exception = getFirstThrowableOfType(expected, AWSResponseException.class);
+         assertEquals(exception.getError().getCode(), "InvalidRequest");
+         assertEquals(server.getRequestCount(), 2);
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   private static MockResponse copySourceTooLarge() {
+      return new MockResponse().setResponseCode(400).addHeader(CONTENT_TYPE, "application/xml")
+            .setBody("<Error><Code>InvalidRequest</Code><Message>The specified copy source is larger than the"
+                  + " maximum allowable size for a copy source: 5368709120</Message></Error>");
+   }
+
+   private static MockResponse head(long contentLength) {
+      return new MockResponse().setHeader(CONTENT_LENGTH, contentLength).addHeader(ETAG, "\"abc\"")
+            .addHeader(LAST_MODIFIED, "Thu, 12 Mar 2009 02:00:07 GMT");
+   }
+}
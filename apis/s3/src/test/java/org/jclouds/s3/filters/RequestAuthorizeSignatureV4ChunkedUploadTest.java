@@ -52,10 +52,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Date;
+import java.util.Properties;
 
 import static com.google.common.io.BaseEncoding.base16;
 import static org.jclouds.reflect.Reflection2.method;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.fail;
 
 /**
@@ -107,8 +110,13 @@ public class RequestAuthorizeSignatureV4ChunkedUploadTest {
    }
 
    public static Injector injector(Credentials creds) {
+      return injector(creds, new Properties());
+   }
+
+   public static Injector injector(Credentials creds, Properties overrides) {
       return ContextBuilder.newBuilder(new S3ApiMetadata())
             .credentialsSupplier(Suppliers.<Credentials>ofInstance(creds))
+            .overrides(overrides)
             .modules(ImmutableList.<Module>of(new BaseRestApiTest.MockModule(), new NullLoggingModule(),
                   new TestS3HttpApiModule()))
             .buildInjector();
@@ -118,6 +126,12 @@ public class RequestAuthorizeSignatureV4ChunkedUploadTest {
       return injector(creds).getInstance(RequestAuthorizeSignatureV4.class);
    }
 
+   public static RequestAuthorizeSignatureV4 filter(Credentials creds, String chunkedUploadMode) {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD, chunkedUploadMode);
+      return injector(creds, overrides).getInstance(RequestAuthorizeSignatureV4.class);
+   }
+
    Credentials temporaryCredentials = new Credentials.Builder()
          .identity(IDENTITY)
          .credential(CREDENTIAL)
@@ -155,6 +169,78 @@ public class RequestAuthorizeSignatureV4ChunkedUploadTest {
       }
    }
 
+   @Test
+   void testReopenedStreamIsSignedAgain() throws IOException {
+      byte[] content = make65KPayload().getBytes(Charset.forName("UTF-8"));
+      HttpRequest filtered = filter(temporaryCredentials, "always")
+            .filter(putObject(Payloads.newByteArrayPayload(content), content.length));
+      assertEquals(filtered.getFirstHeaderOrNull("Authorization"), PUT_OBJECT_AUTHORIZATION);
+      assertEquals(filtered.getPayload().getClass(), ChunkedUploadPayload.class);
+
+      // a retry sends the same chunks and signatures
+      for (int i = 0; i < 2; i++) {
+         InputStream is = filtered.getPayload().openStream();
+         try {
+            assertEquals(base16().lowerCase().encode(hash(is)), CHUKED_UPLOAD_PAYLOAD_SHA256);
+         } finally {
+            Closeables2.closeQuietly(is);
+         }
+      }
+   }
+
+   @Test
+   void testRepeatablePayloadIsNotChunkedByDefault() {
+      byte[] content = make65KPayload().getBytes(Charset.forName("UTF-8"));
+      HttpRequest filtered = filter(temporaryCredentials)
+            .filter(putObject(Payloads.newByteArrayPayload(content), content.length));
+      assertNotEquals(filtered.getPayload().getClass(), ChunkedUploadPayload.class);
+   }
+
+   @Test
+   void testNeverChunked() {
+      byte[] content = make65KPayload().getBytes(Charset.forName("UTF-8"));
+      Payload payload = Payloads.newInputStreamPayload(new ByteArrayInputStream(content));
+      HttpRequest filtered = filter(temporaryCredentials, "never").filter(putObject(payload, content.length));
+      assertNotEquals(filtered.getPayload().getClass(), ChunkedUploadPayload.class);
+   }
+
+   @Test
+   void testUploadPartWithChunkedUpload() {
+      Invocation invocation = Invocation.create(
+            method(S3Client.class, "uploadPart", String.class, String.class, int.class, String.class, Payload.class),
+            ImmutableList.<Object>of(BUCKET_NAME));
+      byte[] content = make65KPayload().getBytes(Charset.forName("UTF-8"));
+      HttpRequest uploadPart = GeneratedHttpRequest.builder().invocation(invocation)
+            .method("PUT")
+            .endpoint("https://" + BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn/" + OBJECT_NAME
+                  + "?partNumber=1&uploadId=upload")
+            .addHeader(HttpHeaders.HOST, BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn")
+            .build();
+      Payload payload = Payloads.newInputStreamPayload(new ByteArrayInputStream(content));
+      payload.getContentMetadata().setContentLength((long) content.length);
+      uploadPart.setPayload(payload);
+      HttpRequest filtered = filter(temporaryCredentials).filter(uploadPart);
+      assertEquals(filtered.getPayload().getClass(), ChunkedUploadPayload.class);
+      assertEquals(filtered.getPayload().getContentMetadata().getContentLength(),
+            Long.valueOf(Aws4SignerForChunkedUpload.calculateChunkedContentLength(content.length, 64 * 1024)));
+   }
+
+   private static HttpRequest putObject(Payload payload, long contentLength) {
+      Invocation invocation = Invocation.create(
+            method(S3Client.class, "putObject", String.class, S3Object.class, PutObjectOptions[].class),
+            ImmutableList.<Object>of(BUCKET_NAME));
+      HttpRequest putObject = GeneratedHttpRequest.builder().invocation(invocation)
+            .method("PUT")
+            .endpoint("https://" + BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn/" + OBJECT_NAME)
+            .addHeader(HttpHeaders.HOST, BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn")
+            .addHeader("x-amz-storage-class", "REDUCED_REDUNDANCY")
+            .build();
+      payload.getContentMetadata().setContentLength(contentLength);
+      payload.getContentMetadata().setContentType("text/plain");
+      putObject.setPayload(payload);
+      return putObject;
+   }
+
    /**
     * Want sample to upload 3 chunks for our selected chunk size of 64K; one
     * full size chunk, one partial chunk and then the 0-byte terminator chunk.
@@ -44,9 +44,11 @@ import org.jclouds.s3.domain.S3Object;
 import org.jclouds.s3.options.PutObjectOptions;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
 import com.google.common.net.HttpHeaders;
 import com.google.inject.Injector;
 import com.google.inject.Module;
@@ -190,4 +192,32 @@ public class RequestAuthorizeSignatureV4Test {
       assertEquals(filtered.getFirstHeaderOrNull("Authorization"), PUT_OBJECT_RESULT);
 
    }
+
+   @Test
+   void testRepeatedSignaturesWithCachedSigningKey() {
+      RequestAuthorizeSignatureV4 filter = filter(temporaryCredentials);
+      Invocation invocation = Invocation.create(method(S3Client.class, "getObject", String.class,
+                  String.class, GetOptions[].class),
+            ImmutableList.<Object>of(BUCKET_NAME, OBJECT_NAME, new GetOptions[0]));
+      HttpRequest getObject = GeneratedHttpRequest.builder().method("GET")
+            .invocation(invocation)
+            .endpoint("https://" + BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn/" + OBJECT_NAME)
+            .addHeader(HttpHeaders.HOST, BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn")
+            .build();
+      HttpRequest getObjectACL = getObject.toBuilder().addQueryParam("acl", "").build();
+
+      for (int i = 0; i < 3; i++) {
+         assertEquals(filter.filter(getObject).getFirstHeaderOrNull("Authorization"), GET_OBJECT_RESULT);
+         assertEquals(filter.filter(getObjectACL).getFirstHeaderOrNull("Authorization"), GET_OBJECT_ACL_RESULT);
+      }
+   }
+
+   @Test
+   void testHashOfNonAsciiCanonicalRequest() {
+      String canonicalRequest = "GET\n/caf\u00e9\n\nhost:example.com\n";
+      assertEquals(Aws4SignerBase.hash(new StringBuilder(canonicalRequest)),
+            Hashing.sha256().hashString(canonicalRequest, Charsets.UTF_8).asBytes());
+      assertEquals(Aws4SignerBase.hash(new StringBuilder("GET\n/\n")),
+            Hashing.sha256().hashString("GET\n/\n", Charsets.UTF_8).asBytes());
+   }
 }
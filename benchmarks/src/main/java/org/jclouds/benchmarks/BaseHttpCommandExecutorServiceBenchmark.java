@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.internal.BaseHttpCommandExecutorService;
+import org.jclouds.s3.S3ApiMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.net.MediaType;
+
+/**
+ * Measures the per-request overhead of {@link BaseHttpCommandExecutorService#invoke(HttpCommand)}
+ * against an in-process stub, independent of any api.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaseHttpCommandExecutorServiceBenchmark {
+
+   @Param({ "0", "65536" })
+   public int responseSize;
+
+   private HttpCommandExecutorService http;
+   private HttpRequest request;
+
+   @Setup
+   public void setup() {
+      http = Fixtures.injector(new S3ApiMetadata(), Fixtures.ok(new byte[responseSize], MediaType.OCTET_STREAM))
+            .getInstance(HttpCommandExecutorService.class);
+      request = HttpRequest.builder().method("GET").endpoint("https://bucket.s3.amazonaws.com/path/to/key")
+            .addHeader("Host", "bucket.s3.amazonaws.com").build();
+   }
+
+   @Benchmark
+   public HttpResponse invoke() {
+      HttpResponse response = http.invoke(new HttpCommand(request));
+      response.getPayload().release();
+      return response;
+   }
+}
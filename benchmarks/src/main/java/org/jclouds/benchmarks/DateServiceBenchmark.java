@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.date.DateService;
+import org.jclouds.date.internal.LockFreeDateService;
+import org.jclouds.date.internal.SimpleDateFormatDateService;
+import org.jclouds.date.joda.JodaDateService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link DateService} calls made for every listed object and response header, with one
+ * instance shared by several threads as it is in a context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class DateServiceBenchmark {
+
+   private static final String LAST_MODIFIED = "2009-03-12T02:00:07.000Z";
+   private static final String HTTP_DATE = "Thu, 12 Mar 2009 02:00:07 GMT";
+
+   @Param({ "simple", "joda", "lockfree" })
+   private String implementation;
+
+   private DateService dateService;
+   private Date date;
+
+   @Setup
+   public void setup() {
+      if ("joda".equals(implementation))
+         dateService = new JodaDateService();
+      else if ("lockfree".equals(implementation))
+         dateService = new LockFreeDateService();
+      else
+         dateService = new SimpleDateFormatDateService();
+      date = new Date(1236823207000L);
+   }
+
+   @Benchmark
+   public Date iso8601Parse() {
+      return dateService.iso8601DateParse(LAST_MODIFIED);
+   }
+
+   @Benchmark
+   public Date rfc822Parse() {
+      return dateService.rfc822DateParse(HTTP_DATE);
+   }
+
+   @Benchmark
+   public String iso8601Format() {
+      return dateService.iso8601DateFormat(date);
+   }
+
+   @Benchmark
+   public String rfc822Format() {
+      return dateService.rfc822DateFormat(date);
+   }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import java.io.IOException;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.apis.ApiMetadata;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.logging.config.NullLoggingModule;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Resources;
+import com.google.common.net.MediaType;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+
+/**
+ * Response fixtures and injectors shared by the benchmarks. The payloads are the
+ * ones the api modules use in their unit tests, loaded from their test-jars.
+ */
+public final class Fixtures {
+
+   public static final String S3_LIST_BUCKET = "/list_bucket.xml";
+   public static final String EC2_DESCRIBE_INSTANCES = "/describe_instances_running.xml";
+   public static final String SWIFT_CONTAINER_LIST = "/container_list.json";
+
+   public static byte[] load(String resource) {
+      try {
+         return Resources.toByteArray(Resources.getResource(Fixtures.class, resource));
+      } catch (IOException e) {
+         throw new IllegalStateException("could not load fixture " + resource, e);
+      }
+   }
+
+   /**
+    * Returns a responder which answers {@code 200 OK} with a new payload over
+    * {@code body} each time, as the response payload is consumed per call. The
+    * array itself is shared, not copied, so it must not be modified.
+    */
+   public static Function<HttpRequest, HttpResponse> ok(final byte[] body, final MediaType contentType) {
+      return new Function<HttpRequest, HttpResponse>() {
+         @Override
+         public HttpResponse apply(HttpRequest input) {
+            HttpResponse response = HttpResponse.builder().statusCode(200).message("OK").payload(body).build();
+            response.getPayload().getContentMetadata().setContentType(contentType.toString());
+            return response;
+         }
+      };
+   }
+
+   /**
+    * Builds an injector for {@code api} whose http layer is answered in-process by {@code responder}.
+    */
+   public static Injector injector(ApiMetadata api, Function<HttpRequest, HttpResponse> responder) {
+      return ContextBuilder.newBuilder(api)
+            .credentials("identity", "credential")
+            .modules(ImmutableSet.<Module> of(new NullLoggingModule(),
+                  new StubHttpCommandExecutorServiceModule(responder)))
+            .buildInjector();
+   }
+
+   private Fixtures() {
+   }
+}
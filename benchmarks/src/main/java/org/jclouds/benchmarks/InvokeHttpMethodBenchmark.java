@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import static org.jclouds.reflect.Reflection2.method;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.reflect.Invocation;
+import org.jclouds.s3.S3ApiMetadata;
+import org.jclouds.s3.S3Client;
+import org.jclouds.s3.options.ListBucketOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.MediaType;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Measures a complete S3 call: request generation, filters and signing, the
+ * executor loop against an in-process stub and response parsing of the
+ * {@code ListBucketResult} fixture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokeHttpMethodBenchmark {
+
+   private Function<Invocation, Object> invokeHttpMethod;
+   private Invocation listBucket;
+
+   @Setup
+   public void setup() {
+      Injector injector = Fixtures.injector(new S3ApiMetadata(),
+            Fixtures.ok(Fixtures.load(Fixtures.S3_LIST_BUCKET), MediaType.XML_UTF_8));
+      invokeHttpMethod = injector.getInstance(Key.get(new TypeLiteral<Function<Invocation, Object>>() {
+      }));
+      listBucket = Invocation.create(method(S3Client.class, "listBucket", String.class, ListBucketOptions[].class),
+            ImmutableList.<Object> of("bucket", ListBucketOptions.Builder.withPrefix("apps/")));
+   }
+
+   @Benchmark
+   public Object listBucket() {
+      return invokeHttpMethod.apply(listBucket);
+   }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseJson;
+import org.jclouds.http.functions.ParseJsonArrayElements;
+import org.jclouds.http.functions.ParseJsonArrayElements.JsonArrayIterator;
+import org.jclouds.json.internal.GsonWrapper;
+import org.jclouds.openstack.swift.v1.SwiftApiMetadata;
+import org.jclouds.openstack.swift.v1.domain.Container;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.MediaType;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Measures {@link ParseJson#apply(HttpResponse)} on the Swift container listing fixture,
+ * using the gson configuration of the swift api, and {@link ParseJsonArrayElements} reading the
+ * same listing one container at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseJsonBenchmark {
+
+   private ParseJson<List<Container>> parser;
+   private ParseJsonArrayElements<Container> streamingParser;
+   private Function<HttpRequest, HttpResponse> containerListResponse;
+
+   @Setup
+   public void setup() {
+      containerListResponse = Fixtures.ok(Fixtures.load(Fixtures.SWIFT_CONTAINER_LIST), MediaType.JSON_UTF_8);
+      Injector injector = Fixtures.injector(new SwiftApiMetadata(), containerListResponse);
+      parser = injector.getInstance(Key.get(new TypeLiteral<ParseJson<List<Container>>>() {
+      }));
+      streamingParser = new ParseJsonArrayElements<Container>(injector.getInstance(GsonWrapper.class),
+            TypeLiteral.get(Container.class));
+   }
+
+   @Benchmark
+   public List<Container> swiftContainerList() {
+      return parser.apply(containerListResponse.apply(null));
+   }
+
+   @Benchmark
+   public List<Container> swiftContainerListStreamed() {
+      JsonArrayIterator<Container> containers = streamingParser.apply(containerListResponse.apply(null));
+      try {
+         return ImmutableList.copyOf(containers);
+      } finally {
+         containers.close();
+      }
+   }
+}
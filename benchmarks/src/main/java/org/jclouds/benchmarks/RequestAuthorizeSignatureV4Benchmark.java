@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import static org.jclouds.reflect.Reflection2.method;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.options.GetOptions;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+import org.jclouds.s3.S3ApiMetadata;
+import org.jclouds.s3.S3Client;
+import org.jclouds.s3.filters.RequestAuthorizeSignatureV4;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HttpHeaders;
+import com.google.common.net.MediaType;
+
+/**
+ * Measures signatures per second of {@link RequestAuthorizeSignatureV4} on a single thread, for a GET
+ * with an empty payload and for a listing whose query string and x-amz headers are canonicalized.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestAuthorizeSignatureV4Benchmark {
+
+   private static final String HOST = "bucket.s3.cn-north-1.amazonaws.com.cn";
+
+   private RequestAuthorizeSignatureV4 filter;
+   private HttpRequest getObject;
+   private HttpRequest listBucket;
+
+   @Setup
+   public void setup() {
+      filter = Fixtures.injector(new S3ApiMetadata(), Fixtures.ok(new byte[0], MediaType.OCTET_STREAM))
+            .getInstance(RequestAuthorizeSignatureV4.class);
+      Invocation invocation = Invocation.create(
+            method(S3Client.class, "getObject", String.class, String.class, GetOptions[].class),
+            ImmutableList.<Object> of("bucket", "path/to/key"));
+      getObject = GeneratedHttpRequest.builder().method("GET")
+            .invocation(invocation)
+            .endpoint("https://" + HOST + "/path/to/key")
+            .addHeader(HttpHeaders.HOST, HOST)
+            .build();
+      listBucket = getObject.toBuilder()
+            .endpoint("https://" + HOST + "/?prefix=path%2Fto%2F&marker=path%2Fto%2Fkey&max-keys=1000")
+            .addHeader("x-amz-request-payer", "requester")
+            .addHeader("x-amz-security-token", "AQoDYXdzEJr1K...")
+            .build();
+   }
+
+   @Benchmark
+   public HttpRequest signGetObject() {
+      return filter.filter(getObject);
+   }
+
+   @Benchmark
+   public HttpRequest signListBucket() {
+      return filter.filter(listBucket);
+   }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import static org.jclouds.reflect.Reflection2.method;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.options.GetOptions;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.internal.RestAnnotationProcessor;
+import org.jclouds.s3.S3ApiMetadata;
+import org.jclouds.s3.S3Client;
+import org.jclouds.s3.domain.S3Object;
+import org.jclouds.s3.options.ListBucketOptions;
+import org.jclouds.s3.options.PutObjectOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.MediaType;
+import com.google.inject.Injector;
+
+/**
+ * Measures the cost of turning an S3 {@link Invocation} into an {@link HttpRequest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestAnnotationProcessorBenchmark {
+
+   private RestAnnotationProcessor processor;
+   private Invocation getObject;
+   private Invocation putObject;
+   private Invocation listBucket;
+
+   @Setup
+   public void setup() {
+      Injector injector = Fixtures.injector(new S3ApiMetadata(), Fixtures.ok(new byte[0], MediaType.OCTET_STREAM));
+      processor = injector.getInstance(RestAnnotationProcessor.class);
+
+      getObject = Invocation.create(method(S3Client.class, "getObject", String.class, String.class, GetOptions[].class),
+            ImmutableList.<Object> of("bucket", "path/to/key", GetOptions.Builder.range(0, 1023)));
+
+      S3Object object = injector.getInstance(S3Object.Factory.class).create(null);
+      object.getMetadata().setKey("path/to/key");
+      object.setPayload(new byte[1024]);
+      object.getMetadata().getContentMetadata().setContentType(MediaType.OCTET_STREAM.toString());
+      putObject = Invocation.create(
+            method(S3Client.class, "putObject", String.class, S3Object.class, PutObjectOptions[].class),
+            ImmutableList.<Object> of("bucket", object));
+
+      listBucket = Invocation.create(method(S3Client.class, "listBucket", String.class, ListBucketOptions[].class),
+            ImmutableList.<Object> of("bucket", ListBucketOptions.Builder.withPrefix("path/").maxResults(1000)));
+   }
+
+   @Benchmark
+   public HttpRequest getObject() {
+      return processor.apply(getObject);
+   }
+
+   @Benchmark
+   public HttpRequest putObject() {
+      return processor.apply(putObject);
+   }
+
+   @Benchmark
+   public HttpRequest listBucket() {
+      return processor.apply(listBucket);
+   }
+}
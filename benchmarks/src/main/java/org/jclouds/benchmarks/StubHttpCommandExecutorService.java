@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.internal.BaseHttpCommandExecutorService;
+import org.jclouds.http.internal.HttpWire;
+import org.jclouds.io.ContentMetadataCodec;
+
+import com.google.common.base.Function;
+
+/**
+ * In-process executor that answers every request from a canned responder, so
+ * benchmarks exercise the full {@link BaseHttpCommandExecutorService} loop
+ * (filters, wire logging, retry and error handling) without touching a socket.
+ */
+@Singleton
+public class StubHttpCommandExecutorService extends BaseHttpCommandExecutorService<HttpRequest> {
+
+   public static final String RESPONDER = "jclouds.benchmarks.responder";
+
+   private final Function<HttpRequest, HttpResponse> responder;
+
+   @Inject
+   StubHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+         DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+         DelegatingErrorHandler errorHandler, HttpWire wire,
+         @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods,
+         @Named(RESPONDER) Function<HttpRequest, HttpResponse> responder) {
+      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods);
+      this.responder = responder;
+   }
+
+   @Override
+   protected HttpRequest convert(HttpRequest request) {
+      return request;
+   }
+
+   @Override
+   protected HttpResponse invoke(HttpRequest nativeRequest) {
+      return responder.apply(nativeRequest);
+   }
+
+   @Override
+   protected void cleanup(HttpRequest nativeRequest) {
+   }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
+
+import com.google.common.base.Function;
+import com.google.inject.AbstractModule;
+import com.google.inject.Scopes;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+
+/**
+ * Configures {@link StubHttpCommandExecutorService} to answer with the given responder.
+ */
+@ConfiguresHttpCommandExecutorService
+public class StubHttpCommandExecutorServiceModule extends AbstractModule {
+   private final Function<HttpRequest, HttpResponse> responder;
+
+   public StubHttpCommandExecutorServiceModule(Function<HttpRequest, HttpResponse> responder) {
+      this.responder = checkNotNull(responder, "responder");
+   }
+
+   @Override
+   protected void configure() {
+      bind(new TypeLiteral<Function<HttpRequest, HttpResponse>>() {
+      }).annotatedWith(Names.named(StubHttpCommandExecutorService.RESPONDER)).toInstance(responder);
+      bind(HttpCommandExecutorService.class).to(StubHttpCommandExecutorService.class).in(Scopes.SINGLETON);
+   }
+}
@@ -16,10 +16,12 @@
  */
 package org.jclouds.blobstore;
 
+import java.io.File;
 import java.util.List;
 import java.util.Set;
 
 import com.google.common.annotations.Beta;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
@@ -359,4 +361,28 @@ public interface BlobStore {
 
    @Beta
    int getMaximumNumberOfParts();
+
+   /**
+    * Downloads a blob into a file, requesting ranges of it in parallel on the jclouds user
+    * executor and writing each at its offset.
+    *
+    * @param container
+    *           container where this exists.
+    * @param name
+    *           fully qualified name relative to the container.
+    * @param destination
+    *           file to replace with the contents of the blob; deleted if the download fails.
+    * @throws KeyNotFoundException
+    *            if the blob doesn't exist
+    */
+   @Beta
+   void downloadBlob(String container, String name, File destination);
+
+   /**
+    * Downloads a blob into a file, requesting ranges of it in parallel on {@code executor}.
+    *
+    * @see #downloadBlob(String, String, File)
+    */
+   @Beta
+   void downloadBlob(String container, String name, File destination, ListeningExecutorService executor);
 }
@@ -51,46 +51,49 @@ public class BlobStores {
     * immediately and cached. Repeatedly iterating will not re-fetch (and thus
     * will not refresh) the first page.
     *  
+    * If listAllOptions has a prefetch or parallel count, pages are fetched on its executor ahead
+    * of the iteration; see ListAllOptions.prefetch and ListAllOptions.parallel.
+    *  
     * @throws ContainerNotFoundException If listAllOptions.isEager and container cannot be found
     */
    @Beta
    public static Iterable<StorageMetadata> listAll(final BlobStore blobStore, final String container,
             final ListContainerOptions containerOptions, final ListAllOptions listAllOptions) {
       final boolean eager = listAllOptions.isEager();
-      final PageSet<? extends StorageMetadata> firstList;
-      final String firstMarker;
-
-      if (eager) {
-         firstList = blobStore.list(container, containerOptions);
-         firstMarker = firstList.getNextMarker();
-      } else {
-         firstList = null;
-         firstMarker = null;
+      if (listAllOptions.getPrefetch() > 0 || listAllOptions.getParallel() > 0) {
+         final PageSet<? extends StorageMetadata> firstPage = eager ? blobStore.list(container,
+                  PrefetchingListIterator.firstOptions(containerOptions, listAllOptions)) : null;
+         return new Iterable<StorageMetadata>() {
+            public Iterator<StorageMetadata> iterator() {
+               return new PrefetchingListIterator(blobStore, container, containerOptions, listAllOptions, firstPage);
+            }
+         };
       }
-      
+      final PageSet<? extends StorageMetadata> firstList = eager ? blobStore.list(container, containerOptions) : null;
+
       return new Iterable<StorageMetadata>() {
          public Iterator<StorageMetadata> iterator() {
             return new AbstractIterator<StorageMetadata>() {
+               private PageSet<? extends StorageMetadata> list;
                private Iterator<? extends StorageMetadata> iterator;
                private String marker;
 
                public StorageMetadata computeNext() {
                   while (true) {
                      if (iterator == null) {
-                        PageSet<? extends StorageMetadata> list;
-                        if (eager && marker == null) {
-                           list = firstList;
-                           marker = firstMarker;
+                        if (list == null) {
+                           list = eager ? firstList : blobStore.list(container, containerOptions);
                         } else {
-                           ListContainerOptions nextOptions = marker == null ? containerOptions : containerOptions.clone().afterMarker(marker);
-                           list = blobStore.list(container, nextOptions);
-                           marker = list.getNextMarker();
+                           list = blobStore.list(container, containerOptions.clone().afterMarker(marker));
                         }
                         iterator = list.iterator();
                      }
                      if (iterator.hasNext()) {
                         return iterator.next();
                      }
+                     // ask for the marker only once the page is exhausted, as a page may still be
+                     // streaming in while its first entries are returned
+                     marker = list.getNextMarker();
                      if (marker == null) {
                         return endOfData();
                      }
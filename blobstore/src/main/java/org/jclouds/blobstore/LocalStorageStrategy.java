@@ -22,10 +22,12 @@ import java.util.Collection;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.domain.Location;
+import org.jclouds.javax.annotation.Nullable;
 
 /**
  * Strategy for local operations related to container and blob
@@ -100,6 +102,18 @@ public interface LocalStorageStrategy {
      */
     Iterable<String> getBlobKeysInsideContainer(String container) throws IOException;
 
+    /**
+     * Returns the blob keys inside a container in ascending order, restricted to those starting
+     * with prefix and following marker
+     * @param container
+     * @param prefix keys must start with this, or null for all keys
+     * @param marker keys must sort after this, or null to start from the first key
+     * @return
+     * @throws IOException
+     */
+    Iterable<String> getBlobKeysInsideContainer(String container, @Nullable String prefix, @Nullable String marker)
+          throws IOException;
+
     /**
      * Load the blob with the given key belonging to the container with the given
      * name. There must exist a resource on the file system whose complete name
@@ -114,6 +128,19 @@ public interface LocalStorageStrategy {
      */
     Blob getBlob(String containerName, String blobName);
 
+    /**
+     * Load the metadata of the blob with the given key without opening its payload
+     *
+     * @param container
+     *           it's the name of the container the blob belongs to
+     * @param key
+     *           it's the key of the blob
+     *
+     * @return the metadata of the blob, or null if it does not exist
+     */
+    @Nullable
+    MutableBlobMetadata getBlobMetadata(String container, String key);
+
     /**
      * Write a {@link Blob} into a file
      * @param container
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_TRANSIENT_EVICTION;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_TRANSIENT_OFFHEAP_CAPACITY;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.Blob.Factory;
+import org.jclouds.date.DateService;
+import org.jclouds.domain.Location;
+import org.jclouds.io.ContentMetadataCodec;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteSource;
+
+/**
+ * Keeps blob payloads in direct buffers outside the heap, and only their metadata on the heap, so
+ * that a large transient store adds little to garbage collection. The payloads together may take at
+ * most {@link org.jclouds.blobstore.reference.BlobStoreConstants#PROPERTY_TRANSIENT_OFFHEAP_CAPACITY}
+ * bytes, which must also fit in the JVM's direct memory limit ({@code -XX:MaxDirectMemorySize}).
+ * <p>
+ * The buffers of a removed blob are not reused, so that streams which are still reading it are not
+ * affected; the JVM frees them once they are no longer reachable.
+ */
+public class OffHeapStorageStrategy extends TransientStorageStrategy {
+
+   /**
+    * What to do with a put which does not fit in the remaining capacity.
+    */
+   public enum Eviction {
+      /** fail the put */
+      NONE,
+      /** remove the blobs which were read least recently */
+      LRU,
+      /** remove the blobs which were written first */
+      FIFO;
+   }
+
+   static final int CHUNK_SIZE = 1024 * 1024;
+
+   /**
+    * A direct buffer per thread into which puts read their payloads, so that a put neither copies
+    * through the heap nor reserves a whole chunk for a small blob.
+    */
+   private static final ThreadLocal<ByteBuffer> STAGING = new ThreadLocal<ByteBuffer>() {
+      @Override
+      protected ByteBuffer initialValue() {
+         return ByteBuffer.allocateDirect(CHUNK_SIZE);
+      }
+   };
+
+   private final long capacity;
+   private final Eviction eviction;
+   // guarded by this; eldest first, in access order for LRU
+   private final Map<ByteSource, Boolean> stored;
+   // guarded by this; includes the payloads of puts in progress
+   private long used;
+
+   @Inject
+   OffHeapStorageStrategy(Supplier<Location> defaultLocation, DateService dateService, Factory blobFactory,
+         ContentMetadataCodec contentMetadataCodec, @Named(PROPERTY_TRANSIENT_OFFHEAP_CAPACITY) long capacity,
+         @Named(PROPERTY_TRANSIENT_EVICTION) String eviction) {
+      super(defaultLocation, dateService, blobFactory, contentMetadataCodec);
+      checkArgument(capacity > 0, "capacity must be positive");
+      this.capacity = capacity;
+      this.eviction = Eviction.valueOf(eviction.toUpperCase(Locale.ENGLISH));
+      this.stored = new LinkedHashMap<ByteSource, Boolean>(16, 0.75f, this.eviction == Eviction.LRU);
+   }
+
+   @Override
+   public Blob getBlob(String containerName, String blobName) {
+      Blob blob = super.getBlob(containerName, blobName);
+      if (blob != null && eviction == Eviction.LRU) {
+         synchronized (this) {
+            // moves the payload to the end of the eviction order
+            stored.get(blob.getPayload().getRawContent());
+         }
+      }
+      return blob;
+   }
+
+   @Override
+   protected ByteSource storePayload(String containerName, String blobName, InputStream input) throws IOException {
+      List<ByteBuffer> chunks = Lists.newArrayList();
+      ReadableByteChannel channel = Channels.newChannel(input);
+      ByteBuffer staging = STAGING.get();
+      long size = 0;
+      try {
+         boolean end = false;
+         while (!end) {
+            staging.clear();
+            while (staging.hasRemaining()) {
+               if (channel.read(staging) == -1) {
+                  end = true;
+                  break;
+               }
+            }
+            int read = staging.position();
+            if (read == 0)
+               break;
+            reserve(read);
+            size += read;
+            ByteBuffer chunk = ByteBuffer.allocateDirect(read);
+            staging.flip();
+            chunk.put(staging);
+            chunk.flip();
+            chunks.add(chunk);
+         }
+      } catch (IOException e) {
+         unreserve(size);
+         throw e;
+      } catch (RuntimeException e) {
+         unreserve(size);
+         throw e;
+      } catch (OutOfMemoryError e) {
+         unreserve(size);
+         throw new IOException("direct memory exhausted storing " + containerName + "/" + blobName, e);
+      }
+      OffHeapByteSource payload = new OffHeapByteSource(containerName, blobName, chunks, size);
+      synchronized (this) {
+         stored.put(payload, Boolean.TRUE);
+      }
+      return payload;
+   }
+
+   @Override
+   protected synchronized void releasePayload(ByteSource payload) {
+      if (stored.remove(payload) != null)
+         used -= ((OffHeapByteSource) payload).size;
+   }
+
+   /**
+    * Returns the number of payload bytes held, including those of puts in progress.
+    */
+   public synchronized long getUsed() {
+      return used;
+   }
+
+   private synchronized void reserve(long bytes) throws IOException {
+      if (used + bytes > capacity && eviction != Eviction.NONE) {
+         // choose before removing, since removal changes the eviction order
+         List<OffHeapByteSource> victims = Lists.newArrayList();
+         long freed = 0;
+         for (Iterator<ByteSource> it = stored.keySet().iterator(); it.hasNext() && used - freed + bytes > capacity;) {
+            OffHeapByteSource victim = (OffHeapByteSource) it.next();
+            victims.add(victim);
+            freed += victim.size;
+         }
+         for (OffHeapByteSource victim : victims) {
+            // fails for a payload whose put has not completed yet
+            removeBlob(victim.containerName, victim.blobName, victim);
+         }
+      }
+      if (used + bytes > capacity) {
+         throw new IOException(String.format("transient store is full: %d of %d bytes used, %d more requested",
+               used, capacity, bytes));
+      }
+      used += bytes;
+   }
+
+   private synchronized void unreserve(long bytes) {
+      used -= bytes;
+   }
+
+   private static final class OffHeapByteSource extends ByteSource {
+      private final String containerName;
+      private final String blobName;
+      private final List<ByteBuffer> chunks;
+      private final long size;
+
+      OffHeapByteSource(String containerName, String blobName, List<ByteBuffer> chunks, long size) {
+         this.containerName = containerName;
+         this.blobName = blobName;
+         this.chunks = ImmutableList.copyOf(chunks);
+         this.size = size;
+      }
+
+      @Override
+      public long size() {
+         return size;
+      }
+
+      @Override
+      public InputStream openStream() {
+         return new ChunksInputStream(chunks.iterator());
+      }
+   }
+
+   /**
+    * Reads a sequence of buffers through duplicates, so that concurrent readers do not interfere.
+    */
+   private static final class ChunksInputStream extends InputStream {
+      private final Iterator<ByteBuffer> chunks;
+      private ByteBuffer current = ByteBuffer.allocate(0);
+
+      ChunksInputStream(Iterator<ByteBuffer> chunks) {
+         this.chunks = chunks;
+      }
+
+      private boolean advance() {
+         while (!current.hasRemaining()) {
+            if (!chunks.hasNext())
+               return false;
+            current = chunks.next().duplicate();
+         }
+         return true;
+      }
+
+      @Override
+      public int read() {
+         return advance() ? current.get() & 0xff : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+         if (len == 0)
+            return 0;
+         if (!advance())
+            return -1;
+         int read = Math.min(len, current.remaining());
+         current.get(b, off, read);
+         return read;
+      }
+
+      @Override
+      public long skip(long n) {
+         long skipped = 0;
+         while (skipped < n && advance()) {
+            int step = (int) Math.min(n - skipped, current.remaining());
+            current.position(current.position() + step);
+            skipped += step;
+         }
+         return skipped;
+      }
+
+      @Override
+      public int available() {
+         return current.remaining();
+      }
+   }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.options.ListAllOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Lists a container by fetching pages on an executor ahead of the caller, as one chain of markers
+ * or, when listing in parallel, as one chain per prefix directly below the listed one.
+ * <p>
+ * Fetched entries are buffered until the caller takes them. Further pages are requested while the
+ * buffer holds less than the prefetched number of pages on top of those being consumed, so the next
+ * page is on its way while the caller takes the entries of the current one. An abandoned iterator
+ * therefore stops listing once its buffer is full.
+ */
+final class PrefetchingListIterator extends AbstractIterator<StorageMetadata> {
+
+   private static final int DEFAULT_PAGE_SIZE = 1000;
+   private static final String DEFAULT_DELIMITER = "/";
+   private static final Object PAGE_DONE = new Object();
+
+   private static final class PageRequest {
+      private final ListContainerOptions options;
+      private final boolean split;
+
+      PageRequest(ListContainerOptions options, boolean split) {
+         this.options = options;
+         this.split = split;
+      }
+   }
+
+   private final BlobStore blobStore;
+   private final String container;
+   private final ListeningExecutorService executor;
+   private final ListContainerOptions firstOptions;
+   private final boolean split;
+   private final int concurrency;
+   private final int maxBuffered;
+   @Nullable
+   private final PageSet<? extends StorageMetadata> firstPage;
+   private final BlockingQueue<Object> entries = new LinkedBlockingQueue<Object>();
+
+   // guarded by this
+   private final Deque<PageRequest> pending = new ArrayDeque<PageRequest>();
+   private int inFlight;
+   private boolean failed;
+   // set when pending pages wait for the caller to drain the buffer
+   private volatile boolean bufferFull;
+
+   // accessed only by the caller
+   private boolean started;
+
+   PrefetchingListIterator(BlobStore blobStore, String container, ListContainerOptions containerOptions,
+         ListAllOptions listAllOptions, @Nullable PageSet<? extends StorageMetadata> firstPage) {
+      this.blobStore = blobStore;
+      this.container = container;
+      this.executor = listAllOptions.getExecutor();
+      this.split = isSplit(containerOptions, listAllOptions);
+      this.firstOptions = firstOptions(containerOptions, listAllOptions);
+      this.concurrency = split ? listAllOptions.getParallel() : 1;
+      int pageSize = containerOptions.getMaxResults() != null ? containerOptions.getMaxResults() : DEFAULT_PAGE_SIZE;
+      this.maxBuffered = (listAllOptions.getPrefetch() + concurrency) * pageSize;
+      this.firstPage = firstPage;
+   }
+
+   /**
+    * Only recursive listings are split by prefix, as a single level is listed in one chain anyway.
+    */
+   private static boolean isSplit(ListContainerOptions containerOptions, ListAllOptions listAllOptions) {
+      return listAllOptions.getParallel() > 0 && containerOptions.isRecursive()
+            && containerOptions.getMarker() == null;
+   }
+
+   /**
+    * The options of the first page; when split by prefix, this lists the level below the prefix
+    * so that each common prefix found there can be scanned on its own.
+    */
+   static ListContainerOptions firstOptions(ListContainerOptions containerOptions, ListAllOptions listAllOptions) {
+      if (!isSplit(containerOptions, listAllOptions))
+         return containerOptions;
+      String delimiter = containerOptions.getDelimiter() != null ? containerOptions.getDelimiter()
+            : DEFAULT_DELIMITER;
+      ListContainerOptions options = new ListContainerOptions().delimiter(delimiter);
+      String prefix = prefix(containerOptions, delimiter);
+      if (prefix != null)
+         options.prefix(prefix);
+      return copyPaging(containerOptions, options);
+   }
+
+   /**
+    * A directory is listed as the prefix of its keys, so that its common prefixes can be found.
+    */
+   @Nullable
+   private static String prefix(ListContainerOptions containerOptions, String delimiter) {
+      String dir = containerOptions.getDir();
+      if (dir == null || dir.isEmpty())
+         return containerOptions.getPrefix();
+      return dir.endsWith(delimiter) ? dir : dir + delimiter;
+   }
+
+   private static ListContainerOptions scanOptions(ListContainerOptions containerOptions, String prefix) {
+      return copyPaging(containerOptions, new ListContainerOptions().prefix(prefix).recursive());
+   }
+
+   private static ListContainerOptions copyPaging(ListContainerOptions from, ListContainerOptions to) {
+      if (from.getMaxResults() != null)
+         to.maxResults(from.getMaxResults());
+      if (from.isDetailed())
+         to.withDetails();
+      return to;
+   }
+
+   @Override
+   protected StorageMetadata computeNext() {
+      if (!started) {
+         started = true;
+         if (firstPage != null) {
+            accept(firstPage, new PageRequest(firstOptions, split));
+         } else {
+            synchronized (this) {
+               pending.add(new PageRequest(firstOptions, split));
+            }
+         }
+         schedule();
+      }
+      while (true) {
+         Object next = entries.poll();
+         if (next == null) {
+            synchronized (this) {
+               schedule();
+               if (inFlight == 0 && pending.isEmpty()) {
+                  // nothing else can be added now
+                  next = entries.poll();
+                  if (next == null)
+                     return endOfData();
+               }
+            }
+            // each page in flight ends with PAGE_DONE, so this does not wait forever
+            if (next == null)
+               next = take();
+         }
+         if (next == PAGE_DONE)
+            continue;
+         if (next instanceof RuntimeException)
+            throw (RuntimeException) next;
+         if (bufferFull && entries.size() < maxBuffered)
+            schedule();
+         return (StorageMetadata) next;
+      }
+   }
+
+   private Object take() {
+      try {
+         return entries.take();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      }
+   }
+
+   /**
+    * Starts as many pending pages as the concurrency and buffer allow.
+    */
+   private synchronized void schedule() {
+      bufferFull = false;
+      while (!failed && inFlight < concurrency && !pending.isEmpty()) {
+         if (entries.size() >= maxBuffered) {
+            bufferFull = true;
+            return;
+         }
+         final PageRequest request = pending.poll();
+         inFlight++;
+         executor.execute(new Runnable() {
+            @Override
+            public void run() {
+               fetch(request);
+            }
+         });
+      }
+   }
+
+   private void fetch(PageRequest request) {
+      try {
+         accept(blobStore.list(container, request.options), request);
+      } catch (RuntimeException e) {
+         synchronized (this) {
+            failed = true;
+         }
+         entries.add(e);
+      } finally {
+         synchronized (this) {
+            inFlight--;
+            schedule();
+         }
+         entries.add(PAGE_DONE);
+      }
+   }
+
+   private void accept(PageSet<? extends StorageMetadata> page, PageRequest request) {
+      for (StorageMetadata md : page) {
+         if (request.split && md.getType() == StorageType.RELATIVE_PATH) {
+            synchronized (this) {
+               pending.addLast(new PageRequest(scanOptions(request.options, md.getName()), false));
+            }
+         } else {
+            entries.add(md);
+         }
+      }
+      // read once the page is exhausted, as a page may still be streaming in
+      String marker = page.getNextMarker();
+      if (marker != null) {
+         synchronized (this) {
+            // continue this chain before starting new ones
+            pending.addFirst(new PageRequest(request.options.clone().afterMarker(marker), request.split));
+         }
+      }
+   }
+}
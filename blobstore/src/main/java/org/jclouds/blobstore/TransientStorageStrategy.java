@@ -20,11 +20,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.io.BaseEncoding.base16;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.inject.Inject;
 
@@ -32,6 +36,7 @@ import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.Blob.Factory;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.MutableStorageMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
@@ -50,6 +55,7 @@ import org.jclouds.util.Closeables2;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimaps;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
@@ -59,7 +65,8 @@ import com.google.common.io.ByteStreams;
 import com.google.common.net.HttpHeaders;
 
 public class TransientStorageStrategy implements LocalStorageStrategy {
-   private final ConcurrentMap<String, ConcurrentMap<String, Blob>> containerToBlobs = new ConcurrentHashMap<String, ConcurrentMap<String, Blob>>();
+   // blobs are kept in key order so that a page of a listing can be found without sorting
+   private final ConcurrentMap<String, ConcurrentNavigableMap<String, Blob>> containerToBlobs = new ConcurrentHashMap<String, ConcurrentNavigableMap<String, Blob>>();
    private final ConcurrentMap<String, ConcurrentMap<String, BlobAccess>> containerToBlobAccess = new ConcurrentHashMap<String, ConcurrentMap<String, BlobAccess>>();
    private final ConcurrentMap<String, StorageMetadata> containerMetadata = new ConcurrentHashMap<String, StorageMetadata>();
    private final ConcurrentMap<String, ContainerAccess> containerAccessMap = new ConcurrentHashMap<String, ContainerAccess>();
@@ -89,8 +96,8 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
 
    @Override
    public boolean createContainerInLocation(String containerName, Location location, CreateContainerOptions options) {
-      ConcurrentMap<String, Blob> origValue = containerToBlobs.putIfAbsent(
-            containerName, new ConcurrentHashMap<String, Blob>());
+      ConcurrentNavigableMap<String, Blob> origValue = containerToBlobs.putIfAbsent(
+            containerName, new ConcurrentSkipListMap<String, Blob>());
       if (origValue != null) {
          return false;
       }
@@ -121,8 +128,13 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
 
    @Override
    public void deleteContainer(final String containerName) {
-      containerToBlobs.remove(containerName);
+      Map<String, Blob> blobs = containerToBlobs.remove(containerName);
       containerToBlobAccess.remove(containerName);
+      if (blobs != null) {
+         for (Blob blob : blobs.values()) {
+            releasePayload(payloadOf(blob));
+         }
+      }
    }
 
    @Override
@@ -133,7 +145,11 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
    @Override
    public void clearContainer(String containerName, ListContainerOptions options) {
       // TODO implement options
-      containerToBlobs.get(containerName).clear();
+      ConcurrentMap<String, Blob> blobs = containerToBlobs.get(containerName);
+      for (Map.Entry<String, Blob> entry : blobs.entrySet()) {
+         if (blobs.remove(entry.getKey(), entry.getValue()))
+            releasePayload(payloadOf(entry.getValue()));
+      }
    }
 
    @Override
@@ -152,6 +168,27 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
       return containerToBlobs.get(containerName).keySet();
    }
 
+   @Override
+   public Iterable<String> getBlobKeysInsideContainer(String containerName, String prefix, String marker) {
+      NavigableMap<String, Blob> blobs = containerToBlobs.get(containerName);
+      if (prefix != null) {
+         String end = prefix + Character.MAX_VALUE;
+         if (marker != null && marker.compareTo(end) >= 0)
+            return ImmutableSet.of();
+         blobs = blobs.subMap(prefix, true, end, false);
+      }
+      if (marker != null && (prefix == null || marker.compareTo(prefix) >= 0))
+         blobs = blobs.tailMap(marker, false);
+      return blobs.keySet();
+   }
+
+   @Override
+   public MutableBlobMetadata getBlobMetadata(String containerName, String blobName) {
+      Map<String, Blob> map = containerToBlobs.get(containerName);
+      Blob blob = map == null ? null : map.get(blobName);
+      return blob == null ? null : blob.getMetadata();
+   }
+
    @Override
    public Blob getBlob(final String containerName, final String blobName) {
       Map<String, Blob> map = containerToBlobs.get(containerName);
@@ -160,12 +197,18 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
 
    @Override
    public String putBlob(final String containerName, final Blob blob) throws IOException {
-      byte[] payload;
-      HashCode actualHashCode;
+      String blobName = blob.getMetadata().getName();
+      ByteSource payload;
       HashingInputStream input = new HashingInputStream(Hashing.md5(), blob.getPayload().openStream());
       try {
-         payload = ByteStreams.toByteArray(input);
-         long actualSize = payload.length;
+         payload = storePayload(containerName, blobName, input);
+      } finally {
+         Closeables2.closeQuietly(input);
+      }
+      long actualSize;
+      HashCode actualHashCode;
+      try {
+         actualSize = payload.size();
          Long expectedSize = blob.getMetadata().getContentMetadata().getContentLength();
          if (expectedSize != null && actualSize != expectedSize) {
             throw new IOException("Content-Length mismatch, actual: " + actualSize +
@@ -177,14 +220,16 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
             throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
                   " expected: " + expectedHashCode);
          }
-      } finally {
-         Closeables2.closeQuietly(input);
+      } catch (IOException e) {
+         releasePayload(payload);
+         throw e;
       }
 
-      Blob newBlob = createUpdatedCopyOfBlobInContainer(containerName, blob, payload, actualHashCode);
+      Blob newBlob = createUpdatedCopyOfBlobInContainer(containerName, blob, payload, actualSize, actualHashCode);
       Map<String, Blob> map = containerToBlobs.get(containerName);
-      String blobName = newBlob.getMetadata().getName();
-      map.put(blobName, newBlob);
+      Blob previous = map.put(blobName, newBlob);
+      if (previous != null)
+         releasePayload(payloadOf(previous));
       containerToBlobAccess.get(containerName).put(blobName, BlobAccess.PRIVATE);
       return base16().lowerCase().encode(actualHashCode.asBytes());
    }
@@ -192,8 +237,42 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
    @Override
    public void removeBlob(final String containerName, final String blobName) {
       Map<String, Blob> map = containerToBlobs.get(containerName);
-      if (map != null)
-         map.remove(blobName);
+      Blob blob = map == null ? null : map.remove(blobName);
+      if (blob != null)
+         releasePayload(payloadOf(blob));
+   }
+
+   /**
+    * Reads a payload, which has not been checked yet, into the storage of this strategy. Payloads
+    * are kept in heap arrays unless a subclass overrides this method.
+    */
+   protected ByteSource storePayload(String containerName, String blobName, InputStream input) throws IOException {
+      return ByteSource.wrap(ByteStreams.toByteArray(input));
+   }
+
+   /**
+    * Called once the store no longer refers to a payload returned by
+    * {@link #storePayload(String, String, InputStream)}, because its blob was replaced or removed or
+    * its put failed.
+    */
+   protected void releasePayload(ByteSource payload) {
+   }
+
+   /**
+    * Removes a blob only if it still has the given payload, so that a subclass reclaiming storage
+    * does not remove a blob which has been replaced in the meantime.
+    */
+   protected boolean removeBlob(String containerName, String blobName, ByteSource payload) {
+      ConcurrentMap<String, Blob> map = containerToBlobs.get(containerName);
+      Blob blob = map == null ? null : map.get(blobName);
+      if (blob == null || payloadOf(blob) != payload || !map.remove(blobName, blob))
+         return false;
+      releasePayload(payload);
+      return true;
+   }
+
+   private static ByteSource payloadOf(Blob blob) {
+      return (ByteSource) blob.getPayload().getRawContent();
    }
 
    @Override
@@ -228,21 +307,22 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
       return "/";
    }
 
-   private Blob createUpdatedCopyOfBlobInContainer(String containerName, Blob in, byte[] input, HashCode contentMd5) {
+   private Blob createUpdatedCopyOfBlobInContainer(String containerName, Blob in, ByteSource input, long size,
+         HashCode contentMd5) {
       checkNotNull(containerName, "containerName");
       checkNotNull(in, "blob");
       checkNotNull(input, "input");
       checkNotNull(contentMd5, "contentMd5");
-      Payload payload = Payloads.newByteSourcePayload(ByteSource.wrap(input));
+      Payload payload = Payloads.newByteSourcePayload(input);
       MutableContentMetadata oldMd = in.getPayload().getContentMetadata();
       HttpUtils.copy(oldMd, payload.getContentMetadata());
       payload.getContentMetadata().setContentMD5(contentMd5);
-      payload.getContentMetadata().setContentLength((long) input.length);
+      payload.getContentMetadata().setContentLength(size);
       Blob blob = blobFactory.create(BlobStoreUtils.copy(in.getMetadata()));
       blob.setPayload(payload);
       blob.getMetadata().setContainer(containerName);
       blob.getMetadata().setLastModified(new Date());
-      blob.getMetadata().setSize((long) input.length);
+      blob.getMetadata().setSize(size);
       String eTag = base16().lowerCase().encode(contentMd5.asBytes());
       blob.getMetadata().setETag(eTag);
       // Set HTTP headers to match metadata
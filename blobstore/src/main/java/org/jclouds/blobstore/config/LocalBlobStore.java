@@ -17,14 +17,10 @@
 package org.jclouds.blobstore.config;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.getCausalChain;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterables.size;
-import static com.google.common.collect.Iterables.transform;
-import static com.google.common.collect.Iterables.tryFind;
-import static com.google.common.collect.Sets.filter;
-import static com.google.common.collect.Sets.newTreeSet;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 
 import java.io.File;
@@ -34,14 +30,15 @@ import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
 import java.util.UUID;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.jclouds.blobstore.BlobStore;
@@ -69,6 +66,7 @@ import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.strategy.internal.MultipartDownloader;
 import org.jclouds.blobstore.util.BlobStoreUtils;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
@@ -86,8 +84,6 @@ import org.jclouds.logging.Logger;
 import org.jclouds.util.Closeables2;
 
 import com.google.common.base.Function;
-import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
@@ -95,8 +91,11 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
 import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 @Singleton
 public final class LocalBlobStore implements BlobStore {
@@ -111,19 +110,22 @@ public final class LocalBlobStore implements BlobStore {
    private final ContentMetadataCodec contentMetadataCodec;
    private final Blob.Factory blobFactory;
    private final LocalStorageStrategy storageStrategy;
+   private final ListeningExecutorService userExecutor;
 
    @Inject
    LocalBlobStore(BlobStoreContext context,
          BlobUtils blobUtils,
          @Memoized Supplier<Set<? extends Location>> locations,
          ContentMetadataCodec contentMetadataCodec,
-         Blob.Factory blobFactory, LocalStorageStrategy storageStrategy) {
+         Blob.Factory blobFactory, LocalStorageStrategy storageStrategy,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
       this.context = checkNotNull(context, "context");
       this.blobUtils = checkNotNull(blobUtils, "blobUtils");
       this.locations = checkNotNull(locations, "locations");
       this.blobFactory = blobFactory;
       this.contentMetadataCodec = contentMetadataCodec;
       this.storageStrategy = storageStrategy;
+      this.userExecutor = userExecutor;
    }
 
    @Override
@@ -228,153 +230,103 @@ public final class LocalBlobStore implements BlobStore {
       if (!storageStrategy.containerExists(containerName))
          throw cnfe(containerName);
 
-      // Loading blobs from container
-      Iterable<String> blobBelongingToContainer = null;
-      try {
-         blobBelongingToContainer = storageStrategy.getBlobKeysInsideContainer(containerName);
-      } catch (IOException e) {
-         logger.error(e, "An error occurred loading blobs contained into container %s", containerName);
-         propagate(e);
-      }
-
-      blobBelongingToContainer = Iterables.filter(blobBelongingToContainer,
-            new Predicate<String>() {
-               @Override
-               public boolean apply(String key) {
-                  // ignore folders
-                  return storageStrategy.blobExists(containerName, key);
-               }
-            });
-      SortedSet<StorageMetadata> contents = newTreeSet(FluentIterable.from(blobBelongingToContainer)
-            .transform(new Function<String, StorageMetadata>() {
-               @Override
-               public StorageMetadata apply(String key) {
-                  Blob oldBlob = loadBlob(containerName, key);
-                  if (oldBlob == null) {
-                     return null;
-                  }
-                  checkState(oldBlob.getMetadata() != null, "blob " + containerName + "/" + key + " has no metadata");
-                  MutableBlobMetadata md = BlobStoreUtils.copy(oldBlob.getMetadata());
-                  md.setSize(oldBlob.getMetadata().getSize());
-                  return md;
-               }
-            })
-            .filter(Predicates.<StorageMetadata>notNull()));
-
+      String prefix = null;
+      String delimiter = null;
+      boolean inDirectory = options.getDir() != null && !options.getDir().isEmpty();
+      if (inDirectory) {
+         prefix = options.getDir().endsWith("/") ? options.getDir() : options.getDir() + "/";
+         if (!options.isRecursive())
+            delimiter = storageStrategy.getSeparator();
+      } else if (options.getPrefix() != null) {
+         prefix = options.getPrefix();
+         delimiter = options.getDelimiter();
+      } else if (!options.isRecursive() || (options.getDelimiter() != null)) {
+         delimiter = options.getDelimiter() == null ? storageStrategy.getSeparator() : options.getDelimiter();
+      }
+
+      // a marker naming a common prefix continues after the keys below it
+      String start = options.getMarker();
+      if (start != null && delimiter != null && start.endsWith(delimiter))
+         start = afterKeysStartingWith(start);
+
+      int maxResults = options.getMaxResults() != null ? options.getMaxResults() : 1000;
+      List<StorageMetadata> contents = Lists.newArrayList();
       String marker = null;
-      if (options != null) {
-         if (options.getDir() != null && !options.getDir().isEmpty()) {
-            contents = filterDirectory(contents, options);
-         } else if (options.getPrefix() != null) {
-            contents = filterPrefix(contents, options);
-         } else if (!options.isRecursive() || (options.getDelimiter() != null)) {
-            String delimiter = options.getDelimiter() == null ? storageStrategy.getSeparator() : options.getDelimiter();
-            contents = extractCommonPrefixes(contents, delimiter, null);
-         }
-
-         if (options.getMarker() != null) {
-            final String finalMarker = options.getMarker();
-            String delimiter = storageStrategy.getSeparator();
-            Optional<StorageMetadata> lastMarkerMetadata;
-            if (finalMarker.endsWith(delimiter)) {
-               lastMarkerMetadata = tryFind(contents, new Predicate<StorageMetadata>() {
-                  public boolean apply(StorageMetadata metadata) {
-                     int length = finalMarker.length() - 1;
-                     return metadata.getName().substring(0, length).compareTo(finalMarker.substring(0, length)) > 0;
-                  }
-               });
-            } else {
-               lastMarkerMetadata = tryFind(contents, new Predicate<StorageMetadata>() {
-                  public boolean apply(StorageMetadata metadata) {
-                     return metadata.getName().compareTo(finalMarker) > 0;
-                  }
-               });
-            }
-            if (lastMarkerMetadata.isPresent()) {
-               contents = contents.tailSet(lastMarkerMetadata.get());
-            } else {
-               // marker is after last key or container is empty
-               contents.clear();
-            }
+      // keys are visited in order, skipping over each common prefix as a whole, so a page costs a
+      // seek and its own entries rather than a pass over the container
+      Iterator<String> keys = maxResults == 0 ? Iterators.<String>emptyIterator() : keys(containerName, prefix,
+            start);
+      while (keys.hasNext()) {
+         String key = keys.next();
+         // ignore folders
+         if (inDirectory && key.equals(prefix) || !storageStrategy.blobExists(containerName, key))
+            continue;
+         String commonPrefix = commonPrefix(key, prefix, delimiter);
+         StorageMetadata md;
+         if (commonPrefix != null) {
+            MutableStorageMetadata relativePath = new MutableStorageMetadataImpl();
+            relativePath.setType(StorageType.RELATIVE_PATH);
+            relativePath.setName(commonPrefix);
+            md = relativePath;
+            keys = keys(containerName, prefix, afterKeysStartingWith(commonPrefix));
+         } else {
+            md = loadMetadata(containerName, key);
+            if (md == null)
+               continue;
          }
-
-         int maxResults = options.getMaxResults() != null ? options.getMaxResults() : 1000;
-         if (!contents.isEmpty()) {
-            StorageMetadata lastElement = contents.last();
-            contents = newTreeSet(Iterables.limit(contents, maxResults));
-            if (maxResults != 0 && !contents.contains(lastElement)) {
-               // Partial listing
-               lastElement = contents.last();
-               marker = lastElement.getName();
-            }
+         if (contents.size() == maxResults) {
+            // Partial listing
+            marker = contents.get(contents.size() - 1).getName();
+            break;
          }
+         contents.add(md);
+      }
 
-         // trim metadata, if the response isn't supposed to be detailed.
-         if (!options.isDetailed()) {
-            for (StorageMetadata md : contents) {
-               md.getUserMetadata().clear();
-            }
+      // trim metadata, if the response isn't supposed to be detailed.
+      if (!options.isDetailed()) {
+         for (StorageMetadata md : contents) {
+            md.getUserMetadata().clear();
          }
       }
 
       return new PageSetImpl<StorageMetadata>(contents, marker);
    }
 
-   private SortedSet<StorageMetadata> filterDirectory(SortedSet<StorageMetadata> contents, ListContainerOptions
-           options) {
-      String prefix = options.getDir();
-      final String dirPrefix = prefix.endsWith("/") ?
-              prefix :
-              prefix + "/";
-      contents = newTreeSet(filter(contents, new Predicate<StorageMetadata>() {
-         public boolean apply(StorageMetadata o) {
-            return o != null
-                    && o.getName().replace(File.separatorChar, '/').startsWith(dirPrefix)
-                    && !o.getName().replace(File.separatorChar, '/').equals(dirPrefix);
-         }
-      }));
-
-      if (!options.isRecursive()) {
-         return extractCommonPrefixes(contents, storageStrategy.getSeparator(), dirPrefix);
+   private Iterator<String> keys(String containerName, String prefix, String marker) {
+      try {
+         return storageStrategy.getBlobKeysInsideContainer(containerName, prefix, marker).iterator();
+      } catch (IOException e) {
+         logger.error(e, "An error occurred loading blobs contained into container %s", containerName);
+         throw propagate(e);
       }
-
-      return contents;
    }
 
-   private SortedSet<StorageMetadata> filterPrefix(SortedSet<StorageMetadata> contents, final ListContainerOptions
-                                                   options) {
-      contents = newTreeSet(filter(contents, new Predicate<StorageMetadata>() {
-         public boolean apply(StorageMetadata o) {
-            return o != null && o.getName().replace(File.separatorChar, '/').startsWith(options.getPrefix());
-         }
-      }));
-
-      if (options.getDelimiter() != null) {
-         return extractCommonPrefixes(contents, options.getDelimiter(), options.getPrefix());
-      }
-
-      return contents;
+   /**
+    * Returns a marker that sorts after every key starting with {@code prefix}.
+    */
+   private static String afterKeysStartingWith(String prefix) {
+      return prefix + Character.MAX_VALUE;
    }
 
-   private SortedSet<StorageMetadata> extractCommonPrefixes(SortedSet<StorageMetadata> contents, String delimiter,
-                                                            String prefix) {
-      SortedSet<String> commonPrefixes = newTreeSet(
-              transform(contents, new CommonPrefixes(prefix, delimiter)));
-      commonPrefixes.remove(CommonPrefixes.NO_PREFIX);
-
-      contents = newTreeSet(filter(contents, new DelimiterFilter(prefix, delimiter)));
-
-      for (String o : commonPrefixes) {
-         MutableStorageMetadata md = new MutableStorageMetadataImpl();
-         md.setType(StorageType.RELATIVE_PATH);
+   /**
+    * Returns the prefix of {@code key} up to and including the first delimiter after
+    * {@code prefix}, or null if there is none.
+    */
+   private static String commonPrefix(String key, String prefix, String delimiter) {
+      if (delimiter == null)
+         return null;
+      int start = prefix == null ? 0 : prefix.length();
+      int index = key.indexOf(delimiter, start);
+      return index == -1 ? null : key.substring(0, index) + delimiter;
+   }
 
-         if (prefix != null) {
-            o = prefix + o;
-         }
-         md.setName(o + delimiter);
-         contents.add(md);
-      }
-      return contents;
+   private MutableBlobMetadata loadMetadata(String containerName, String key) {
+      MutableBlobMetadata metadata = storageStrategy.getBlobMetadata(containerName, key);
+      if (metadata == null)
+         return null;
+      MutableBlobMetadata md = BlobStoreUtils.copy(metadata);
+      md.setSize(metadata.getSize());
+      return md;
    }
 
    private ContainerNotFoundException cnfe(final String name) {
@@ -413,7 +365,7 @@ public final class LocalBlobStore implements BlobStore {
       boolean returnVal = true;
       if (storageStrategy.containerExists(containerName)) {
          try {
-            if (Iterables.isEmpty(storageStrategy.getBlobKeysInsideContainer(containerName)))
+            if (Iterables.isEmpty(storageStrategy.getBlobKeysInsideContainer(containerName, null, null)))
                storageStrategy.deleteContainer(containerName);
             else
                returnVal = false;
@@ -467,60 +419,6 @@ public final class LocalBlobStore implements BlobStore {
       return storageStrategy.getBlob(container, key);
    }
 
-   private static class DelimiterFilter implements Predicate<StorageMetadata> {
-      private final String prefix;
-      private final String delimiter;
-
-      public DelimiterFilter(String prefix, String delimiter) {
-         this.prefix = prefix;
-         this.delimiter = delimiter;
-      }
-
-      public boolean apply(StorageMetadata metadata) {
-         String name = metadata.getName();
-         if (prefix == null || prefix.isEmpty()) {
-            return name.indexOf(delimiter) == -1;
-         }
-         if (name.startsWith(prefix)) {
-            String unprefixedName = name.substring(prefix.length());
-            if (unprefixedName.equals("")) {
-               // a blob that matches the prefix should also be returned
-               return true;
-            }
-            return unprefixedName.indexOf(delimiter) == -1;
-         }
-         return false;
-      }
-   }
-
-   private static class CommonPrefixes implements Function<StorageMetadata, String> {
-      private final String prefix;
-      private final String delimiter;
-      public static final String NO_PREFIX = "NO_PREFIX";
-
-      public CommonPrefixes(String prefix, String delimiter) {
-         this.prefix = prefix;
-         this.delimiter = delimiter;
-      }
-
-      public String apply(StorageMetadata metadata) {
-         String working = metadata.getName();
-         if (prefix != null) {
-            if (working.startsWith(prefix)) {
-               working = working.substring(prefix.length());
-            } else {
-               return NO_PREFIX;
-            }
-         }
-         if (working.indexOf(delimiter) >= 0) {
-            // include the delimiter in the result
-            return working.substring(0, working.indexOf(delimiter));
-         } else {
-            return NO_PREFIX;
-         }
-      }
-   }
-
    private static HttpResponseException returnResponseException(int code) {
       HttpResponse response = HttpResponse.builder().statusCode(code).build();
       return new HttpResponseException(new HttpCommand(HttpRequest.builder().method("GET").endpoint("http://stub")
@@ -563,10 +461,15 @@ public final class LocalBlobStore implements BlobStore {
 
       InputStream is = null;
       try {
-         is = blob.getPayload().openStream();
          ContentMetadata metadata = blob.getMetadata().getContentMetadata();
-         BlobBuilder.PayloadBlobBuilder builder = blobBuilder(toName)
-               .payload(is);
+         BlobBuilder.PayloadBlobBuilder builder;
+         if (blob.getPayload().getRawContent() instanceof File) {
+            // lets the storage strategy copy the file without reading it
+            builder = blobBuilder(toName).payload((File) blob.getPayload().getRawContent());
+         } else {
+            is = blob.getPayload().openStream();
+            builder = blobBuilder(toName).payload(is);
+         }
          Long contentLength = metadata.getContentLength();
          if (contentLength != null) {
             builder.contentLength(contentLength);
@@ -681,13 +584,17 @@ public final class LocalBlobStore implements BlobStore {
 
             // Try to convert payload to ByteSource, otherwise wrap it.
             ByteSource byteSource;
-            try {
-               byteSource = (ByteSource) blob.getPayload().getRawContent();
-            } catch (ClassCastException cce) {
+            if (blob.getPayload().getRawContent() instanceof File) {
+               byteSource = Files.asByteSource((File) blob.getPayload().getRawContent());
+            } else {
                try {
-                  byteSource = ByteSource.wrap(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()));
-               } catch (IOException e) {
-                  throw new RuntimeException(e);
+                  byteSource = (ByteSource) blob.getPayload().getRawContent();
+               } catch (ClassCastException cce) {
+                  try {
+                     byteSource = ByteSource.wrap(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()));
+                  } catch (IOException e) {
+                     throw new RuntimeException(e);
+                  }
                }
             }
 
@@ -942,6 +849,16 @@ public final class LocalBlobStore implements BlobStore {
       return Integer.MAX_VALUE;
    }
 
+   @Override
+   public void downloadBlob(String container, String name, File destination) {
+      downloadBlob(container, name, destination, userExecutor);
+   }
+
+   @Override
+   public void downloadBlob(String container, String name, File destination, ListeningExecutorService executor) {
+      new MultipartDownloader(this, executor).download(container, name, destination);
+   }
+
    private static String maybeQuoteETag(String eTag) {
       if (!eTag.startsWith("\"") && !eTag.endsWith("\"")) {
          eTag = "\"" + eTag + "\"";
@@ -16,14 +16,22 @@
  */
 package org.jclouds.blobstore.config;
 
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_TRANSIENT_OFFHEAP_CAPACITY;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
 import org.jclouds.blobstore.BlobRequestSigner;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.LocalBlobRequestSigner;
 import org.jclouds.blobstore.LocalStorageStrategy;
+import org.jclouds.blobstore.OffHeapStorageStrategy;
 import org.jclouds.blobstore.TransientStorageStrategy;
 import org.jclouds.blobstore.attr.ConsistencyModel;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Injector;
+import com.google.inject.Provides;
 
 public class TransientBlobStoreContextModule extends AbstractModule {
    @Override
@@ -31,8 +39,14 @@ public class TransientBlobStoreContextModule extends AbstractModule {
       install(new BlobStoreObjectModule());
       bind(BlobStore.class).to(LocalBlobStore.class);
       bind(ConsistencyModel.class).toInstance(ConsistencyModel.STRICT);
-      bind(LocalStorageStrategy.class).to(TransientStorageStrategy.class);
       bind(BlobRequestSigner.class).to(LocalBlobRequestSigner.class);
    }
 
+   @Provides
+   @Singleton
+   protected LocalStorageStrategy provideStorageStrategy(@Named(PROPERTY_TRANSIENT_OFFHEAP_CAPACITY) long capacity,
+         Injector injector) {
+      return injector.getInstance(capacity > 0 ? OffHeapStorageStrategy.class : TransientStorageStrategy.class);
+   }
+
 }
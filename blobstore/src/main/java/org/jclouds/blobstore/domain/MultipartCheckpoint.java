@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.domain;
+
+import java.util.List;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The persisted state of a resumable multipart upload: its id, a fingerprint of the payload it was
+ * started for, and the parts known to have been uploaded.
+ */
+@AutoValue
+public abstract class MultipartCheckpoint {
+   public abstract String uploadId();
+   public abstract String fingerprint();
+   public abstract List<MultipartPart> parts();
+
+   public static MultipartCheckpoint create(String uploadId, String fingerprint, List<MultipartPart> parts) {
+      return new AutoValue_MultipartCheckpoint(uploadId, fingerprint, ImmutableList.copyOf(parts));
+   }
+}
@@ -16,19 +16,26 @@
  */
 package org.jclouds.blobstore.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MPU_PARTS_BUFFERS;
 import static org.jclouds.util.Predicates2.retry;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -39,13 +46,20 @@ import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartCheckpoint;
 import org.jclouds.blobstore.domain.MultipartPart;
 import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
 import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.strategy.MultipartCheckpointStore;
+import org.jclouds.blobstore.strategy.internal.MultipartDownloader;
 import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
@@ -57,13 +71,20 @@ import org.jclouds.http.HttpResponseException;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
 import org.jclouds.io.PayloadSlicer;
+import org.jclouds.io.payloads.ByteSourcePayload;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.util.Closeables2;
 
 import com.google.common.annotations.Beta;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
+import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -269,26 +290,7 @@ public abstract class BaseBlobStore implements BlobStore {
          throw new KeyNotFoundException(fromContainer, fromName, "while copying");
       }
 
-      String eTag = blob.getMetadata().getETag();
-      if (eTag != null) {
-         eTag = maybeQuoteETag(eTag);
-         if (options.ifMatch() != null && !maybeQuoteETag(options.ifMatch()).equals(eTag)) {
-            throw returnResponseException(412);
-         }
-         if (options.ifNoneMatch() != null && maybeQuoteETag(options.ifNoneMatch()).equals(eTag)) {
-            throw returnResponseException(412);
-         }
-      }
-
-      Date lastModified = blob.getMetadata().getLastModified();
-      if (lastModified != null) {
-         if (options.ifModifiedSince() != null && lastModified.compareTo(options.ifModifiedSince()) <= 0) {
-            throw returnResponseException(412);
-         }
-         if (options.ifUnmodifiedSince() != null && lastModified.compareTo(options.ifUnmodifiedSince()) >= 0) {
-            throw returnResponseException(412);
-         }
-      }
+      checkCopyConditions(blob.getMetadata(), options);
 
       InputStream is = null;
       try {
@@ -326,6 +328,144 @@ public abstract class BaseBlobStore implements BlobStore {
       }
    }
 
+   /**
+    * Copy using the jclouds userExecutor
+    *
+    * @see #copyMultipartBlob(String, String, BlobMetadata, String, String, CopyOptions, ListeningExecutorService)
+    */
+   @Beta
+   protected String copyMultipartBlob(String fromContainer, String fromName, BlobMetadata source, String toContainer,
+         String toName, CopyOptions options) {
+      return copyMultipartBlob(fromContainer, fromName, source, toContainer, toName, options, userExecutor);
+   }
+
+   /**
+    * Copies a blob as a multipart upload whose parts are copied in parallel, for blobs larger
+    * than the provider copies in one request. Parts are planned by
+    * {@link MultipartUploadSlicingAlgorithm} and copied with {@link #copyMultipartPart}.
+    *
+    * @param source
+    *           metadata of the blob to copy, including its content length
+    * @return the multipart blob etag
+    */
+   @Beta
+   protected String copyMultipartBlob(String fromContainer, String fromName, BlobMetadata source, String toContainer,
+         String toName, CopyOptions options, ListeningExecutorService executor) {
+      Long contentLength = source.getContentMetadata().getContentLength();
+      checkArgument(contentLength != null && contentLength > 0, "multipart copies need a non-empty source");
+      checkCopyConditions(source, options);
+
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl(source);
+      metadata.setName(toName);
+      metadata.setContainer(toContainer);
+      ContentMetadata contentMetadata = options.contentMetadata();
+      if (contentMetadata != null) {
+         metadata.getContentMetadata().setCacheControl(contentMetadata.getCacheControl());
+         metadata.getContentMetadata().setContentDisposition(contentMetadata.getContentDisposition());
+         metadata.getContentMetadata().setContentEncoding(contentMetadata.getContentEncoding());
+         metadata.getContentMetadata().setContentLanguage(contentMetadata.getContentLanguage());
+         metadata.getContentMetadata().setContentType(contentMetadata.getContentType());
+      }
+      if (options.userMetadata() != null) {
+         metadata.setUserMetadata(options.userMetadata());
+      }
+      // the parts, not the source, determine the content of the copy
+      metadata.getContentMetadata().setContentMD5((HashCode) null);
+
+      ArrayList<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
+      MultipartUpload mpu = initiateMultipartUpload(toContainer, metadata, new PutOptions());
+      try {
+         MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(
+               getMinimumMultipartPartSize(), getMaximumMultipartPartSize(), getMaximumNumberOfParts());
+         long partSize = algorithm.calculateChunkSize(contentLength);
+         int partNumber = 1;
+         for (long offset = 0; offset < contentLength; offset += partSize) {
+            parts.add(executor.submit(new PartCopier(mpu, partNumber++, fromContainer, fromName, source.getETag(),
+                  offset, Math.min(partSize, contentLength - offset))));
+         }
+         return completeMultipartUpload(mpu, Futures.getUnchecked(Futures.allAsList(parts)));
+      } catch (RuntimeException re) {
+         for (ListenableFuture<MultipartPart> part : parts) {
+            part.cancel(true);
+         }
+         abortMultipartUpload(mpu);
+         throw re;
+      }
+   }
+
+   /**
+    * Copies a range of a blob into a part of a multipart upload. This implementation downloads
+    * the range and uploads it again; providers override it with their server-side part copy.
+    *
+    * @param sourceETag
+    *           if not null, the part is only copied while the source blob has this ETag
+    */
+   @Beta
+   protected MultipartPart copyMultipartPart(MultipartUpload mpu, int partNumber, String fromContainer,
+         String fromName, @Nullable String sourceETag, long offset, long length) {
+      GetOptions options = GetOptions.Builder.range(offset, offset + length - 1);
+      if (sourceETag != null) {
+         options.ifETagMatches(sourceETag);
+      }
+      Blob blob = getBlob(fromContainer, fromName, options);
+      if (blob == null) {
+         throw new KeyNotFoundException(fromContainer, fromName, "while copying");
+      }
+      Long contentLength = blob.getPayload().getContentMetadata().getContentLength();
+      checkState(contentLength != null && contentLength == length, "expected %s bytes at offset %s of %s/%s, got %s",
+            length, offset, fromContainer, fromName, contentLength);
+      return uploadMultipartPart(mpu, partNumber, blob.getPayload());
+   }
+
+   private final class PartCopier implements Callable<MultipartPart> {
+      private final MultipartUpload mpu;
+      private final int partNumber;
+      private final String fromContainer;
+      private final String fromName;
+      private final String sourceETag;
+      private final long offset;
+      private final long length;
+
+      PartCopier(MultipartUpload mpu, int partNumber, String fromContainer, String fromName, String sourceETag,
+            long offset, long length) {
+         this.mpu = mpu;
+         this.partNumber = partNumber;
+         this.fromContainer = fromContainer;
+         this.fromName = fromName;
+         this.sourceETag = sourceETag;
+         this.offset = offset;
+         this.length = length;
+      }
+
+      @Override
+      public MultipartPart call() {
+         return copyMultipartPart(mpu, partNumber, fromContainer, fromName, sourceETag, offset, length);
+      }
+   }
+
+   private static void checkCopyConditions(BlobMetadata metadata, CopyOptions options) {
+      String eTag = metadata.getETag();
+      if (eTag != null) {
+         eTag = maybeQuoteETag(eTag);
+         if (options.ifMatch() != null && !maybeQuoteETag(options.ifMatch()).equals(eTag)) {
+            throw returnResponseException(412);
+         }
+         if (options.ifNoneMatch() != null && maybeQuoteETag(options.ifNoneMatch()).equals(eTag)) {
+            throw returnResponseException(412);
+         }
+      }
+
+      Date lastModified = metadata.getLastModified();
+      if (lastModified != null) {
+         if (options.ifModifiedSince() != null && lastModified.compareTo(options.ifModifiedSince()) <= 0) {
+            throw returnResponseException(412);
+         }
+         if (options.ifUnmodifiedSince() != null && lastModified.compareTo(options.ifUnmodifiedSince()) >= 0) {
+            throw returnResponseException(412);
+         }
+      }
+   }
+
    @com.google.inject.Inject
    @Named(PROPERTY_USER_THREADS)
    @VisibleForTesting
@@ -348,8 +488,27 @@ public abstract class BaseBlobStore implements BlobStore {
       }
    }
 
+   /**
+    * Number of part buffers used by {@link #putMultipartBlobStreaming}, which is also the number
+    * of parts uploaded at once.
+    */
+   @com.google.inject.Inject(optional = true)
+   @Named(PROPERTY_MPU_PARTS_BUFFERS)
+   @VisibleForTesting
+   int partBuffers = 4;
+
+   @com.google.inject.Inject
+   @VisibleForTesting
+   MultipartCheckpointStore checkpoints;
+
    @Beta
    protected String putMultipartBlob(String container, Blob blob, PutOptions overrides, ListeningExecutorService executor) {
+      if (overrides.isResumable()) {
+         return putMultipartBlobResumable(container, blob, overrides, executor);
+      }
+      if (blob.getMetadata().getContentMetadata().getContentLength() == null || !blob.getPayload().isRepeatable()) {
+         return putMultipartBlobStreaming(container, blob, overrides, executor);
+      }
       ArrayList<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
       MultipartUpload mpu = initiateMultipartUpload(container, blob.getMetadata(), overrides);
       try {
@@ -370,6 +529,253 @@ public abstract class BaseBlobStore implements BlobStore {
       }
    }
 
+   /**
+    * Uploads a repeatable payload in parts, recording each part with the
+    * {@link MultipartCheckpointStore} as it completes. Uploading the same payload to the same blob
+    * again resumes the recorded upload, sending only the parts the provider does not have yet. A
+    * failed upload is left in place to be resumed rather than aborted.
+    * <p>
+    * The payload must be a {@link File} or carry its Content-MD5, so that a resumed upload can tell
+    * it is sending the same content.
+    */
+   @Beta
+   protected String putMultipartBlobResumable(String container, Blob blob, PutOptions overrides,
+         ListeningExecutorService executor) {
+      String name = blob.getMetadata().getName();
+      Long contentLength = blob.getMetadata().getContentMetadata().getContentLength();
+      checkArgument(contentLength != null && blob.getPayload().isRepeatable(),
+            "resumable uploads need a repeatable payload of known length");
+      checkArgument(blob.getPayload().getRawContent() instanceof File
+            || blob.getMetadata().getContentMetadata().getContentMD5AsHashCode() != null,
+            "resumable uploads need a file payload or a Content-MD5 to recognise the payload when resuming");
+      MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(
+            getMinimumMultipartPartSize(), getMaximumMultipartPartSize(), getMaximumNumberOfParts());
+      long partSize = algorithm.calculateChunkSize(contentLength);
+      String fingerprint = fingerprint(blob, partSize);
+
+      MultipartUpload mpu = null;
+      Map<Integer, MultipartPart> uploaded = null;
+      MultipartCheckpoint checkpoint = checkpoints.get(container, name);
+      if (checkpoint != null) {
+         MultipartUpload previous = MultipartUpload.create(container, name, checkpoint.uploadId(),
+               blob.getMetadata(), overrides);
+         if (checkpoint.fingerprint().equals(fingerprint)) {
+            uploaded = uploadedParts(previous, checkpoint);
+            if (uploaded != null)
+               mpu = previous;
+         } else {
+            // a different payload; its parts are of no use
+            try {
+               abortMultipartUpload(previous);
+            } catch (RuntimeException ignored) {
+            }
+         }
+      }
+      if (mpu == null) {
+         mpu = initiateMultipartUpload(container, blob.getMetadata(), overrides);
+         checkpoints.start(container, name, mpu.id(), fingerprint);
+         uploaded = Maps.newHashMap();
+      }
+
+      ArrayList<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
+      int partNumber = 1;
+      for (Payload payload : slicer.slice(blob.getPayload(), partSize)) {
+         MultipartPart part = uploaded.get(partNumber);
+         if (part != null && part.partSize() == payload.getContentMetadata().getContentLength()) {
+            parts.add(Futures.immediateFuture(part));
+         } else {
+            parts.add(executor.submit(new CheckpointedBlobUploader(mpu, partNumber, payload)));
+         }
+         partNumber++;
+      }
+      String eTag = completeMultipartUpload(mpu, Futures.getUnchecked(Futures.allAsList(parts)));
+      checkpoints.remove(container, name);
+      return eTag;
+   }
+
+   /**
+    * Returns the parts of an upload that need not be sent again, or null if the provider no longer
+    * has the upload. These are the parts the checkpoint recorded as uploaded that the provider still
+    * lists with the same ETag and size, where it reports them, or all the recorded parts where the
+    * provider cannot list them.
+    */
+   private Map<Integer, MultipartPart> uploadedParts(MultipartUpload mpu, MultipartCheckpoint checkpoint) {
+      Map<Integer, MultipartPart> recorded = Maps.newHashMap();
+      for (MultipartPart part : checkpoint.parts()) {
+         recorded.put(part.partNumber(), part);
+      }
+      List<MultipartPart> listed;
+      try {
+         boolean inProgress = false;
+         for (MultipartUpload upload : listMultipartUploads(mpu.containerName())) {
+            if (upload.id().equals(mpu.id()) && upload.blobName().equals(mpu.blobName())) {
+               inProgress = true;
+               break;
+            }
+         }
+         if (!inProgress)
+            return null;
+         listed = listMultipartUpload(mpu);
+      } catch (UnsupportedOperationException uoe) {
+         return recorded;
+      }
+      Map<Integer, MultipartPart> uploaded = Maps.newHashMap();
+      for (MultipartPart part : listed) {
+         MultipartPart record = recorded.get(part.partNumber());
+         if (record != null && sameETag(part.partETag(), record.partETag())
+               && (part.partSize() < 0 || part.partSize() == record.partSize())) {
+            uploaded.put(part.partNumber(), record);
+         }
+      }
+      return uploaded;
+   }
+
+   /**
+    * Compares part ETags, which some providers quote and others do not report at all.
+    */
+   private static boolean sameETag(String listed, String recorded) {
+      if (Strings.isNullOrEmpty(listed) || Strings.isNullOrEmpty(recorded))
+         return true;
+      return maybeQuoteETag(listed).equals(maybeQuoteETag(recorded));
+   }
+
+   /**
+    * Identifies the payload and slicing of a resumable upload, so that an upload is only resumed
+    * with the payload it was started for.
+    */
+   private static String fingerprint(Blob blob, long partSize) {
+      ContentMetadata metadata = blob.getMetadata().getContentMetadata();
+      StringBuilder fingerprint = new StringBuilder().append(metadata.getContentLength()).append(' ').append(partSize);
+      HashCode md5 = metadata.getContentMD5AsHashCode();
+      if (md5 != null)
+         fingerprint.append(" md5=").append(md5);
+      Object rawContent = blob.getPayload().getRawContent();
+      if (rawContent instanceof File)
+         fingerprint.append(" modified=").append(((File) rawContent).lastModified());
+      return fingerprint.toString();
+   }
+
+   private final class CheckpointedBlobUploader implements Callable<MultipartPart> {
+      private final MultipartUpload mpu;
+      private final int partNumber;
+      private final Payload payload;
+
+      CheckpointedBlobUploader(MultipartUpload mpu, int partNumber, Payload payload) {
+         this.mpu = mpu;
+         this.partNumber = partNumber;
+         this.payload = payload;
+      }
+
+      @Override
+      public MultipartPart call() {
+         MultipartPart part = uploadMultipartPart(mpu, partNumber, payload);
+         // record the size of the payload, as some providers do not report it
+         checkpoints.partCompleted(mpu.containerName(), mpu.blobName(), MultipartPart.create(partNumber,
+               payload.getContentMetadata().getContentLength(), part.partETag()));
+         return part;
+      }
+   }
+
+   /**
+    * Uploads a payload of unknown length, or one that can be read only once, by reading it into a
+    * fixed number of part buffers and uploading each as it fills. Parts are sized for the content
+    * length where it is known, and of the default part size otherwise. Reading waits for a buffer to be
+    * released by an upload, so no more than {@link #partBuffers} parts are held in memory.
+    */
+   @Beta
+   protected String putMultipartBlobStreaming(String container, Blob blob, PutOptions overrides,
+         ListeningExecutorService executor) {
+      Long contentLength = blob.getMetadata().getContentMetadata().getContentLength();
+      long chunkSize;
+      if (contentLength != null) {
+         chunkSize = new MultipartUploadSlicingAlgorithm(getMinimumMultipartPartSize(), getMaximumMultipartPartSize(),
+               getMaximumNumberOfParts()).calculateChunkSize(contentLength);
+         checkArgument(chunkSize <= Integer.MAX_VALUE,
+               "%s bytes need parts of %s bytes, too large to buffer; use a repeatable payload", contentLength,
+               chunkSize);
+      } else {
+         // without a length to plan for, use the default part size within the provider's limits
+         chunkSize = Math.max(getMinimumMultipartPartSize(),
+               Math.min(MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE, getMaximumMultipartPartSize()));
+      }
+      int partSize = (int) chunkSize;
+
+      ArrayList<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
+      MultipartUpload mpu = initiateMultipartUpload(container, blob.getMetadata(), overrides);
+      InputStream is = null;
+      try {
+         BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(partBuffers);
+         AtomicBoolean failed = new AtomicBoolean();
+         int allocated = 0;
+         is = blob.getPayload().openStream();
+         for (int partNumber = 1;; partNumber++) {
+            byte[] buffer = buffers.poll();
+            if (buffer == null && allocated < partBuffers) {
+               buffer = new byte[partSize];
+               allocated++;
+            } else if (buffer == null) {
+               buffer = buffers.take();
+            }
+            int read = ByteStreams.read(is, buffer, 0, partSize);
+            if (read == 0 && partNumber > 1)
+               break;
+            checkState(partNumber <= getMaximumNumberOfParts(), "payload is larger than %s parts of %s bytes",
+                  getMaximumNumberOfParts(), partSize);
+            Payload payload = new ByteSourcePayload(ByteSource.wrap(buffer).slice(0, read));
+            payload.getContentMetadata().setContentLength((long) read);
+            parts.add(executor.submit(new BufferedBlobUploader(mpu, partNumber, payload, buffer, buffers,
+                  failed)));
+            // stop reading once a part has failed, as the upload cannot complete
+            if (read < partSize || failed.get())
+               break;
+         }
+         return completeMultipartUpload(mpu, Futures.getUnchecked(Futures.allAsList(parts)));
+      } catch (IOException ioe) {
+         abortMultipartUpload(mpu);
+         throw Throwables.propagate(ioe);
+      } catch (InterruptedException ie) {
+         abortMultipartUpload(mpu);
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(ie);
+      } catch (RuntimeException re) {
+         abortMultipartUpload(mpu);
+         throw re;
+      } finally {
+         Closeables2.closeQuietly(is);
+      }
+   }
+
+   private final class BufferedBlobUploader implements Callable<MultipartPart> {
+      private final MultipartUpload mpu;
+      private final int partNumber;
+      private final Payload payload;
+      private final byte[] buffer;
+      private final BlockingQueue<byte[]> buffers;
+      private final AtomicBoolean failed;
+
+      BufferedBlobUploader(MultipartUpload mpu, int partNumber, Payload payload, byte[] buffer,
+            BlockingQueue<byte[]> buffers, AtomicBoolean failed) {
+         this.mpu = mpu;
+         this.partNumber = partNumber;
+         this.payload = payload;
+         this.buffer = buffer;
+         this.buffers = buffers;
+         this.failed = failed;
+      }
+
+      @Override
+      public MultipartPart call() {
+         try {
+            return uploadMultipartPart(mpu, partNumber, payload);
+         } catch (RuntimeException re) {
+            failed.set(true);
+            throw re;
+         } finally {
+            buffers.add(buffer);
+         }
+      }
+   }
+
    private final class BlobUploader implements Callable<MultipartPart> {
       private final MultipartUpload mpu;
       private final int partNumber;
@@ -387,6 +793,16 @@ public abstract class BaseBlobStore implements BlobStore {
       }
    }
 
+   @Override
+   public void downloadBlob(String container, String name, File destination) {
+      downloadBlob(container, name, destination, userExecutor);
+   }
+
+   @Override
+   public void downloadBlob(String container, String name, File destination, ListeningExecutorService executor) {
+      new MultipartDownloader(this, executor).download(container, name, destination);
+   }
+
    private static HttpResponseException returnResponseException(int code) {
       HttpResponse response = HttpResponse.builder().statusCode(code).build();
       // TODO: bogus endpoint
@@ -394,7 +810,7 @@ public abstract class BaseBlobStore implements BlobStore {
             .build()), response);
    }
 
-   private static String maybeQuoteETag(String eTag) {
+   protected static String maybeQuoteETag(String eTag) {
       if (!eTag.startsWith("\"") && !eTag.endsWith("\"")) {
          eTag = "\"" + eTag + "\"";
       }
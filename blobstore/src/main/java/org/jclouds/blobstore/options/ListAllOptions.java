@@ -16,8 +16,14 @@
  */
 package org.jclouds.blobstore.options;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.jclouds.javax.annotation.Nullable;
+
 import com.google.common.annotations.Beta;
 import com.google.common.base.Objects;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
  * Contains options supported by BlobStores.listAll.
@@ -32,6 +38,9 @@ public class ListAllOptions implements Cloneable {
    public static final ImmutableListAllOptions NONE = new ImmutableListAllOptions(new ListAllOptions());
 
    private boolean eager = false;
+   private int prefetch = 0;
+   private int parallel = 0;
+   private ListeningExecutorService executor;
 
    public ListAllOptions() {
    }
@@ -40,6 +49,13 @@ public class ListAllOptions implements Cloneable {
       this.eager = eagerness;
    }
 
+   ListAllOptions(boolean eagerness, int prefetch, int parallel, @Nullable ListeningExecutorService executor) {
+      this.eager = eagerness;
+      this.prefetch = prefetch;
+      this.parallel = parallel;
+      this.executor = executor;
+   }
+
    public static class ImmutableListAllOptions extends ListAllOptions {
       private final ListAllOptions delegate;
 
@@ -52,10 +68,35 @@ public class ListAllOptions implements Cloneable {
          return delegate.isEager();
       }
       
+      @Override
+      public int getPrefetch() {
+         return delegate.getPrefetch();
+      }
+
+      @Override
+      public int getParallel() {
+         return delegate.getParallel();
+      }
+
+      @Override
+      public ListeningExecutorService getExecutor() {
+         return delegate.getExecutor();
+      }
+
       @Override
       public ListAllOptions eager(boolean val) {
          throw new UnsupportedOperationException();
       }
+
+      @Override
+      public ListAllOptions prefetch(int pages, ListeningExecutorService executor) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public ListAllOptions parallel(int scans, ListeningExecutorService executor) {
+         throw new UnsupportedOperationException();
+      }
    }
 
    public boolean isEager() {
@@ -71,6 +112,43 @@ public class ListAllOptions implements Cloneable {
       return this;
    }
 
+   public int getPrefetch() {
+      return prefetch;
+   }
+
+   public int getParallel() {
+      return parallel;
+   }
+
+   @Nullable
+   public ListeningExecutorService getExecutor() {
+      return executor;
+   }
+
+   /**
+    * Fetches up to {@code pages} pages ahead of the one being iterated, using {@code executor}, so
+    * that the next page is already on its way while the caller consumes the current one.
+    */
+   public ListAllOptions prefetch(int pages, ListeningExecutorService executor) {
+      checkArgument(pages > 0, "pages must be positive");
+      this.prefetch = pages;
+      this.executor = checkNotNull(executor, "executor");
+      return this;
+   }
+
+   /**
+    * Lists each prefix directly below the listed one in its own scan, running up to {@code scans}
+    * of them at a time on {@code executor}. Prefixes are split by the delimiter of the container
+    * options, or "/"; a directory of the container options is listed as the prefix of its keys.
+    * Entries are not returned in order.
+    */
+   public ListAllOptions parallel(int scans, ListeningExecutorService executor) {
+      checkArgument(scans > 0, "scans must be positive");
+      this.parallel = scans;
+      this.executor = checkNotNull(executor, "executor");
+      return this;
+   }
+
    public static class Builder {
       /**
        * @see ListAllOptions#eager(boolean)
@@ -79,21 +157,37 @@ public class ListAllOptions implements Cloneable {
          ListAllOptions options = new ListAllOptions();
          return options.eager(eager);
       }
+
+      /**
+       * @see ListAllOptions#prefetch(int, ListeningExecutorService)
+       */
+      public static ListAllOptions prefetch(int pages, ListeningExecutorService executor) {
+         ListAllOptions options = new ListAllOptions();
+         return options.prefetch(pages, executor);
+      }
+
+      /**
+       * @see ListAllOptions#parallel(int, ListeningExecutorService)
+       */
+      public static ListAllOptions parallel(int scans, ListeningExecutorService executor) {
+         ListAllOptions options = new ListAllOptions();
+         return options.parallel(scans, executor);
+      }
    }
 
    @Override
    public ListAllOptions clone() {
-      return new ListAllOptions(isEager());
+      return new ListAllOptions(isEager(), getPrefetch(), getParallel(), getExecutor());
    }
 
    @Override
    public String toString() {
-      return "[eager=" + eager + "]";
+      return "[eager=" + eager + ", prefetch=" + prefetch + ", parallel=" + parallel + "]";
    }
 
    @Override
    public int hashCode() {
-      return Objects.hashCode(eager);
+      return Objects.hashCode(eager, prefetch, parallel, executor);
    }
 
    @Override
@@ -105,6 +199,7 @@ public class ListAllOptions implements Cloneable {
       if (getClass() != obj.getClass())
          return false;
       ListAllOptions other = (ListAllOptions) obj;
-      return eager == other.eager;
+      return eager == other.eager && prefetch == other.prefetch && parallel == other.parallel
+            && Objects.equal(executor, other.executor);
    }
 }
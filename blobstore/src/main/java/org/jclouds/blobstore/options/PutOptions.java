@@ -40,6 +40,7 @@ public class PutOptions implements Cloneable {
 
    private BlobAccess blobAccess = BlobAccess.PRIVATE;
    private boolean multipart = false;
+   private boolean resumable = false;
    private boolean useCustomExecutor = false;
 
    // TODO: This exposes ListeningExecutorService to the user, instead of a regular ExecutorService
@@ -108,6 +109,16 @@ public class PutOptions implements Cloneable {
          throw new UnsupportedOperationException();
       }
 
+      @Override
+      public boolean isResumable() {
+         return delegate.isResumable();
+      }
+
+      @Override
+      public PutOptions resumable(boolean val) {
+         throw new UnsupportedOperationException();
+      }
+
       @Override
       public PutOptions clone() {
          return delegate.clone();
@@ -166,6 +177,35 @@ public class PutOptions implements Cloneable {
       return this;
    }
 
+   public boolean isResumable() {
+      return resumable;
+   }
+
+   /**
+    * Upload in pieces, recording each piece as it is uploaded so that a later call for the same
+    * blob after a failure or crash uploads only the missing pieces. Implies {@link #multipart()}.
+    * The payload must be a file, or carry its Content-MD5, so that the content can be recognised.
+    *
+    * Only the blobstores extending BaseBlobStore, such as S3 and Azure, resume uploads; others,
+    * including the transient, filesystem and Swift blobstores, ignore this option and upload as
+    * with {@link #multipart()}.
+    *
+    * Equivalent to <code>resumable(true)</code>
+    */
+   public PutOptions resumable() {
+      return resumable(true);
+   }
+
+   /**
+    * whether to upload in pieces that can be resumed after a failure
+    */
+   public PutOptions resumable(boolean val) {
+      this.resumable = val;
+      if (val)
+         this.multipart = true;
+      return this;
+   }
+
    /**
     * Whether to split large blobs into pieces, if supported by the provider, using a custom executor
     *
@@ -201,16 +241,25 @@ public class PutOptions implements Cloneable {
          PutOptions options = new PutOptions();
          return options.multipart(customExecutor);
       }
+
+      /**
+       * @see PutOptions#resumable()
+       */
+      public static PutOptions resumable() {
+         PutOptions options = new PutOptions();
+         return options.resumable();
+      }
    }
 
    @Override
    public PutOptions clone() {
-      return new PutOptions(multipart, useCustomExecutor, customExecutor);
+      return new PutOptions(multipart, useCustomExecutor, customExecutor).resumable(resumable);
    }
 
    @Override
    public String toString() {
       return "[multipart=" + multipart +
+            ", resumable=" + resumable +
             ", blobAccess=" + blobAccess +
             ", useCustomExecutor=" + useCustomExecutor +
             ", customExecutor=" + customExecutor + "]";
@@ -53,6 +53,31 @@ public final class BlobStoreConstants {
     */
    public static final String PROPERTY_USER_METADATA_PREFIX = "jclouds.blobstore.metaprefix";
 
+   /**
+    * Directory where resumable multipart uploads record their progress; defaults to
+    * jclouds-mpu-checkpoints in the temporary directory.
+    */
+   public static final String PROPERTY_MULTIPART_CHECKPOINT_DIR = "jclouds.mpu.checkpoint.dir";
+
+   /**
+    * Number of part buffers a multipart upload of a stream of unknown length holds in memory, which
+    * is also the number of its parts uploaded at once; defaults to 4.
+    */
+   public static final String PROPERTY_MPU_PARTS_BUFFERS = "jclouds.mpu.parts.buffers";
+
+   /**
+    * Total size in bytes of the payloads the transient blobstore keeps in direct buffers outside the
+    * heap; 0, the default, keeps payloads on the heap without a limit.
+    */
+   public static final String PROPERTY_TRANSIENT_OFFHEAP_CAPACITY = "jclouds.transient.offheap.capacity";
+
+   /**
+    * What an off-heap transient blobstore does with a put that does not fit in its capacity: NONE,
+    * the default, fails the put, while LRU and FIFO first remove the least recently read or the
+    * oldest blobs.
+    */
+   public static final String PROPERTY_TRANSIENT_EVICTION = "jclouds.transient.eviction";
+
    public static final String BLOBSTORE_LOGGER = "jclouds.blobstore";
    public static final String DIRECTORY_BLOB_SUFFIX = "/";
 
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy;
+
+import org.jclouds.blobstore.domain.MultipartCheckpoint;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.strategy.internal.FileMultipartCheckpointStore;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Persists the progress of resumable multipart uploads, so that an upload interrupted by a crash
+ * can continue from its completed parts.
+ */
+@ImplementedBy(FileMultipartCheckpointStore.class)
+public interface MultipartCheckpointStore {
+
+   /**
+    * @return the checkpoint of the upload in progress to this blob, or null if there is none
+    */
+   @Nullable
+   MultipartCheckpoint get(String container, String name);
+
+   /**
+    * Records a new upload to this blob, replacing any previous checkpoint.
+    */
+   void start(String container, String name, String uploadId, String fingerprint);
+
+   /**
+    * Records a part of the upload to this blob as uploaded; called concurrently for different parts.
+    */
+   void partCompleted(String container, String name, MultipartPart part);
+
+   /**
+    * Forgets the upload to this blob, once it is complete or abandoned.
+    */
+   void remove(String container, String name);
+}
@@ -20,6 +20,7 @@ import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursi
 
 import java.util.HashSet;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Semaphore;
@@ -45,6 +46,7 @@ import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.logging.Logger;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -75,6 +77,9 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
    /** Maximum parallel deletes. */
    private int maxParallelDeletes;
 
+   /** Maximum number of keys removed by one bulk delete, the S3 and Swift limit. */
+   static final int MAX_BATCH_SIZE = 1000;
+
    @Inject
    DeleteAllKeysInList(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executorService,
          BlobStore blobStore, BackoffLimitedRetryHandler retryHandler,
@@ -174,29 +179,25 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
       return listing;
    }
 
-   private ListenableFuture<Void> deleteDirectory(final ListContainerOptions options,
-         final String containerName, final String dirName) {
-      ListenableFuture<Void> blobDelFuture;
-
-      if (options.isRecursive()) {
-         blobDelFuture = executorService.submit(new Callable<Void>() {
-            @Override
-            public Void call() {
-               blobStore.deleteDirectory(containerName, dirName);
-               return null;
-            }
-         });
-      } else {
-         blobDelFuture = null;
-      }
-
-      return blobDelFuture;
+   private ListenableFuture<Void> deleteDirectory(final String containerName, final String dirName) {
+      return executorService.submit(new Callable<Void>() {
+         @Override
+         public Void call() {
+            blobStore.deleteDirectory(containerName, dirName);
+            return null;
+         }
+      });
    }
 
    /**
     * Delete the blobs from a given PageSet. The PageSet may contain blobs or
     * directories. If there are directories, they are expected to be empty.
     *
+    * Blobs are deleted in batches with {@link BlobStore#removeBlobs}, so that
+    * providers with a bulk delete API need one request per batch. A page is
+    * split into enough batches to keep {@code maxParallelDeletes} requests in
+    * flight, but no batch is larger than {@link #MAX_BATCH_SIZE}.
+    *
     * The logic of acquiring a semaphore, submitting a callable to the
     * executorService and releasing the semaphore resides here.
     *
@@ -223,82 +224,106 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
          final AtomicBoolean deleteFailure,
          final Set<ListenableFuture<Void>> outstandingFutures)
          throws TimeoutException {
+      int batchSize = batchSize(listing.size());
+      List<String> batch = Lists.newArrayListWithCapacity(batchSize);
       for (final StorageMetadata md : listing) {
          final String fullPath = parentIsFolder(options, md) ? options.getDir()
                + "/" + md.getName() : md.getName();
 
-         // Attempt to acquire a semaphore within the time limit. At least
-         // one outstanding future should complete within this period for the
-         // semaphore to be acquired.
-         try {
-            if (!semaphore.tryAcquire(maxTime, TimeUnit.MILLISECONDS)) {
-               throw new TimeoutException("Timeout waiting for semaphore");
-            }
-         } catch (InterruptedException ie) {
-            logger.debug("Interrupted while deleting blobs");
-            Thread.currentThread().interrupt();
-         }
-
-         final ListenableFuture<Void> blobDelFuture;
          switch (md.getType()) {
          case FOLDER:
          case BLOB:
-            blobDelFuture = executorService.submit(new Callable<Void>() {
-               @Override
-               public Void call() {
-                  blobStore.removeBlob(containerName, fullPath);
-                  return null;
-               }
-            });
+            batch.add(fullPath);
+            if (batch.size() == batchSize) {
+               removeBlobs(containerName, batch, semaphore, deleteFailure, outstandingFutures);
+               batch = Lists.newArrayListWithCapacity(batchSize);
+            }
             break;
          case RELATIVE_PATH:
-            blobDelFuture = deleteDirectory(options, containerName,
-                  md.getName());
+            // directories are deleted on their own, and only when recursive
+            if (options.isRecursive()) {
+               acquire(semaphore);
+               track(deleteDirectory(containerName, md.getName()), semaphore, deleteFailure, outstandingFutures);
+            }
             break;
          case CONTAINER:
             throw new IllegalArgumentException("Container type not supported");
          default:
-            blobDelFuture = null;
+            break;
          }
+      }
+      if (!batch.isEmpty()) {
+         removeBlobs(containerName, batch, semaphore, deleteFailure, outstandingFutures);
+      }
+   }
 
-         // If a future to delete a blob/directory actually got created above,
-         // keep a reference of that in the outstandingFutures list. This is
-         // useful in case of a timeout exception. All outstanding futures can
-         // then be cancelled.
-         if (blobDelFuture != null) {
-            outstandingFutures.add(blobDelFuture);
-
-            // Add a callback to release the semaphore. This is required for
-            // other threads waiting to acquire a semaphore above to make
-            // progress.
-            Futures.addCallback(blobDelFuture, new FutureCallback<Object>() {
-               @Override
-               public void onSuccess(final Object o) {
-                  outstandingFutures.remove(blobDelFuture);
-                  semaphore.release();
-               }
+   @VisibleForTesting
+   int batchSize(int pageSize) {
+      int batches = Math.max(1, maxParallelDeletes);
+      return Math.max(1, Math.min(MAX_BATCH_SIZE, (pageSize + batches - 1) / batches));
+   }
 
-               @Override
-               public void onFailure(final Throwable t) {
-                  // Make a note the fact that some blob/directory could not be
-                  // deleted successfully. This is used for retrying later.
-                  deleteFailure.set(true);
-                  outstandingFutures.remove(blobDelFuture);
-                  semaphore.release();
-               }
-            });
-         } else {
-            // It is possible above to acquire a semaphore but not submit any
-            // task to the executorService. For e.g. if the listing contains
-            // an object of type 'FOLDER' and the ListContianerOptions are *not*
-            // recursive. In this case, there is no blobDelFuture and therefore
-            // no FutureCallback to release the semaphore. This semaphore is
-            // released here.
-            semaphore.release();
+   private void removeBlobs(final String containerName, final List<String> names, Semaphore semaphore,
+         AtomicBoolean deleteFailure, Set<ListenableFuture<Void>> outstandingFutures) throws TimeoutException {
+      acquire(semaphore);
+      track(executorService.submit(new Callable<Void>() {
+         @Override
+         public Void call() {
+            if (names.size() == 1)
+               blobStore.removeBlob(containerName, names.get(0));
+            else
+               blobStore.removeBlobs(containerName, names);
+            return null;
          }
+      }), semaphore, deleteFailure, outstandingFutures);
+   }
+
+   /**
+    * Attempt to acquire a semaphore within the time limit. At least one
+    * outstanding future should complete within this period for the semaphore
+    * to be acquired.
+    */
+   private void acquire(Semaphore semaphore) throws TimeoutException {
+      try {
+         if (!semaphore.tryAcquire(maxTime, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Timeout waiting for semaphore");
+         }
+      } catch (InterruptedException ie) {
+         logger.debug("Interrupted while deleting blobs");
+         Thread.currentThread().interrupt();
       }
    }
 
+   /**
+    * Keeps a reference to the future in the outstandingFutures list, so that
+    * it can be cancelled in case of a timeout, until it completes and releases
+    * its semaphore permit.
+    */
+   private void track(final ListenableFuture<Void> blobDelFuture, final Semaphore semaphore,
+         final AtomicBoolean deleteFailure, final Set<ListenableFuture<Void>> outstandingFutures) {
+      outstandingFutures.add(blobDelFuture);
+
+      // Add a callback to release the semaphore. This is required for
+      // other threads waiting to acquire a semaphore above to make
+      // progress.
+      Futures.addCallback(blobDelFuture, new FutureCallback<Object>() {
+         @Override
+         public void onSuccess(final Object o) {
+            outstandingFutures.remove(blobDelFuture);
+            semaphore.release();
+         }
+
+         @Override
+         public void onFailure(final Throwable t) {
+            // Make a note the fact that some blob/directory could not be
+            // deleted successfully. This is used for retrying later.
+            deleteFailure.set(true);
+            outstandingFutures.remove(blobDelFuture);
+            semaphore.release();
+         }
+      });
+   }
+
    /**
     * This method goes through all the blobs from a container and attempts to
     * create futures for deleting them. If there is a TimeoutException when
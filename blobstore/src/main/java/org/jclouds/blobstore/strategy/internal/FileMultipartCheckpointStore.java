@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MULTIPART_CHECKPOINT_DIR;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.blobstore.domain.MultipartCheckpoint;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.strategy.MultipartCheckpointStore;
+import org.jclouds.domain.Credentials;
+import org.jclouds.location.Provider;
+import org.jclouds.providers.ProviderMetadata;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.inject.Inject;
+
+/**
+ * Keeps a text file per blob: the upload id and fingerprint, followed by one appended line per
+ * uploaded part. A line cut short by a crash is ignored when the file is read back. Files are named
+ * after the provider, endpoint and identity as well as the blob, so that contexts sharing the
+ * directory do not resume each other's uploads.
+ */
+@Singleton
+public final class FileMultipartCheckpointStore implements MultipartCheckpointStore {
+
+   private static final Splitter LINES = Splitter.on('\n');
+   private static final Splitter FIELDS = Splitter.on(' ').limit(3);
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MULTIPART_CHECKPOINT_DIR)
+   @VisibleForTesting
+   String directory = new File(System.getProperty("java.io.tmpdir"), "jclouds-mpu-checkpoints").getPath();
+
+   private final String provider;
+   private final String endpoint;
+   private final Supplier<Credentials> credentials;
+
+   @Inject
+   FileMultipartCheckpointStore(ProviderMetadata provider, @Provider Supplier<Credentials> credentials) {
+      this(provider.getId(), provider.getEndpoint(), credentials);
+   }
+
+   @VisibleForTesting
+   FileMultipartCheckpointStore(String provider, String endpoint, Supplier<Credentials> credentials) {
+      this.provider = checkNotNull(provider, "provider");
+      this.endpoint = endpoint;
+      this.credentials = checkNotNull(credentials, "credentials");
+   }
+
+   @Override
+   public synchronized MultipartCheckpoint get(String container, String name) {
+      File file = file(container, name);
+      if (!file.exists())
+         return null;
+      List<String> lines;
+      try {
+         lines = LINES.splitToList(Files.toString(file, UTF_8));
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+      // every complete line ends with a newline, so the text after the last one is incomplete
+      lines = lines.subList(0, lines.size() - 1);
+      if (lines.size() < 2)
+         return null;
+      List<MultipartPart> parts = Lists.newArrayList();
+      for (String line : lines.subList(2, lines.size())) {
+         List<String> fields = FIELDS.splitToList(line);
+         if (fields.size() < 3)
+            continue;
+         try {
+            parts.add(MultipartPart.create(Integer.parseInt(fields.get(0)), Long.parseLong(fields.get(1)),
+                  Strings.emptyToNull(fields.get(2))));
+         } catch (NumberFormatException e) {
+            continue;
+         }
+      }
+      return MultipartCheckpoint.create(lines.get(0), lines.get(1), parts);
+   }
+
+   @Override
+   public synchronized void start(String container, String name, String uploadId, String fingerprint) {
+      File file = file(container, name);
+      try {
+         Files.createParentDirs(file);
+         Files.write(uploadId + "\n" + fingerprint + "\n", file, UTF_8);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   @Override
+   public synchronized void partCompleted(String container, String name, MultipartPart part) {
+      String line = part.partNumber() + " " + part.partSize() + " " + Strings.nullToEmpty(part.partETag()) + "\n";
+      try {
+         Files.append(line, file(container, name), UTF_8);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   @Override
+   public synchronized void remove(String container, String name) {
+      file(container, name).delete();
+   }
+
+   private File file(String container, String name) {
+      String key = provider + "\n" + endpoint + "\n" + credentials.get().identity + "\n" + container + "/" + name;
+      return new File(directory, Hashing.sha256().hashString(key, UTF_8) + ".mpu");
+   }
+}
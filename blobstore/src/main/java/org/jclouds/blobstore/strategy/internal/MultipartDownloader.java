@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Downloads a blob into a file as concurrent range requests, each written at its offset as it
+ * arrives. Every range is requested with the ETag of the blob when it is known, so that a blob
+ * replaced during the download fails it instead of mixing versions. A range whose response is not
+ * the requested length, or whose stream fails or ends early, is requested again, and the file is checked against the Content-MD5 of the blob, if
+ * any, once complete.
+ */
+@Beta
+public final class MultipartDownloader {
+
+   @VisibleForTesting
+   public static final long DEFAULT_PART_SIZE = 33554432; // 32MB
+
+   @VisibleForTesting
+   static final int DEFAULT_ATTEMPTS = 3;
+
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private final BlobStore blobStore;
+   private final ListeningExecutorService executor;
+   private final long partSize;
+
+   public MultipartDownloader(BlobStore blobStore, ListeningExecutorService executor) {
+      this(blobStore, executor, DEFAULT_PART_SIZE);
+   }
+
+   public MultipartDownloader(BlobStore blobStore, ListeningExecutorService executor, long partSize) {
+      this.blobStore = checkNotNull(blobStore, "blobStore");
+      this.executor = checkNotNull(executor, "executor");
+      checkArgument(partSize > 0, "partSize must be positive");
+      this.partSize = partSize;
+   }
+
+   /**
+    * Replaces the contents of {@code destination} with the blob, deleting the file if the
+    * download fails.
+    *
+    * @throws KeyNotFoundException
+    *            if the blob does not exist
+    */
+   public void download(String container, String name, File destination) {
+      boolean complete = false;
+      RandomAccessFile file = null;
+      List<ListenableFuture<Void>> parts = Lists.newArrayList();
+      try {
+         BlobMetadata metadata = blobStore.blobMetadata(container, name);
+         if (metadata == null)
+            throw new KeyNotFoundException(container, name, "while downloading");
+         Long size = metadata.getSize() != null ? metadata.getSize()
+               : metadata.getContentMetadata().getContentLength();
+         checkArgument(size != null, "size of %s/%s is unknown", container, name);
+         String eTag = metadata.getETag();
+
+         file = new RandomAccessFile(destination, "rw");
+         file.setLength(size);
+         FileChannel channel = file.getChannel();
+         for (long offset = 0; offset < size; offset += partSize) {
+            long last = Math.min(offset + partSize, size) - 1;
+            parts.add(executor.submit(new RangeDownloader(container, name, eTag, offset, last, channel)));
+         }
+         try {
+            Futures.allAsList(parts).get();
+         } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+         }
+         file.close();
+         file = null;
+         HashCode expected = metadata.getContentMetadata().getContentMD5AsHashCode();
+         if (expected != null) {
+            HashCode actual = Files.hash(destination, Hashing.md5());
+            if (!expected.equals(actual))
+               throw new IOException(String.format("MD5 of %s/%s is %s, expected %s", container, name, actual,
+                     expected));
+         }
+         complete = true;
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } finally {
+         for (ListenableFuture<Void> part : parts) {
+            part.cancel(true);
+         }
+         Closeables2.closeQuietly(file);
+         if (!complete)
+            destination.delete();
+      }
+   }
+
+   private final class RangeDownloader implements Callable<Void> {
+      private final String container;
+      private final String name;
+      private final String eTag;
+      private final long offset;
+      private final long last;
+      private final FileChannel channel;
+
+      RangeDownloader(String container, String name, String eTag, long offset, long last, FileChannel channel) {
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.offset = offset;
+         this.last = last;
+         this.channel = channel;
+      }
+
+      @Override
+      public Void call() throws IOException {
+         for (int attempt = 1;; attempt++) {
+            try {
+               download();
+               return null;
+            } catch (IOException e) {
+               if (attempt >= DEFAULT_ATTEMPTS || Thread.currentThread().isInterrupted())
+                  throw e;
+            }
+         }
+      }
+
+      private void download() throws IOException {
+         GetOptions options = new GetOptions().range(offset, last);
+         if (eTag != null)
+            options.ifETagMatches(eTag);
+         Blob blob = blobStore.getBlob(container, name, options);
+         if (blob == null)
+            throw new KeyNotFoundException(container, name, "while downloading");
+         // a provider that ignores the range answers with the whole blob
+         Long contentLength = blob.getPayload().getContentMetadata().getContentLength();
+         if (contentLength == null || contentLength != last - offset + 1) {
+            Closeables2.closeQuietly(blob.getPayload());
+            throw new IOException(String.format("expected %d bytes for range %d-%d of %s/%s, got %s",
+                  last - offset + 1, offset, last, container, name, contentLength));
+         }
+         InputStream in = blob.getPayload().openStream();
+         try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = offset;
+            while (position <= last) {
+               int read = in.read(buffer, 0, (int) Math.min(buffer.length, last - position + 1));
+               if (read == -1)
+                  break;
+               ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+               while (bytes.hasRemaining()) {
+                  // positional writes leave the other ranges alone
+                  position += channel.write(bytes, position);
+               }
+            }
+            if (position <= last)
+               throw new EOFException(String.format("range %d-%d of %s/%s ended at %d", offset, last, container, name,
+                     position));
+         } finally {
+            Closeables2.closeQuietly(in);
+         }
+      }
+   }
+}
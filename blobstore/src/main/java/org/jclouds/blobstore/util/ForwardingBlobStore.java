@@ -19,10 +19,12 @@ package org.jclouds.blobstore.util;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.File;
 import java.util.List;
 import java.util.Set;
 
 import com.google.common.collect.ForwardingObject;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
@@ -263,4 +265,15 @@ public abstract class ForwardingBlobStore extends ForwardingObject
    public int getMaximumNumberOfParts() {
       return delegate().getMaximumNumberOfParts();
    }
+
+   @Override
+   public void downloadBlob(String container, String name, File destination) {
+      delegate().downloadBlob(container, name, destination);
+   }
+
+   @Override
+   public void downloadBlob(String container, String name, File destination,
+         ListeningExecutorService executor) {
+      delegate().downloadBlob(container, name, destination, executor);
+   }
 }
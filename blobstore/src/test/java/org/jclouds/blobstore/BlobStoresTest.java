@@ -18,10 +18,17 @@ package org.jclouds.blobstore;
 
 import static org.easymock.EasyMock.createMock;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
+import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.jclouds.ContextBuilder;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
@@ -35,6 +42,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 @Test(singleThreaded = true, testName = "BlobStoresTest")
 public class BlobStoresTest {
@@ -70,6 +79,21 @@ public class BlobStoresTest {
       }
    }
 
+   @Test(expectedExceptions = { ContainerNotFoundException.class })
+   public void testListAllForUnknownContainerFromTransientBlobStoreWithPrefetch() throws Exception {
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      BlobStoreContext context = blobStoreContext();
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         Iterable<StorageMetadata> iterable = BlobStores.listAll(blobStore, "wrongcontainer", ListContainerOptions.NONE,
+                  ListAllOptions.Builder.prefetch(2, executor));
+         iterable.iterator().hasNext();
+      } finally {
+         context.close();
+         executor.shutdownNow();
+      }
+   }
+
    protected BlobStoreContext blobStoreContext() {
       return ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
    }
@@ -84,7 +108,133 @@ public class BlobStoresTest {
       runListAllFromTransientBlobStore(true);
    }
 
+   @Test
+   public void testListAllFromTransientBlobStoreWithPrefetch() throws Exception {
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      try {
+         runListAllFromTransientBlobStore(ListAllOptions.Builder.prefetch(2, executor));
+         runListAllFromTransientBlobStore(ListAllOptions.Builder.prefetch(1, executor).eager(true));
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testListAllFromTransientBlobStoreInParallel() throws Exception {
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      BlobStoreContext context = blobStoreContext();
+      BlobStore blobStore = null;
+      try {
+         blobStore = context.getBlobStore();
+         blobStore.createContainerInLocation(null, containerName);
+         Set<String> expectedNames = Sets.newHashSet();
+         for (int i = 0; i < 31; i++) {
+            String blobName = (i % 3 == 0 ? "" : "dir" + i % 5 + "/") + "myname" + i;
+            blobStore.putBlob(containerName, blobStore.blobBuilder(blobName).payload("payload" + i).build());
+            expectedNames.add(blobName);
+         }
+
+         ListContainerOptions containerOptions = ListContainerOptions.Builder.recursive().maxResults(2);
+         Iterable<StorageMetadata> iterable = BlobStores.listAll(blobStore, containerName, containerOptions,
+                  ListAllOptions.Builder.parallel(3, executor));
+         Iterable<String> iterableNames = Iterables.transform(iterable, new Function<StorageMetadata, String>() {
+            @Override
+            public String apply(StorageMetadata input) {
+               return input.getName();
+            }
+         });
+         // entries come back in no particular order, but each only once
+         assertEquals(Iterables.size(iterableNames), expectedNames.size());
+         assertEquals(ImmutableSet.copyOf(iterableNames), expectedNames);
+      } finally {
+         if (blobStore != null)
+            blobStore.deleteContainer(containerName);
+         context.close();
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testListAllInDirectoryInParallel() throws Exception {
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      BlobStoreContext context = blobStoreContext();
+      BlobStore blobStore = null;
+      try {
+         blobStore = context.getBlobStore();
+         blobStore.createContainerInLocation(null, containerName);
+         Set<String> expectedNames = Sets.newHashSet();
+         for (int i = 0; i < 31; i++) {
+            String blobName = "dir" + i % 2 + "/" + (i % 3 == 0 ? "" : "sub" + i % 5 + "/") + "myname" + i;
+            blobStore.putBlob(containerName, blobStore.blobBuilder(blobName).payload("payload" + i).build());
+            if (blobName.startsWith("dir1/"))
+               expectedNames.add(blobName);
+         }
+
+         ListContainerOptions containerOptions = ListContainerOptions.Builder.inDirectory("dir1").recursive()
+               .maxResults(2);
+         Iterable<StorageMetadata> iterable = BlobStores.listAll(blobStore, containerName, containerOptions,
+                  ListAllOptions.Builder.parallel(3, executor));
+         Iterable<String> iterableNames = Iterables.transform(iterable, new Function<StorageMetadata, String>() {
+            @Override
+            public String apply(StorageMetadata input) {
+               return input.getName();
+            }
+         });
+         assertEquals(Iterables.size(iterableNames), expectedNames.size());
+         assertEquals(ImmutableSet.copyOf(iterableNames), expectedNames);
+      } finally {
+         if (blobStore != null)
+            blobStore.deleteContainer(containerName);
+         context.close();
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testPrefetchRequestsNextPageWhileCurrentOneIsConsumed() throws Exception {
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      try {
+         BlobStore blobStore = createMock(BlobStore.class);
+         ListContainerOptions options = ListContainerOptions.Builder.maxResults(2);
+         ListContainerOptions options2 = ListContainerOptions.Builder.maxResults(2).afterMarker("marker1");
+         StorageMetadata v1 = createMock(StorageMetadata.class);
+         StorageMetadata v2 = createMock(StorageMetadata.class);
+         StorageMetadata v3 = createMock(StorageMetadata.class);
+         final PageSet<StorageMetadata> pageSet = new PageSetImpl<StorageMetadata>(ImmutableList.of(v1, v2),
+               "marker1");
+         final PageSet<StorageMetadata> pageSet2 = new PageSetImpl<StorageMetadata>(ImmutableList.of(v3), null);
+         final CountDownLatch secondPageRequested = new CountDownLatch(1);
+
+         EasyMock.<PageSet<? extends StorageMetadata>> expect(blobStore.list(containerName, options))
+               .andReturn(pageSet).once();
+         EasyMock.<PageSet<? extends StorageMetadata>> expect(blobStore.list(containerName, options2))
+               .andAnswer(new IAnswer<PageSet<? extends StorageMetadata>>() {
+                  @Override
+                  public PageSet<? extends StorageMetadata> answer() {
+                     secondPageRequested.countDown();
+                     return pageSet2;
+                  }
+               }).once();
+         EasyMock.replay(blobStore);
+
+         Iterator<StorageMetadata> iterator = BlobStores.listAll(blobStore, containerName, options,
+                  ListAllOptions.Builder.prefetch(1, executor)).iterator();
+         assertEquals(iterator.next(), v1);
+         // v2 of the first page has not been taken yet
+         assertTrue(secondPageRequested.await(10, TimeUnit.SECONDS), "second page was not prefetched");
+         assertEquals(iterator.next(), v2);
+         assertEquals(iterator.next(), v3);
+         assertFalse(iterator.hasNext());
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
    private void runListAllFromTransientBlobStore(boolean eager) throws Exception {
+      runListAllFromTransientBlobStore(ListAllOptions.Builder.eager(eager));
+   }
+
+   private void runListAllFromTransientBlobStore(ListAllOptions listAllOptions) throws Exception {
       final int numTimesToIterate = 2;
       final int NUM_BLOBS = 31;
       ListContainerOptions containerOptions = ListContainerOptions.Builder.maxResults(10);
@@ -100,7 +250,6 @@ public class BlobStoresTest {
             expectedNames.add(blobName);
          }
 
-         ListAllOptions listAllOptions = ListAllOptions.Builder.eager(eager);
          Iterable<StorageMetadata> iterable = BlobStores.listAll(blobStore, containerName, containerOptions,
                   listAllOptions);
 
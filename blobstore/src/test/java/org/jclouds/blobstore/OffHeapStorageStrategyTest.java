@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jclouds.blobstore.options.GetOptions.Builder.range;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_TRANSIENT_EVICTION;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_TRANSIENT_OFFHEAP_CAPACITY;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+import com.google.inject.Injector;
+
+@Test(groups = "unit", testName = "OffHeapStorageStrategyTest")
+public class OffHeapStorageStrategyTest {
+   private static final String CONTAINER = "container";
+
+   public void testSelectedByCapacity() {
+      Injector onHeap = injector("0", "NONE");
+      Injector offHeap = injector("10", "NONE");
+      try {
+         assertThat(onHeap.getInstance(LocalStorageStrategy.class)).isExactlyInstanceOf(TransientStorageStrategy.class);
+         assertThat(offHeap.getInstance(LocalStorageStrategy.class)).isExactlyInstanceOf(OffHeapStorageStrategy.class);
+      } finally {
+         Closeables2.closeQuietly(onHeap.getInstance(BlobStoreContext.class));
+         Closeables2.closeQuietly(offHeap.getInstance(BlobStoreContext.class));
+      }
+   }
+
+   public void testReadRangeAndReplace() throws IOException {
+      Injector injector = injector("10", "NONE");
+      BlobStore blobStore = injector.getInstance(BlobStore.class);
+      OffHeapStorageStrategy strategy = (OffHeapStorageStrategy) injector.getInstance(LocalStorageStrategy.class);
+      try {
+         blobStore.createContainerInLocation(null, CONTAINER);
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder("blob").payload("abcdef").build());
+         assertThat(strategy.getUsed()).isEqualTo(6);
+         assertThat(read(blobStore.getBlob(CONTAINER, "blob"))).isEqualTo("abcdef");
+         Blob range = blobStore.getBlob(CONTAINER, "blob", range(2, 3));
+         assertThat(read(range)).isEqualTo("cd");
+
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder("blob").payload("ghij").build());
+         assertThat(strategy.getUsed()).isEqualTo(4);
+         blobStore.removeBlob(CONTAINER, "blob");
+         assertThat(strategy.getUsed()).isEqualTo(0);
+      } finally {
+         Closeables2.closeQuietly(blobStore.getContext());
+      }
+   }
+
+   public void testFullWithoutEviction() {
+      Injector injector = injector("10", "NONE");
+      BlobStore blobStore = injector.getInstance(BlobStore.class);
+      OffHeapStorageStrategy strategy = (OffHeapStorageStrategy) injector.getInstance(LocalStorageStrategy.class);
+      try {
+         blobStore.createContainerInLocation(null, CONTAINER);
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder("first").payload("123456").build());
+         try {
+            blobStore.putBlob(CONTAINER, blobStore.blobBuilder("second").payload("123456").build());
+            fail("expected the store to be full");
+         } catch (RuntimeException expected) {
+         }
+         assertThat(blobStore.blobExists(CONTAINER, "first")).isTrue();
+         assertThat(blobStore.blobExists(CONTAINER, "second")).isFalse();
+         assertThat(strategy.getUsed()).isEqualTo(6);
+      } finally {
+         Closeables2.closeQuietly(blobStore.getContext());
+      }
+   }
+
+   public void testLruEvictsLeastRecentlyRead() {
+      BlobStore blobStore = injector("10", "LRU").getInstance(BlobStore.class);
+      try {
+         blobStore.createContainerInLocation(null, CONTAINER);
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder("first").payload("1234").build());
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder("second").payload("1234").build());
+         blobStore.getBlob(CONTAINER, "first");
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder("third").payload("1234").build());
+         assertThat(blobStore.blobExists(CONTAINER, "first")).isTrue();
+         assertThat(blobStore.blobExists(CONTAINER, "second")).isFalse();
+         assertThat(blobStore.blobExists(CONTAINER, "third")).isTrue();
+      } finally {
+         Closeables2.closeQuietly(blobStore.getContext());
+      }
+   }
+
+   public void testFifoEvictsOldest() {
+      BlobStore blobStore = injector("10", "FIFO").getInstance(BlobStore.class);
+      try {
+         blobStore.createContainerInLocation(null, CONTAINER);
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder("first").payload("1234").build());
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder("second").payload("1234").build());
+         blobStore.getBlob(CONTAINER, "first");
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder("third").payload("1234").build());
+         assertThat(blobStore.blobExists(CONTAINER, "first")).isFalse();
+         assertThat(blobStore.blobExists(CONTAINER, "second")).isTrue();
+         assertThat(blobStore.blobExists(CONTAINER, "third")).isTrue();
+      } finally {
+         Closeables2.closeQuietly(blobStore.getContext());
+      }
+   }
+
+   private static Injector injector(String capacity, String eviction) {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_TRANSIENT_OFFHEAP_CAPACITY, capacity);
+      overrides.setProperty(PROPERTY_TRANSIENT_EVICTION, eviction);
+      return ContextBuilder.newBuilder("transient").overrides(overrides).buildInjector();
+   }
+
+   private static String read(Blob blob) throws IOException {
+      return new String(ByteStreams.toByteArray(blob.getPayload().openStream()), "UTF-8");
+   }
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.internal;
+
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MULTIPART_CHECKPOINT_DIR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Executors;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.strategy.MultipartCheckpointStore;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.io.ByteStreams2;
+import org.jclouds.io.payloads.ByteArrayPayload;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "BaseBlobStoreMultipartTest", singleThreaded = true)
+public class BaseBlobStoreMultipartTest {
+   private static final String containerName = "container";
+   private static final String blobName = "blob";
+   private static final int partSize = 1000;
+
+   private BlobStoreContext context;
+   private InMemoryMultipartBlobStore blobStore;
+   private ListeningExecutorService executor;
+   private File checkpointDir;
+
+   @BeforeMethod
+   void setupBlobStore() {
+      checkpointDir = Files.createTempDir();
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MULTIPART_CHECKPOINT_DIR, checkpointDir.getPath());
+      context = ContextBuilder.newBuilder("transient").overrides(overrides).build(BlobStoreContext.class);
+      blobStore = new InMemoryMultipartBlobStore(context, partSize);
+      blobStore.partBuffers = 2;
+      blobStore.checkpoints = context.utils().injector().getInstance(MultipartCheckpointStore.class);
+      blobStore.createContainerInLocation(null, containerName);
+      executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+   }
+
+   @AfterMethod
+   void close() {
+      context.close();
+      executor.shutdownNow();
+      for (File file : checkpointDir.listFiles()) {
+         file.delete();
+      }
+      checkpointDir.delete();
+   }
+
+   public void testStreamingUploadOfWholeParts() throws IOException {
+      byte[] content = content(3 * partSize);
+      blobStore.putMultipartBlob(containerName, streamingBlob(content), new PutOptions().multipart(), executor);
+
+      assertEquals(ImmutableSet.copyOf(blobStore.uploadedParts), ImmutableSet.of(1, 2, 3));
+      assertEquals(blobStore.uploadedParts.size(), 3);
+      assertEquals(storedContent(), content);
+      assertTrue(blobStore.uploadsInProgress().isEmpty());
+   }
+
+   public void testStreamingUploadEndsWithShortPart() throws IOException {
+      byte[] content = content(4 * partSize + 17);
+      blobStore.putMultipartBlob(containerName, streamingBlob(content), new PutOptions().multipart(), executor);
+
+      assertEquals(ImmutableSet.copyOf(blobStore.uploadedParts), ImmutableSet.of(1, 2, 3, 4, 5));
+      assertEquals(blobStore.uploadedParts.size(), 5);
+      assertEquals(storedContent(), content);
+   }
+
+   public void testStreamingUploadSmallerThanPart() throws IOException {
+      byte[] content = content(partSize / 2);
+      blobStore.putMultipartBlob(containerName, streamingBlob(content), new PutOptions().multipart(), executor);
+
+      assertEquals(blobStore.uploadedParts, ImmutableList.of(1));
+      assertEquals(storedContent(), content);
+   }
+
+   public void testStreamingUploadAbortsWhenPartFails() {
+      blobStore.failingParts.add(2);
+      try {
+         blobStore.putMultipartBlob(containerName, streamingBlob(content(6 * partSize)), new PutOptions().multipart(),
+               executor);
+         fail("expected PartFailedException");
+      } catch (RuntimeException expected) {
+         assertTrue(Throwables.getRootCause(expected) instanceof InMemoryMultipartBlobStore.PartFailedException,
+               Throwables.getStackTraceAsString(expected));
+      }
+      assertFalse(blobStore.uploadedParts.contains(2));
+      assertEquals(blobStore.abortedUploads.size(), 1);
+      assertTrue(blobStore.uploadsInProgress().isEmpty());
+      assertFalse(blobStore.blobExists(containerName, blobName));
+   }
+
+   public void testStreamingUploadPlansPartsForKnownLength() {
+      blobStore.maximumPartSize = Long.MAX_VALUE;
+      // 12800 parts of the default size are too many; larger planned parts cannot be buffered
+      Blob blob = blobStore.blobBuilder(blobName).payload(new ByteArrayInputStream(new byte[0]))
+            .contentLength(400L * 1024 * 1024 * 1024).build();
+      try {
+         blobStore.putMultipartBlob(containerName, blob, new PutOptions().multipart(), executor);
+         fail("expected IllegalArgumentException");
+      } catch (IllegalArgumentException expected) {
+      }
+      assertTrue(blobStore.uploadsInProgress().isEmpty());
+      assertTrue(blobStore.uploadedParts.isEmpty());
+   }
+
+   public void testResumeSendsOnlyMissingParts() throws IOException {
+      resumeAfterFailedPart(true);
+   }
+
+   public void testResumeWithProviderNotReportingPartSizes() throws IOException {
+      resumeAfterFailedPart(false);
+   }
+
+   private void resumeAfterFailedPart(boolean reportsPartSizes) throws IOException {
+      blobStore.reportsPartSizes = reportsPartSizes;
+      byte[] content = content(5 * partSize + 17);
+      failPartOfResumableUpload(content, 3);
+      assertNotNull(blobStore.checkpoints.get(containerName, blobName));
+
+      blobStore.failingParts.clear();
+      blobStore.uploadedParts.clear();
+      blobStore.putMultipartBlob(containerName, resumableBlob(content), new PutOptions().resumable(), executor);
+
+      assertEquals(blobStore.uploadedParts, ImmutableList.of(3));
+      assertEquals(storedContent(), content);
+      assertTrue(blobStore.abortedUploads.isEmpty());
+      assertNull(blobStore.checkpoints.get(containerName, blobName));
+   }
+
+   public void testResumeSendsAgainPartWithChangedETag() throws IOException {
+      blobStore.reportsPartSizes = false;
+      byte[] content = content(5 * partSize + 17);
+      failPartOfResumableUpload(content, 3);
+      // the provider now has other content for part 2 than the checkpoint recorded
+      MultipartUpload mpu = Iterables.getOnlyElement(blobStore.uploadsInProgress());
+      blobStore.uploadMultipartPart(mpu, 2, new ByteArrayPayload(content(partSize)));
+
+      blobStore.failingParts.clear();
+      blobStore.uploadedParts.clear();
+      blobStore.putMultipartBlob(containerName, resumableBlob(content), new PutOptions().resumable(), executor);
+
+      assertEquals(ImmutableSet.copyOf(blobStore.uploadedParts), ImmutableSet.of(2, 3));
+      assertEquals(blobStore.uploadedParts.size(), 2);
+      assertEquals(storedContent(), content);
+   }
+
+   public void testResumeWithOtherPayloadStartsOver() throws IOException {
+      failPartOfResumableUpload(content(5 * partSize + 17), 3);
+      MultipartUpload previous = Iterables.getOnlyElement(blobStore.uploadsInProgress());
+
+      byte[] content = content(5 * partSize + 18);
+      blobStore.failingParts.clear();
+      blobStore.uploadedParts.clear();
+      blobStore.putMultipartBlob(containerName, resumableBlob(content), new PutOptions().resumable(), executor);
+
+      assertEquals(blobStore.uploadedParts.size(), 6);
+      assertEquals(blobStore.abortedUploads, ImmutableList.of(previous.id()));
+      assertEquals(storedContent(), content);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testResumableRejectsPayloadWithoutFingerprint() {
+      Blob blob = blobStore.blobBuilder(blobName).payload(ByteSource.wrap(content(2 * partSize)))
+            .contentLength(2 * partSize).build();
+      blobStore.putMultipartBlob(containerName, blob, new PutOptions().resumable(), executor);
+   }
+
+   private void failPartOfResumableUpload(byte[] content, int partNumber) {
+      blobStore.failingParts.add(partNumber);
+      try {
+         // upload in the calling thread, so that every part has been tried once this returns
+         blobStore.putMultipartBlob(containerName, resumableBlob(content), new PutOptions().resumable(),
+               MoreExecutors.sameThreadExecutor());
+         fail("expected PartFailedException");
+      } catch (RuntimeException expected) {
+         assertTrue(Throwables.getRootCause(expected) instanceof InMemoryMultipartBlobStore.PartFailedException,
+               Throwables.getStackTraceAsString(expected));
+      }
+      assertTrue(blobStore.abortedUploads.isEmpty());
+      assertEquals(blobStore.uploadsInProgress().size(), 1);
+   }
+
+   public void testCopyMultipartBlobEndsWithShortPart() throws IOException {
+      byte[] content = content(5 * partSize + 17);
+      blobStore.putBlob(containerName, blobStore.blobBuilder(blobName).payload(content).build());
+
+      blobStore.copyMultipartBlob(containerName, blobName, blobStore.blobMetadata(containerName, blobName),
+            containerName, "copy", CopyOptions.NONE, executor);
+
+      assertEquals(blobStore.partSizes, ImmutableMap.builder().put(1, partSize).put(2, partSize).put(3, partSize)
+            .put(4, partSize).put(5, partSize).put(6, 17).build());
+      assertEquals(storedContent("copy"), content);
+      assertTrue(blobStore.uploadsInProgress().isEmpty());
+   }
+
+   public void testCopyMultipartBlobAbortsWhenPartFails() {
+      blobStore.putBlob(containerName, blobStore.blobBuilder(blobName).payload(content(5 * partSize)).build());
+      blobStore.failingParts.add(2);
+      try {
+         blobStore.copyMultipartBlob(containerName, blobName, blobStore.blobMetadata(containerName, blobName),
+               containerName, "copy", CopyOptions.NONE, executor);
+         fail("expected PartFailedException");
+      } catch (RuntimeException expected) {
+         assertTrue(Throwables.getRootCause(expected) instanceof InMemoryMultipartBlobStore.PartFailedException,
+               Throwables.getStackTraceAsString(expected));
+      }
+      assertEquals(blobStore.abortedUploads.size(), 1);
+      assertTrue(blobStore.uploadsInProgress().isEmpty());
+      assertFalse(blobStore.blobExists(containerName, "copy"));
+   }
+
+   public void testCopyMultipartPartRejectsRangeOfWrongLength() {
+      InMemoryMultipartBlobStore ignoresRanges = new InMemoryMultipartBlobStore(context, partSize) {
+         @Override
+         public Blob getBlob(String container, String name, GetOptions options) {
+            return super.getBlob(container, name, GetOptions.NONE);
+         }
+      };
+      ignoresRanges.putBlob(containerName, ignoresRanges.blobBuilder(blobName).payload(content(3 * partSize))
+            .build());
+      try {
+         ignoresRanges.copyMultipartBlob(containerName, blobName, ignoresRanges.blobMetadata(containerName, blobName),
+               containerName, "copy", CopyOptions.NONE, executor);
+         fail("expected IllegalStateException");
+      } catch (RuntimeException expected) {
+         assertTrue(Throwables.getRootCause(expected) instanceof IllegalStateException,
+               Throwables.getStackTraceAsString(expected));
+      }
+      assertTrue(ignoresRanges.uploadedParts.isEmpty());
+      assertEquals(ignoresRanges.abortedUploads.size(), 1);
+   }
+
+   public void testCopyMultipartPartOfChangedSource() {
+      blobStore.putBlob(containerName, blobStore.blobBuilder(blobName).payload(content(3 * partSize)).build());
+      BlobMetadata source = blobStore.blobMetadata(containerName, blobName);
+      MultipartUpload mpu = blobStore.initiateMultipartUpload(containerName, source, new PutOptions());
+      blobStore.putBlob(containerName, blobStore.blobBuilder(blobName).payload(content(3 * partSize + 1)).build());
+      try {
+         blobStore.copyMultipartPart(mpu, 1, containerName, blobName, source.getETag(), 0, partSize);
+         fail("expected HttpResponseException");
+      } catch (HttpResponseException expected) {
+         assertEquals(expected.getResponse().getStatusCode(), 412);
+      }
+      assertTrue(blobStore.uploadedParts.isEmpty());
+   }
+
+   private static byte[] content(int length) {
+      byte[] content = new byte[length];
+      new Random(length).nextBytes(content);
+      return content;
+   }
+
+   /** A blob of unknown length that can only be read once. */
+   private Blob streamingBlob(byte[] content) {
+      return blobStore.blobBuilder(blobName).payload(new ByteArrayInputStream(content)).build();
+   }
+
+   /** A repeatable blob of known length and Content-MD5. */
+   private Blob resumableBlob(byte[] content) {
+      return blobStore.blobBuilder(blobName).payload(content).contentMD5(Hashing.md5().hashBytes(content)).build();
+   }
+
+   private byte[] storedContent() throws IOException {
+      return storedContent(blobName);
+   }
+
+   private byte[] storedContent(String name) throws IOException {
+      return ByteStreams2.toByteArrayAndClose(blobStore.getBlob(containerName, name).getPayload().openStream());
+   }
+}
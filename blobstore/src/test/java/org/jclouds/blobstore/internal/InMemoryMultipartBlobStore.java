@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.internal;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.BlobUtils;
+import org.jclouds.domain.Location;
+import org.jclouds.io.ByteStreams2;
+import org.jclouds.io.Payload;
+import org.jclouds.io.PayloadSlicer;
+
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Bytes;
+
+/**
+ * A {@link BaseBlobStore} whose multipart uploads are kept in memory, with fixed-size parts, so
+ * that tests can drive its multipart strategies; everything else is delegated to another store.
+ */
+class InMemoryMultipartBlobStore extends BaseBlobStore {
+
+   /** Thrown by the upload of a part listed in {@link #failingParts}. */
+   static final class PartFailedException extends RuntimeException {
+      PartFailedException(int partNumber) {
+         super("part " + partNumber + " failed");
+      }
+   }
+
+   private final BlobStore delegate;
+   private final long partSize;
+   private final ConcurrentMap<String, MultipartUpload> inProgress = Maps.newConcurrentMap();
+   private final ConcurrentMap<String, SortedMap<Integer, byte[]>> parts = Maps.newConcurrentMap();
+
+   /** Part numbers whose uploads fail. */
+   final Set<Integer> failingParts = new CopyOnWriteArraySet<Integer>();
+   /** Part numbers in the order they were uploaded. */
+   final List<Integer> uploadedParts = Collections.synchronizedList(Lists.<Integer> newArrayList());
+   /** Sizes of the uploaded parts, by part number. */
+   final Map<Integer, Integer> partSizes = Maps.newConcurrentMap();
+   /** Ids of the aborted uploads. */
+   final List<String> abortedUploads = Collections.synchronizedList(Lists.<String> newArrayList());
+   /** The largest part size the store accepts; parts are otherwise of the one configured size. */
+   long maximumPartSize;
+   /** Whether {@link #listMultipartUpload} reports the size of the parts, or -1 as some providers do. */
+   boolean reportsPartSizes = true;
+
+   InMemoryMultipartBlobStore(BlobStoreContext context, long partSize) {
+      super(context, context.utils().injector().getInstance(BlobUtils.class), Suppliers.<Location> ofInstance(null),
+            Suppliers.<Set<? extends Location>> ofInstance(ImmutableSet.<Location> of()),
+            context.utils().injector().getInstance(PayloadSlicer.class));
+      this.delegate = context.getBlobStore();
+      this.partSize = partSize;
+      this.maximumPartSize = partSize;
+   }
+
+   Set<MultipartUpload> uploadsInProgress() {
+      return ImmutableSet.copyOf(inProgress.values());
+   }
+
+   @Override
+   public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blob, PutOptions options) {
+      MultipartUpload mpu = MultipartUpload.create(container, blob.getName(), UUID.randomUUID().toString(), blob,
+            options);
+      parts.put(mpu.id(), Collections.synchronizedSortedMap(Maps.<Integer, byte[]> newTreeMap()));
+      inProgress.put(mpu.id(), mpu);
+      return mpu;
+   }
+
+   @Override
+   public void abortMultipartUpload(MultipartUpload mpu) {
+      abortedUploads.add(mpu.id());
+      inProgress.remove(mpu.id());
+      parts.remove(mpu.id());
+   }
+
+   @Override
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> completed) {
+      Map<Integer, byte[]> uploaded = parts.get(mpu.id());
+      List<byte[]> content = Lists.newArrayList();
+      for (MultipartPart part : completed) {
+         content.add(uploaded.get(part.partNumber()));
+      }
+      inProgress.remove(mpu.id());
+      parts.remove(mpu.id());
+      return delegate.putBlob(mpu.containerName(), blobBuilder(mpu.blobName())
+            .payload(Bytes.concat(content.toArray(new byte[content.size()][]))).build());
+   }
+
+   @Override
+   public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+      if (failingParts.contains(partNumber)) {
+         throw new PartFailedException(partNumber);
+      }
+      byte[] content;
+      try {
+         content = ByteStreams2.toByteArrayAndClose(payload.openStream());
+      } catch (IOException ioe) {
+         throw Throwables.propagate(ioe);
+      }
+      SortedMap<Integer, byte[]> uploaded = parts.get(mpu.id());
+      checkState(uploaded != null, "no upload %s in progress", mpu.id());
+      uploaded.put(partNumber, content);
+      uploadedParts.add(partNumber);
+      partSizes.put(partNumber, content.length);
+      return MultipartPart.create(partNumber, content.length, eTag(content));
+   }
+
+   @Override
+   public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+      ImmutableList.Builder<MultipartPart> listed = ImmutableList.builder();
+      SortedMap<Integer, byte[]> uploaded = parts.get(mpu.id());
+      synchronized (uploaded) {
+         for (Map.Entry<Integer, byte[]> part : uploaded.entrySet()) {
+            listed.add(MultipartPart.create(part.getKey(), reportsPartSizes ? part.getValue().length : -1,
+                  eTag(part.getValue())));
+         }
+      }
+      return listed.build();
+   }
+
+   @Override
+   public List<MultipartUpload> listMultipartUploads(String container) {
+      ImmutableList.Builder<MultipartUpload> listed = ImmutableList.builder();
+      for (MultipartUpload mpu : inProgress.values()) {
+         if (mpu.containerName().equals(container)) {
+            listed.add(mpu);
+         }
+      }
+      return listed.build();
+   }
+
+   @Override
+   public long getMinimumMultipartPartSize() {
+      return partSize;
+   }
+
+   @Override
+   public long getMaximumMultipartPartSize() {
+      return maximumPartSize;
+   }
+
+   @Override
+   public int getMaximumNumberOfParts() {
+      return 10000;
+   }
+
+   static String eTag(byte[] content) {
+      return Hashing.md5().hashBytes(content).toString();
+   }
+
+   @Override
+   protected boolean deleteAndVerifyContainerGone(String container) {
+      delegate.deleteContainer(container);
+      return !delegate.containerExists(container);
+   }
+
+   @Override
+   public PageSet<? extends StorageMetadata> list() {
+      return delegate.list();
+   }
+
+   @Override
+   public boolean containerExists(String container) {
+      return delegate.containerExists(container);
+   }
+
+   @Override
+   public boolean createContainerInLocation(Location location, String container) {
+      return delegate.createContainerInLocation(location, container);
+   }
+
+   @Override
+   public boolean createContainerInLocation(Location location, String container, CreateContainerOptions options) {
+      return delegate.createContainerInLocation(location, container, options);
+   }
+
+   @Override
+   public ContainerAccess getContainerAccess(String container) {
+      return delegate.getContainerAccess(container);
+   }
+
+   @Override
+   public void setContainerAccess(String container, ContainerAccess access) {
+      delegate.setContainerAccess(container, access);
+   }
+
+   @Override
+   public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+      return delegate.list(container, options);
+   }
+
+   @Override
+   public boolean blobExists(String container, String name) {
+      return delegate.blobExists(container, name);
+   }
+
+   @Override
+   public String putBlob(String container, Blob blob) {
+      return delegate.putBlob(container, blob);
+   }
+
+   @Override
+   public String putBlob(String container, Blob blob, PutOptions options) {
+      return delegate.putBlob(container, blob, options);
+   }
+
+   @Override
+   public BlobMetadata blobMetadata(String container, String name) {
+      return delegate.blobMetadata(container, name);
+   }
+
+   @Override
+   public Blob getBlob(String container, String name, GetOptions options) {
+      return delegate.getBlob(container, name, options);
+   }
+
+   @Override
+   public void removeBlob(String container, String name) {
+      delegate.removeBlob(container, name);
+   }
+
+   @Override
+   public BlobAccess getBlobAccess(String container, String name) {
+      return delegate.getBlobAccess(container, name);
+   }
+
+   @Override
+   public void setBlobAccess(String container, String name, BlobAccess access) {
+      delegate.setBlobAccess(container, name, access);
+   }
+}
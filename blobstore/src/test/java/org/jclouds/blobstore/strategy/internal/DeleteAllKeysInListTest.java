@@ -33,6 +33,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
@@ -44,6 +45,7 @@ import org.jclouds.util.Closeables2;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -52,6 +54,7 @@ import org.testng.annotations.Test;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Injector;
 
 @Test(testName = "DeleteAllKeysInListTest", singleThreaded = true)
@@ -98,6 +101,34 @@ public class DeleteAllKeysInListTest {
       assertEquals(blobstore.countBlobs(containerName), 1111);
    }
 
+   public void testBatchSize() {
+      assertEquals(deleter(1024).batchSize(1000), 1);
+      assertEquals(deleter(4).batchSize(1000), 250);
+      assertEquals(deleter(4).batchSize(3), 1);
+      assertEquals(deleter(1).batchSize(5000), DeleteAllKeysInList.MAX_BATCH_SIZE);
+   }
+
+   public void testExecuteRemovesBlobsInBatches() {
+      final AtomicInteger batches = new AtomicInteger();
+      BlobStore countingBlobStore = new ForwardingBlobStore(blobstore) {
+         @Override
+         public void removeBlobs(String container, Iterable<String> names) {
+            batches.incrementAndGet();
+            super.removeBlobs(container, names);
+         }
+      };
+      new DeleteAllKeysInList(MoreExecutors.sameThreadExecutor(), countingBlobStore, retryHandler, 4)
+            .execute(containerName);
+      assertEquals(blobstore.countBlobs(containerName), 0);
+      // pages of up to 1000 blobs are split in 4 batches
+      assertTrue(batches.get() >= 3333 / DeleteAllKeysInList.MAX_BATCH_SIZE * 4, "batches: " + batches);
+      assertTrue(batches.get() < 3333 / 100, "batches: " + batches);
+   }
+
+   private DeleteAllKeysInList deleter(int maxParallelDeletes) {
+      return new DeleteAllKeysInList(MoreExecutors.sameThreadExecutor(), blobstore, retryHandler, maxParallelDeletes);
+   }
+
    public void testContainerNotFound() {
       IMocksControl mockControl = createControl();
       BlobStore blobStore = mockControl.createMock(BlobStore.class);
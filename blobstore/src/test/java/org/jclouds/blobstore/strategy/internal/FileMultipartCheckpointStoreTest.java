@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jclouds.blobstore.domain.MultipartCheckpoint;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.domain.Credentials;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+@Test(testName = "FileMultipartCheckpointStoreTest", singleThreaded = true)
+public class FileMultipartCheckpointStoreTest {
+   private File directory;
+   private FileMultipartCheckpointStore store;
+
+   @BeforeMethod
+   void createStore() {
+      directory = Files.createTempDir();
+      store = newStore("provider", "https://endpoint", "identity");
+   }
+
+   private FileMultipartCheckpointStore newStore(String provider, String endpoint, String identity) {
+      FileMultipartCheckpointStore store = new FileMultipartCheckpointStore(provider, endpoint,
+            Suppliers.ofInstance(new Credentials(identity, "credential")));
+      store.directory = directory.getPath();
+      return store;
+   }
+
+   @AfterMethod
+   void deleteDirectory() {
+      for (File file : directory.listFiles()) {
+         file.delete();
+      }
+      directory.delete();
+   }
+
+   public void testNoCheckpoint() {
+      assertNull(store.get("container", "blob"));
+   }
+
+   public void testRecordsParts() {
+      store.start("container", "blob", "upload-1", "100 50");
+      store.partCompleted("container", "blob", MultipartPart.create(2, 50, "\"etag2\""));
+      store.partCompleted("container", "blob", MultipartPart.create(1, 50, "\"etag1\""));
+
+      assertEquals(store.get("container", "blob"), MultipartCheckpoint.create("upload-1", "100 50",
+            ImmutableList.of(MultipartPart.create(2, 50, "\"etag2\""), MultipartPart.create(1, 50, "\"etag1\""))));
+      assertNull(store.get("container", "other"));
+   }
+
+   public void testStartReplacesCheckpoint() {
+      store.start("container", "blob", "upload-1", "100 50");
+      store.partCompleted("container", "blob", MultipartPart.create(1, 50, "\"etag1\""));
+      store.start("container", "blob", "upload-2", "200 50");
+
+      assertEquals(store.get("container", "blob"), MultipartCheckpoint.create("upload-2", "200 50",
+            ImmutableList.<MultipartPart> of()));
+   }
+
+   public void testIgnoresIncompleteLine() throws IOException {
+      store.start("container", "blob", "upload-1", "100 50");
+      store.partCompleted("container", "blob", MultipartPart.create(1, 50, "\"etag1\""));
+      File file = directory.listFiles()[0];
+      Files.append("2 50 \"eta", file, UTF_8);
+
+      assertEquals(store.get("container", "blob").parts(), ImmutableList.of(MultipartPart.create(1, 50, "\"etag1\"")));
+   }
+
+   public void testSeparatesContexts() {
+      store.start("container", "blob", "upload-1", "100 50");
+
+      assertNull(newStore("other", "https://endpoint", "identity").get("container", "blob"));
+      assertNull(newStore("provider", "https://other", "identity").get("container", "blob"));
+      assertNull(newStore("provider", "https://endpoint", "other").get("container", "blob"));
+      assertEquals(newStore("provider", "https://endpoint", "identity").get("container", "blob").uploadId(),
+            "upload-1");
+   }
+
+   public void testRemove() {
+      store.start("container", "blob", "upload-1", "100 50");
+      store.remove("container", "blob");
+      assertNull(store.get("container", "blob"));
+   }
+}
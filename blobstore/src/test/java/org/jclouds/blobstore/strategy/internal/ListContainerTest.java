@@ -29,6 +29,7 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.io.ByteSource;
 import com.google.inject.Injector;
@@ -160,6 +161,34 @@ public class ListContainerTest {
       assertThat(results.getNextMarker()).isEqualTo(null);
    }
 
+   public void testListPagesWithPrefix() {
+      String containerName = "testListPagesWithPrefix";
+      blobStore.createContainerInLocation(null, containerName);
+      for (String name : new String[] { "b1", "a3", "a1", "a5", "a2", "a4" }) {
+         blobStore.putBlob(containerName, blobStore.blobBuilder(name).payload("").build());
+      }
+
+      ListContainerOptions options = ListContainerOptions.Builder.prefix("a").recursive().maxResults(2);
+      PageSet<? extends StorageMetadata> results = blobStore.list(containerName, options);
+      assertThat(Iterables.transform(results, StorageMetadataName.INSTANCE)).containsExactly("a1", "a2");
+      assertThat(results.getNextMarker()).isEqualTo("a2");
+      results = blobStore.list(containerName, options.clone().afterMarker(results.getNextMarker()));
+      assertThat(Iterables.transform(results, StorageMetadataName.INSTANCE)).containsExactly("a3", "a4");
+      assertThat(results.getNextMarker()).isEqualTo("a4");
+      results = blobStore.list(containerName, options.clone().afterMarker(results.getNextMarker()));
+      assertThat(Iterables.transform(results, StorageMetadataName.INSTANCE)).containsExactly("a5");
+      assertThat(results.getNextMarker()).isNull();
+   }
+
+   private enum StorageMetadataName implements Function<StorageMetadata, String> {
+      INSTANCE;
+
+      @Override
+      public String apply(StorageMetadata input) {
+         return input.getName();
+      }
+   }
+
    public void testListBlobEndsWithDelimiter() {
       String containerName = "testListBlobEndsWithDelimiter";
       blobStore.createContainerInLocation(null, containerName);
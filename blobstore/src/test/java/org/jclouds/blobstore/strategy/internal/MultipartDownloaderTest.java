@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
+import org.jclouds.io.ByteStreams2;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(testName = "MultipartDownloaderTest", singleThreaded = true)
+public class MultipartDownloaderTest {
+   private static final String containerName = "container";
+   private static final String blobName = "blob";
+   private static final int partSize = 7000;
+
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+   private ListeningExecutorService executor;
+   private byte[] content;
+   private File destination;
+
+   @BeforeMethod
+   void setupBlobStore() throws IOException {
+      context = ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
+      blobStore = context.getBlobStore();
+      executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+      content = new byte[100 * 1000 + 17];
+      new Random(0).nextBytes(content);
+      blobStore.createContainerInLocation(null, containerName);
+      blobStore.putBlob(containerName, blobStore.blobBuilder(blobName).payload(content).build());
+      destination = File.createTempFile("MultipartDownloaderTest", ".bin");
+   }
+
+   @AfterMethod
+   void close() {
+      context.close();
+      executor.shutdownNow();
+      destination.delete();
+   }
+
+   public void testDownload() throws IOException {
+      new MultipartDownloader(blobStore, executor, partSize).download(containerName, blobName, destination);
+      assertEquals(Files.toByteArray(destination), content);
+   }
+
+   public void testDownloadSmallerThanPart() throws IOException {
+      new MultipartDownloader(blobStore, executor, content.length + 1).download(containerName, blobName,
+            destination);
+      assertEquals(Files.toByteArray(destination), content);
+   }
+
+   public void testDownloadBlob() throws IOException {
+      blobStore.downloadBlob(containerName, blobName, destination, executor);
+      assertEquals(Files.toByteArray(destination), content);
+   }
+
+   public void testRetriesTruncatedRange() throws IOException {
+      final AtomicInteger truncated = new AtomicInteger();
+      BlobStore flaky = new ForwardingBlobStore(blobStore) {
+         @Override
+         public Blob getBlob(String container, String name, GetOptions options) {
+            Blob blob = super.getBlob(container, name, options);
+            if (truncated.getAndIncrement() == 0) {
+               try {
+                  byte[] bytes = ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream());
+                  blob.setPayload(Arrays.copyOf(bytes, bytes.length / 2));
+               } catch (IOException e) {
+                  throw new AssertionError(e);
+               }
+            }
+            return blob;
+         }
+      };
+      new MultipartDownloader(flaky, executor, partSize).download(containerName, blobName, destination);
+      assertEquals(Files.toByteArray(destination), content);
+      assertEquals(truncated.get(), (content.length + partSize - 1) / partSize + 1);
+   }
+
+   public void testRangeIgnored() {
+      BlobStore rangeless = new ForwardingBlobStore(blobStore) {
+         @Override
+         public Blob getBlob(String container, String name, GetOptions options) {
+            return super.getBlob(container, name);
+         }
+      };
+      try {
+         new MultipartDownloader(rangeless, executor, partSize).download(containerName, blobName, destination);
+         fail("expected IOException");
+      } catch (RuntimeException expected) {
+         assertTrue(expected.getCause() instanceof IOException, expected.toString());
+      }
+      assertFalse(destination.exists());
+   }
+
+   public void testMissingBlob() {
+      try {
+         new MultipartDownloader(blobStore, executor, partSize).download(containerName, "missing", destination);
+         fail("expected KeyNotFoundException");
+      } catch (KeyNotFoundException expected) {
+      }
+      assertFalse(destination.exists());
+   }
+}
@@ -30,6 +30,14 @@ public final class Constants {
     */
    public static final String PROPERTY_USER_THREADS = "jclouds.user-threads";
 
+   /**
+    * Boolean property. default (false)
+    * <p/>
+    * Whether user requests and transformations run on a new virtual thread per task instead of a
+    * pool bounded by {@link #PROPERTY_USER_THREADS}. Requires Java 21.
+    */
+   public static final String PROPERTY_VIRTUAL_USER_THREADS = "jclouds.user-threads.virtual";
+
    /**
     * Integer property. default (20)
     * <p/>
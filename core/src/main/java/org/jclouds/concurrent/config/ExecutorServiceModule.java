@@ -18,6 +18,7 @@ package org.jclouds.concurrent.config;
 
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.Constants.PROPERTY_VIRTUAL_USER_THREADS;
 import static org.jclouds.concurrent.DynamicExecutors.newScalingThreadPool;
 
 import java.io.Closeable;
@@ -28,6 +29,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 
 import javax.annotation.Resource;
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
@@ -72,6 +74,16 @@ public class ExecutorServiceModule extends AbstractModule {
       }
    }
 
+   static final class VirtualUserThreads {
+      @com.google.inject.Inject(optional = true)
+      @Named(PROPERTY_VIRTUAL_USER_THREADS)
+      private boolean enabled = false;
+
+      @Inject
+      VirtualUserThreads() {
+      }
+   }
+
    final ListeningExecutorService userExecutorFromConstructor;
 
    public ExecutorServiceModule() {
@@ -119,9 +131,12 @@ public class ExecutorServiceModule extends AbstractModule {
    @Provides
    @Singleton
    @Named(PROPERTY_USER_THREADS)
-   final ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, Closer closer) { // NO_UCD
+   final ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count,
+         VirtualUserThreads virtual, Closer closer) { // NO_UCD
       if (userExecutorFromConstructor != null)
          return userExecutorFromConstructor;
+      if (virtual.enabled)
+         return shutdownOnClose(WithSubmissionTrace.wrap(newVirtualThreadPerTaskNamed("user thread ")), closer);
       return shutdownOnClose(WithSubmissionTrace.wrap(newThreadPoolNamed("user thread %d", count)), closer);
    }
 
@@ -149,6 +164,22 @@ public class ExecutorServiceModule extends AbstractModule {
       return listeningDecorator(newScalingThreadPool(1, maxCount, 60L * 1000, namedThreadFactory(name)));
    }
 
+   /**
+    * Looks up the Java 21 virtual thread API reflectively, as jclouds still runs on older JDKs.
+    */
+   private ListeningExecutorService newVirtualThreadPerTaskNamed(String prefix) {
+      try {
+         Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+         Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+         builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+         ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+         return listeningDecorator((ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor",
+               ThreadFactory.class).invoke(null, factory));
+      } catch (Exception e) {
+         throw new IllegalStateException(PROPERTY_VIRTUAL_USER_THREADS + " requires Java 21 or later", e);
+      }
+   }
+
    private ThreadFactory namedThreadFactory(String name) {
       return new ThreadFactoryBuilder().setNameFormat(name).setThreadFactory(Executors.defaultThreadFactory()).build();
    }
@@ -0,0 +1,428 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.date.internal;
+
+import java.util.Date;
+
+import javax.inject.Singleton;
+
+import org.jclouds.date.DateService;
+
+/**
+ * Formats and parses dates with arithmetic on the epoch, in UTC, rather than with a shared
+ * {@link java.text.SimpleDateFormat}. Threads never wait for each other, and no calendar is created
+ * per call.
+ * <p>
+ * Parsing accepts the variants the other implementations accept: ISO 8601 dates with a space
+ * instead of {@code T}, any number of fractional digits, and a zone of {@code Z}, {@code UTC},
+ * {@code +hh}, {@code +hhmm} or {@code +hh:mm} or none at all; and RFC 822, RFC 1123 and C dates
+ * in {@code GMT} or with a numeric offset. Day names are not checked against the date.
+ * <p>
+ * Unlike {@link SimpleDateFormatDateService}, which formats RFC 1123 dates in the default time zone
+ * of the JVM, this always formats them in UTC with a {@code +0000} offset. Outside UTC the text
+ * differs, but it denotes the same instant and parses back to the same date.
+ */
+@Singleton
+public class LockFreeDateService implements DateService {
+
+   private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat" };
+   private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct",
+         "Nov", "Dec" };
+   private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+   @Override
+   public final String cDateFormat(Date date) {
+      // EEE MMM dd HH:mm:ss Z yyyy
+      long millis = date.getTime();
+      long days = floorDiv(millis, MILLIS_PER_DAY);
+      int civil = civilFromDays(days);
+      StringBuilder builder = new StringBuilder(30);
+      builder.append(DAYS[dayOfWeek(days)]).append(' ').append(MONTHS[month(civil) - 1]).append(' ');
+      appendDigits(builder, day(civil), 2).append(' ');
+      appendTime(builder, millis - days * MILLIS_PER_DAY).append(" +0000 ");
+      return appendYear(builder, year(civil), 4).toString();
+   }
+
+   @Override
+   public final String cDateFormat() {
+      return cDateFormat(new Date());
+   }
+
+   @Override
+   public final Date cDateParse(String toParse) {
+      Parser parser = new Parser(toParse);
+      parser.skipDayName();
+      int month = parser.month();
+      parser.spaces();
+      int day = parser.digits(1, 2);
+      parser.spaces();
+      long millisOfDay = parser.time();
+      parser.spaces();
+      int offset = parser.zone();
+      parser.spaces();
+      int year = parser.digits(4, 5);
+      parser.end();
+      return parser.toDate(year, month, day, millisOfDay, offset);
+   }
+
+   @Override
+   public final String rfc822DateFormat(Date date) {
+      // EEE, dd MMM yyyy HH:mm:ss 'GMT'
+      return appendRfcDate(new StringBuilder(29), date.getTime(), 4).append(" GMT").toString();
+   }
+
+   @Override
+   public final String rfc822DateFormat() {
+      return rfc822DateFormat(new Date());
+   }
+
+   @Override
+   public final Date rfc822DateParse(String toParse) {
+      return parseRfcDate(toParse);
+   }
+
+   @Override
+   public final String iso8601SecondsDateFormat(Date date) {
+      // yyyy-MM-dd'T'HH:mm:ss'Z'
+      return appendIsoDate(new StringBuilder(20), date.getTime(), false).append('Z').toString();
+   }
+
+   @Override
+   public final String iso8601SecondsDateFormat() {
+      return iso8601SecondsDateFormat(new Date());
+   }
+
+   @Override
+   public final String iso8601DateFormat(Date date) {
+      // yyyy-MM-dd'T'HH:mm:ss.SSS'Z'
+      return appendIsoDate(new StringBuilder(24), date.getTime(), true).append('Z').toString();
+   }
+
+   @Override
+   public final String iso8601DateFormat() {
+      return iso8601DateFormat(new Date());
+   }
+
+   @Override
+   public final Date iso8601DateParse(String toParse) {
+      return parseIsoDate(toParse);
+   }
+
+   @Override
+   public final Date iso8601SecondsDateParse(String toParse) {
+      return parseIsoDate(toParse);
+   }
+
+   @Override
+   public final Date iso8601DateOrSecondsDateParse(String toParse) {
+      return parseIsoDate(toParse);
+   }
+
+   @Override
+   public final String rfc1123DateFormat(Date date) {
+      // EEE, dd MMM yyyyy HH:mm:ss Z, always in UTC
+      return appendRfcDate(new StringBuilder(31), date.getTime(), 5).append(" +0000").toString();
+   }
+
+   @Override
+   public final String rfc1123DateFormat() {
+      return rfc1123DateFormat(new Date());
+   }
+
+   @Override
+   public final Date rfc1123DateParse(String toParse) {
+      return parseRfcDate(toParse);
+   }
+
+   private static StringBuilder appendIsoDate(StringBuilder builder, long millis, boolean withMillis) {
+      long days = floorDiv(millis, MILLIS_PER_DAY);
+      int civil = civilFromDays(days);
+      appendYear(builder, year(civil), 4).append('-');
+      appendDigits(builder, month(civil), 2).append('-');
+      appendDigits(builder, day(civil), 2).append('T');
+      long millisOfDay = millis - days * MILLIS_PER_DAY;
+      appendTime(builder, millisOfDay);
+      if (withMillis)
+         appendDigits(builder.append('.'), (int) (millisOfDay % 1000), 3);
+      return builder;
+   }
+
+   private static StringBuilder appendRfcDate(StringBuilder builder, long millis, int yearWidth) {
+      long days = floorDiv(millis, MILLIS_PER_DAY);
+      int civil = civilFromDays(days);
+      builder.append(DAYS[dayOfWeek(days)]).append(", ");
+      appendDigits(builder, day(civil), 2).append(' ').append(MONTHS[month(civil) - 1]).append(' ');
+      appendYear(builder, year(civil), yearWidth).append(' ');
+      return appendTime(builder, millis - days * MILLIS_PER_DAY);
+   }
+
+   private static StringBuilder appendTime(StringBuilder builder, long millisOfDay) {
+      int seconds = (int) (millisOfDay / 1000);
+      appendDigits(builder, seconds / 3600, 2).append(':');
+      appendDigits(builder, seconds / 60 % 60, 2).append(':');
+      return appendDigits(builder, seconds % 60, 2);
+   }
+
+   private static StringBuilder appendYear(StringBuilder builder, int year, int width) {
+      if (year < 0)
+         builder.append('-');
+      return appendDigits(builder, Math.abs(year), width);
+   }
+
+   private static StringBuilder appendDigits(StringBuilder builder, int value, int width) {
+      for (int limit = 10, i = 1; i < width; limit *= 10, i++) {
+         if (value < limit)
+            builder.append('0');
+      }
+      return builder.append(value);
+   }
+
+   /**
+    * [Day-name[,]] day month year hh:mm:ss zone
+    */
+   private static Date parseRfcDate(String toParse) {
+      Parser parser = new Parser(toParse);
+      parser.skipDayName();
+      int day = parser.digits(1, 2);
+      parser.spaces();
+      int month = parser.month();
+      parser.spaces();
+      int year = parser.digits(4, 5);
+      parser.spaces();
+      long millisOfDay = parser.time();
+      parser.spaces();
+      int offset = parser.zone();
+      parser.end();
+      return parser.toDate(year, month, day, millisOfDay, offset);
+   }
+
+   /**
+    * yyyy-MM-dd('T'| )HH:mm:ss[.fraction][zone]
+    */
+   private static Date parseIsoDate(String toParse) {
+      Parser parser = new Parser(toParse);
+      int year = parser.digits(4, 4);
+      parser.expect('-');
+      int month = parser.digits(2, 2);
+      parser.expect('-');
+      int day = parser.digits(2, 2);
+      if (!parser.accept('T'))
+         parser.expect(' ');
+      long millisOfDay = parser.time();
+      if (parser.accept('.') || parser.accept(','))
+         millisOfDay += parser.fractionMillis();
+      int offset = parser.zone();
+      parser.end();
+      return parser.toDate(year, month, day, millisOfDay, offset);
+   }
+
+   /**
+    * Reads one date, failing with the position of the first character that does not fit.
+    */
+   private static final class Parser {
+      private final String text;
+      private int pos;
+
+      Parser(String text) {
+         this.text = text;
+      }
+
+      private IllegalArgumentException error() {
+         return new IllegalArgumentException("Error parsing data at " + pos + ": " + text);
+      }
+
+      private boolean isDigit() {
+         return pos < text.length() && text.charAt(pos) >= '0' && text.charAt(pos) <= '9';
+      }
+
+      int digits(int min, int max) {
+         int value = 0;
+         int start = pos;
+         while (pos - start < max && isDigit()) {
+            value = value * 10 + text.charAt(pos++) - '0';
+         }
+         if (pos - start < min)
+            throw error();
+         return value;
+      }
+
+      boolean accept(char c) {
+         if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+         }
+         return false;
+      }
+
+      boolean accept(String word) {
+         if (text.regionMatches(true, pos, word, 0, word.length())) {
+            pos += word.length();
+            return true;
+         }
+         return false;
+      }
+
+      void expect(char c) {
+         if (!accept(c))
+            throw error();
+      }
+
+      void spaces() {
+         if (!accept(' '))
+            throw error();
+         while (accept(' ')) {
+         }
+      }
+
+      void skipDayName() {
+         int start = pos;
+         while (pos < text.length() && Character.isLetter(text.charAt(pos))) {
+            pos++;
+         }
+         if (pos > start) {
+            accept(',');
+            spaces();
+         }
+      }
+
+      int month() {
+         for (int i = 0; i < MONTHS.length; i++) {
+            if (accept(MONTHS[i]))
+               return i + 1;
+         }
+         throw error();
+      }
+
+      long time() {
+         int hour = digits(2, 2);
+         expect(':');
+         int minute = digits(2, 2);
+         expect(':');
+         int second = digits(2, 2);
+         // a leap second is read as the first second of the next minute
+         if (hour > 23 || minute > 59 || second > 60)
+            throw error();
+         return ((hour * 60L + minute) * 60 + second) * 1000;
+      }
+
+      int fractionMillis() {
+         int millis = 0;
+         int start = pos;
+         while (isDigit()) {
+            if (pos - start < 3)
+               millis = millis * 10 + text.charAt(pos) - '0';
+            pos++;
+         }
+         if (pos == start)
+            throw error();
+         for (int i = pos - start; i < 3; i++) {
+            millis *= 10;
+         }
+         return millis;
+      }
+
+      /**
+       * Returns the offset from UTC in minutes; a missing zone is UTC.
+       */
+      int zone() {
+         if (accept('Z'))
+            return 0;
+         if (!accept("UTC"))
+            accept("GMT");
+         int sign;
+         if (accept('+'))
+            sign = 1;
+         else if (accept('-'))
+            sign = -1;
+         else
+            return 0;
+         int hours = digits(2, 2);
+         accept(':');
+         int minutes = isDigit() ? digits(2, 2) : 0;
+         if (hours > 23 || minutes > 59)
+            throw error();
+         return sign * (hours * 60 + minutes);
+      }
+
+      void end() {
+         if (pos != text.length())
+            throw error();
+      }
+
+      Date toDate(int year, int month, int day, long millisOfDay, int offsetMinutes) {
+         if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month))
+            throw new IllegalArgumentException("incorrect date format " + text);
+         return new Date(daysFromCivil(year, month, day) * MILLIS_PER_DAY + millisOfDay - offsetMinutes * 60000L);
+      }
+   }
+
+   private static long floorDiv(long x, long y) {
+      long q = x / y;
+      return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+   }
+
+   private static int dayOfWeek(long days) {
+      // 1970-01-01 was a Thursday
+      return (int) ((days % 7 + 11) % 7);
+   }
+
+   private static int daysInMonth(int year, int month) {
+      if (month == 2)
+         return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+      return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+   }
+
+   /*
+    * Conversions between days since the epoch and proleptic Gregorian dates, from Howard Hinnant's
+    * "chrono-Compatible Low-Level Date Algorithms". The date is packed into an int as year << 9,
+    * month << 5 and day, so that formatting does not allocate.
+    */
+
+   private static long daysFromCivil(int year, int month, int day) {
+      long y = month <= 2 ? year - 1 : year;
+      long era = (y >= 0 ? y : y - 399) / 400;
+      long yearOfEra = y - era * 400;
+      long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+      long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+      return era * 146097 + dayOfEra - 719468;
+   }
+
+   private static int civilFromDays(long days) {
+      long z = days + 719468;
+      long era = (z >= 0 ? z : z - 146096) / 146097;
+      long dayOfEra = z - era * 146097;
+      long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+      long mp = (5 * dayOfYear + 2) / 153;
+      int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+      int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+      int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+      return year << 9 | month << 5 | day;
+   }
+
+   private static int year(int civil) {
+      return civil >> 9;
+   }
+
+   private static int month(int civil) {
+      return civil >> 5 & 0xf;
+   }
+
+   private static int day(int civil) {
+      return civil & 0x1f;
+   }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http;
+
+import org.jclouds.http.internal.SubmitToUserExecutor;
+
+import com.google.common.annotations.Beta;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Capable of invoking http commands without tying a thread to each request in flight.
+ * <p>
+ * Retry, redirect and error handlers are applied as each response arrives. Drivers without a
+ * non-blocking transport fall back to running {@link HttpCommandExecutorService#invoke} on the
+ * user executor.
+ */
+@Beta
+@ImplementedBy(SubmitToUserExecutor.class)
+public interface AsyncHttpCommandExecutorService {
+
+   /**
+    * Returns a future {@code HttpResponse} from the server which responded to the
+    * {@code command}. The future fails with the exception {@link HttpCommandExecutorService#invoke}
+    * would have thrown.
+    */
+   ListenableFuture<HttpResponse> submit(HttpCommand command);
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Implemented by {@link HttpCommandExecutorService}s which can report on the connections they keep
+ * open. Counts are summed over all hosts.
+ */
+@Beta
+public interface HttpConnectionPoolStats {
+
+   /**
+    * Returns the number of open connections, in use or idle, or -1 if the driver cannot tell.
+    */
+   int getOpenConnections();
+
+   /**
+    * Returns the number of open connections waiting to be reused, or -1 if the driver cannot tell.
+    */
+   int getIdleConnections();
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Notified by HTTP drivers of each request attempt and connection, so that their use of
+ * connections can be measured. Methods are called on the threads doing the I/O and should return
+ * quickly.
+ * <p>
+ * Bind an implementation in a module passed to the context builder; see
+ * {@link org.jclouds.http.metrics.config.JmxHttpMetricsModule}.
+ */
+@Beta
+public interface HttpMetricsListener {
+
+   /**
+    * Called just before a request, after filtering, is handed to the transport.
+    */
+   void requestSent(HttpRequest request);
+
+   /**
+    * Called when the status line and headers of a response have arrived.
+    *
+    * @param nanos time since {@link #requestSent}
+    */
+   void responseReceived(HttpRequest request, HttpResponse response, long nanos);
+
+   /**
+    * Called when a request fails before a response arrives.
+    *
+    * @param nanos time since {@link #requestSent}
+    */
+   void requestFailed(HttpRequest request, Throwable cause, long nanos);
+
+   /**
+    * Called once per command, after its last attempt. Retries are counted by
+    * {@link HttpCommand#getFailureCount()} and redirects by {@link HttpCommand#getRedirectCount()}.
+    *
+    * @param response the final response, or null if the command failed
+    * @param nanos time since the command was first sent, including retries and redirects
+    */
+   void commandCompleted(HttpCommand command, @Nullable HttpResponse response, long nanos);
+
+   /**
+    * Called by drivers which open connections themselves, once a new connection is ready.
+    *
+    * @param host host and port the connection was opened to
+    * @param connectNanos time to establish the TCP connection
+    * @param handshakeNanos time of the TLS handshake, or 0 without TLS
+    */
+   void connectionOpened(String host, long connectNanos, long handshakeNanos);
+
+   HttpMetricsListener NONE = new HttpMetricsListener() {
+      @Override
+      public void requestSent(HttpRequest request) {
+      }
+
+      @Override
+      public void responseReceived(HttpRequest request, HttpResponse response, long nanos) {
+      }
+
+      @Override
+      public void requestFailed(HttpRequest request, Throwable cause, long nanos) {
+      }
+
+      @Override
+      public void commandCompleted(HttpCommand command, HttpResponse response, long nanos) {
+      }
+
+      @Override
+      public void connectionOpened(String host, long connectNanos, long handshakeNanos) {
+      }
+   };
+}
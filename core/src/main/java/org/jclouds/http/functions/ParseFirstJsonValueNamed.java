@@ -23,7 +23,6 @@ import java.io.InputStreamReader;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
 
@@ -36,7 +35,6 @@ import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.util.concurrent.Atomics;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.inject.TypeLiteral;
@@ -69,18 +67,12 @@ public class ParseFirstJsonValueNamed<T> implements Function<HttpResponse, T> {
          reader = new JsonReader(new InputStreamReader(arg0.getPayload().getInput()));
          // in case keys are not in quotes
          reader.setLenient(true);
-         AtomicReference<String> name = Atomics.newReference();
-         JsonToken token = reader.peek();
-         for (; token != JsonToken.END_DOCUMENT && nnn(reader, token, name); token = skipAndPeek(token, reader)) {
-         }
-         if (name.get() == null) {
+         String name = seekToValueNamed(reader, nameChoices);
+         if (name == null) {
             logger.trace("did not object named %s in json from response %s", nameChoices, arg0);
             return nothing();
-         } else if (nameChoices.contains(name.get())) {
-            return json.delegate().<T> fromJson(reader, type.getType());
-         } else {
-            return nothing();
          }
+         return json.delegate().<T> fromJson(reader, type.getType());
       } catch (IOException e) {
          throw new RuntimeException(String.format(
                "error reading from stream, parsing object named %s from http response %s", nameChoices, arg0), e);
@@ -101,19 +93,23 @@ public class ParseFirstJsonValueNamed<T> implements Function<HttpResponse, T> {
       return null;
    }
 
-   private boolean nnn(JsonReader reader, JsonToken token, AtomicReference<String> name) throws IOException {
-      if (token == JsonToken.NAME) {
-         String name2 = reader.nextName();
-         if (nameChoices.contains(name2)) {
-            name.set(name2);
-            return false;
+   /**
+    * Advances the reader past the first field, at any depth, whose name is one of the choices.
+    *
+    * @return the name of the field, or null if the document has none of the names
+    */
+   static String seekToValueNamed(JsonReader reader, Set<String> nameChoices) throws IOException {
+      for (JsonToken token = reader.peek(); token != JsonToken.END_DOCUMENT; token = skipAndPeek(token, reader)) {
+         if (token == JsonToken.NAME) {
+            String name = reader.nextName();
+            if (nameChoices.contains(name))
+               return name;
          }
       }
-      return true;
-
+      return null;
    }
 
-   private JsonToken skipAndPeek(JsonToken token, JsonReader reader) throws IOException {
+   private static JsonToken skipAndPeek(JsonToken token, JsonReader reader) throws IOException {
       switch (token) {
       case BEGIN_ARRAY:
          reader.beginArray();
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.http.HttpUtils.releasePayload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.json.internal.GsonWrapper;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Parses the elements of a json array in the body of an HttpResponse one at a time, as they are
+ * iterated, so that a large listing is never held in memory as a whole and elements can be
+ * processed while the rest of the body is still arriving. The array is either the whole body or,
+ * if names are given, the value of the first field with one of those names.
+ * <p>
+ * The payload is released once the iterator is exhausted or fails; callers that stop early must
+ * {@link JsonArrayIterator#close() close} it.
+ */
+public class ParseJsonArrayElements<T> implements Function<HttpResponse, ParseJsonArrayElements.JsonArrayIterator<T>> {
+
+   private final GsonWrapper json;
+   private final TypeLiteral<T> elementType;
+   private final ImmutableSet<String> nameChoices;
+
+   /**
+    * @param nameChoices
+    *           tried in order, first match wins; if none, the body itself must be an array
+    */
+   public ParseJsonArrayElements(GsonWrapper json, TypeLiteral<T> elementType, String... nameChoices) {
+      this.json = checkNotNull(json, "json");
+      this.elementType = checkNotNull(elementType, "elementType");
+      this.nameChoices = ImmutableSet.copyOf(checkNotNull(nameChoices, "nameChoices"));
+   }
+
+   @Override
+   public JsonArrayIterator<T> apply(HttpResponse from) {
+      if (from.getPayload() == null)
+         return new JsonArrayIterator<T>(json.delegate(), elementType.getType(), null, from);
+      JsonReader reader = new JsonReader(new InputStreamReader(from.getPayload().getInput(), UTF_8));
+      // in case keys are not in quotes
+      reader.setLenient(true);
+      try {
+         // a missing or null array has no elements
+         if ((!nameChoices.isEmpty() && ParseFirstJsonValueNamed.seekToValueNamed(reader, nameChoices) == null)
+               || reader.peek() != JsonToken.BEGIN_ARRAY) {
+            Closeables2.closeQuietly(reader);
+            reader = null;
+         } else {
+            reader.beginArray();
+         }
+      } catch (IOException e) {
+         Closeables2.closeQuietly(reader);
+         releasePayload(from);
+         throw new HttpResponseException("error reading json array from " + from, null, from, e);
+      }
+      return new JsonArrayIterator<T>(json.delegate(), elementType.getType(), reader, from);
+   }
+
+   /**
+    * Deserializes the next element of the array each time one is requested.
+    */
+   public static final class JsonArrayIterator<T> extends AbstractIterator<T> implements Closeable {
+      private final Gson gson;
+      private final Type elementType;
+      private final JsonReader reader;
+      private final HttpResponse response;
+
+      private JsonArrayIterator(Gson gson, Type elementType, JsonReader reader, HttpResponse response) {
+         this.gson = gson;
+         this.elementType = elementType;
+         this.reader = reader;
+         this.response = response;
+         if (reader == null)
+            releasePayload(response);
+      }
+
+      @Override
+      protected T computeNext() {
+         if (reader == null)
+            return endOfData();
+         // released at the end of the array, or on error
+         boolean release = true;
+         try {
+            if (reader.hasNext()) {
+               T next = gson.<T> fromJson(reader, elementType);
+               release = false;
+               return next;
+            }
+         } catch (IOException e) {
+            throw new HttpResponseException("error reading json array from " + response, null, response, e);
+         } finally {
+            if (release)
+               close();
+         }
+         return endOfData();
+      }
+
+      /**
+       * Releases the response payload, whether or not the array has been read to its end.
+       */
+      @Override
+      public void close() {
+         Closeables2.closeQuietly(reader);
+         releasePayload(response);
+      }
+   }
+}
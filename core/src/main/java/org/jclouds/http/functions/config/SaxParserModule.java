@@ -16,16 +16,26 @@
  */
 package org.jclouds.http.functions.config;
 
+import java.io.IOException;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.jclouds.http.functions.ParseSax;
 import org.jclouds.http.functions.ParseSax.HandlerWithResult;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
 import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
-import com.google.common.base.Throwables;
 import com.google.inject.AbstractModule;
 import com.google.inject.Injector;
 import com.google.inject.Provides;
@@ -43,6 +53,7 @@ public class SaxParserModule extends AbstractModule {
    static class Factory implements ParseSax.Factory {
       private final SAXParserFactory factory;
       private final Injector i;
+      private final ThreadLocal<XMLReader> readers = new ThreadLocal<XMLReader>();
 
       @Inject
       Factory(SAXParserFactory factory, Injector i) {
@@ -51,18 +62,140 @@ public class SaxParserModule extends AbstractModule {
       }
 
       public <T> ParseSax<T> create(HandlerWithResult<T> handler) {
-         SAXParser saxParser;
+         // TODO: switch to @AssistedInject
+         ParseSax<T> returnVal = new ParseSax<T>(new ThreadConfinedXMLReader(factory, readers), handler);
+         i.injectMembers(returnVal);
+         return returnVal;
+      }
+   }
+
+   /**
+    * Parses with an {@link XMLReader} kept for the calling thread, as creating a reader costs more
+    * than parsing a typical response. The content handler is set on the thread's reader for the
+    * duration of each parse. A reader is only kept after a parse that completed, and a parse nested
+    * in another on the same thread gets a reader of its own.
+    */
+   static final class ThreadConfinedXMLReader implements XMLReader {
+      private static final ContentHandler NO_CONTENT_HANDLER = new DefaultHandler();
+
+      private final SAXParserFactory factory;
+      private final ThreadLocal<XMLReader> readers;
+      private ContentHandler contentHandler;
+      private ErrorHandler errorHandler;
+      private EntityResolver entityResolver;
+      private DTDHandler dtdHandler;
+
+      ThreadConfinedXMLReader(SAXParserFactory factory, ThreadLocal<XMLReader> readers) {
+         this.factory = factory;
+         this.readers = readers;
+      }
+
+      @Override
+      public void parse(InputSource input) throws IOException, SAXException {
+         // other handlers cannot be unset, so a reader that had them is not reused
+         boolean reusable = errorHandler == null && entityResolver == null && dtdHandler == null;
+         XMLReader reader = reusable ? readers.get() : null;
+         if (reader != null)
+            readers.set(null);
+         else
+            reader = newReader();
+         if (errorHandler != null)
+            reader.setErrorHandler(errorHandler);
+         if (entityResolver != null)
+            reader.setEntityResolver(entityResolver);
+         if (dtdHandler != null)
+            reader.setDTDHandler(dtdHandler);
+         reader.setContentHandler(contentHandler != null ? contentHandler : NO_CONTENT_HANDLER);
+         boolean completed = false;
          try {
-            saxParser = factory.newSAXParser();
-            XMLReader parser = saxParser.getXMLReader();
-            // TODO: switch to @AssistedInject
-            ParseSax<T> returnVal = new ParseSax<T>(parser, handler);
-            i.injectMembers(returnVal);
-            return returnVal;
-         } catch (Exception e) {
-            throw Throwables.propagate(e);
+            reader.parse(input);
+            completed = true;
+         } finally {
+            // don't hold on to the handler, or the result it built
+            reader.setContentHandler(NO_CONTENT_HANDLER);
+            if (reusable && completed && readers.get() == null)
+               readers.set(reader);
          }
+      }
+
+      @Override
+      public void parse(String systemId) throws IOException, SAXException {
+         parse(new InputSource(systemId));
+      }
+
+      private XMLReader newReader() throws SAXException {
+         try {
+            return factory.newSAXParser().getXMLReader();
+         } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+         }
+      }
+
+      @Override
+      public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+         try {
+            return factory.getFeature(name);
+         } catch (ParserConfigurationException e) {
+            throw new SAXNotSupportedException(e.getMessage());
+         }
+      }
+
+      /**
+       * Readers are shared, so features and properties are configured on the {@link SAXParserFactory}.
+       */
+      @Override
+      public void setFeature(String name, boolean value) throws SAXNotSupportedException {
+         throw new SAXNotSupportedException("configure the SAXParserFactory instead: " + name);
+      }
+
+      @Override
+      public Object getProperty(String name) throws SAXNotSupportedException {
+         throw new SAXNotSupportedException("configure the SAXParserFactory instead: " + name);
+      }
+
+      @Override
+      public void setProperty(String name, Object value) throws SAXNotSupportedException {
+         throw new SAXNotSupportedException("configure the SAXParserFactory instead: " + name);
+      }
+
+      @Override
+      public void setContentHandler(ContentHandler handler) {
+         this.contentHandler = handler;
+      }
+
+      @Override
+      public ContentHandler getContentHandler() {
+         return contentHandler;
+      }
+
+      @Override
+      public void setErrorHandler(ErrorHandler handler) {
+         this.errorHandler = handler;
+      }
+
+      @Override
+      public ErrorHandler getErrorHandler() {
+         return errorHandler;
+      }
+
+      @Override
+      public void setEntityResolver(EntityResolver resolver) {
+         this.entityResolver = resolver;
+      }
+
+      @Override
+      public EntityResolver getEntityResolver() {
+         return entityResolver;
+      }
+
+      @Override
+      public void setDTDHandler(DTDHandler handler) {
+         this.dtdHandler = handler;
+      }
 
+      @Override
+      public DTDHandler getDTDHandler() {
+         return dtdHandler;
       }
    }
 
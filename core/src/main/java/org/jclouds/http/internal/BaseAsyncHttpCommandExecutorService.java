@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.base.Throwables.propagateIfInstanceOf;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.jclouds.http.AsyncHttpCommandExecutorService;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.io.ContentMetadataCodec;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Base class for drivers whose transport completes requests asynchronously.
+ * <p>
+ * Filters, retry, redirect and error handling are the same as in
+ * {@link BaseHttpCommandExecutorService#invoke(HttpCommand)}, but run on the user executor when a
+ * response or failure arrives, so no thread waits on the network. Note that retry handlers which
+ * back off still sleep on that executor.
+ */
+public abstract class BaseAsyncHttpCommandExecutorService<Q> extends BaseHttpCommandExecutorService<Q> implements
+      AsyncHttpCommandExecutorService {
+
+   protected final ListeningExecutorService userExecutor;
+
+   protected BaseAsyncHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+         DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+         DelegatingErrorHandler errorHandler, HttpWire wire, String idempotentMethods,
+         ListeningExecutorService userExecutor) {
+      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods);
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+   }
+
+   @Override
+   public ListenableFuture<HttpResponse> submit(HttpCommand command) {
+      SettableFuture<HttpResponse> result = SettableFuture.create();
+      send(command, result, System.nanoTime());
+      return result;
+   }
+
+   private void send(final HttpCommand command, final SettableFuture<HttpResponse> result, final long start) {
+      if (result.isCancelled())
+         return;
+      final HttpRequest request;
+      final Q nativeRequest;
+      final ListenableFuture<HttpResponse> response;
+      try {
+         request = filterAndLogRequest(command.getCurrentRequest());
+         nativeRequest = convert(request);
+      } catch (Exception e) {
+         onFailure(command, e, result, start);
+         return;
+      }
+      metrics.requestSent(request);
+      final long sentAt = System.nanoTime();
+      try {
+         response = invokeAsync(nativeRequest);
+      } catch (RuntimeException e) {
+         metrics.requestFailed(request, e, System.nanoTime() - sentAt);
+         cleanup(nativeRequest);
+         onFailure(command, e, result, start);
+         return;
+      }
+      Futures.addCallback(response, new FutureCallback<HttpResponse>() {
+         @Override
+         public void onSuccess(HttpResponse response) {
+            metrics.responseReceived(request, response, System.nanoTime() - sentAt);
+            try {
+               logResponse(request, response);
+               // the response took ownership of the native request's streams
+               if (response.getStatusCode() >= 300 && shouldContinue(command, response)) {
+                  send(command, result, start);
+                  return;
+               }
+            } catch (RuntimeException e) {
+               BaseAsyncHttpCommandExecutorService.this.onFailure(command, e, result, start);
+               return;
+            }
+            if (command.getException() != null) {
+               metrics.commandCompleted(command, null, System.nanoTime() - start);
+               result.setException(command.getException());
+            } else {
+               metrics.commandCompleted(command, response, System.nanoTime() - start);
+               result.set(response);
+            }
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            metrics.requestFailed(request, t, System.nanoTime() - sentAt);
+            cleanup(nativeRequest);
+            BaseAsyncHttpCommandExecutorService.this.onFailure(command, t, result, start);
+         }
+      }, userExecutor);
+   }
+
+   private void onFailure(HttpCommand command, Throwable t, SettableFuture<HttpResponse> result, long start) {
+      IOException ioe = getFirstThrowableOfType(t, IOException.class);
+      if (ioe != null && shouldContinue(command, ioe)) {
+         send(command, result, start);
+         return;
+      }
+      command.setException(new HttpResponseException(t.getMessage() + " connecting to "
+            + command.getCurrentRequest().getRequestLine(), command, null, t));
+      metrics.commandCompleted(command, null, System.nanoTime() - start);
+      result.setException(command.getException());
+   }
+
+   /**
+    * Blocks on {@link #invokeAsync(Object)}, so that this driver also serves
+    * {@link BaseHttpCommandExecutorService#invoke(HttpCommand)}.
+    */
+   @Override
+   protected HttpResponse invoke(Q nativeRequest) throws IOException, InterruptedException {
+      try {
+         return invokeAsync(nativeRequest).get();
+      } catch (ExecutionException e) {
+         propagateIfInstanceOf(e.getCause(), IOException.class);
+         throw propagate(e.getCause());
+      }
+   }
+
+   /**
+    * Sends the request, returning a future completed with the response once its status line and
+    * headers have arrived. The response payload may still be streaming when the future completes.
+    */
+   protected abstract ListenableFuture<HttpResponse> invokeAsync(Q nativeRequest);
+
+}
@@ -34,6 +34,7 @@ import javax.inject.Named;
 import org.jclouds.Constants;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpMetricsListener;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
 import org.jclouds.http.HttpResponse;
@@ -64,6 +65,9 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    protected final HttpWire wire;
 
+   @com.google.inject.Inject(optional = true)
+   protected HttpMetricsListener metrics = HttpMetricsListener.NONE;
+
    private final Set<String> idempotentMethods;
 
    @Inject
@@ -83,25 +87,21 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
    @Override
    public HttpResponse invoke(HttpCommand command) {
       HttpResponse response = null;
+      long start = System.nanoTime();
       for (;;) {
          HttpRequest request = command.getCurrentRequest();
          Q nativeRequest = null;
+         long sentAt = -1;
+         response = null;
          try {
-            for (HttpRequestFilter filter : request.getFilters()) {
-               request = filter.filter(request);
-            }
-            checkRequestHasContentLengthOrChunkedEncoding(request,
-                  "After filtering, the request has neither chunked encoding nor content length: " + request);
-            logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
-            wirePayloadIfEnabled(wire, request);
-            utils.logRequest(headerLog, request, ">>");
+            request = filterAndLogRequest(request);
             nativeRequest = convert(request);
+            metrics.requestSent(request);
+            sentAt = System.nanoTime();
             response = invoke(nativeRequest);
+            metrics.responseReceived(request, response, System.nanoTime() - sentAt);
 
-            logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
-            utils.logResponse(headerLog, response, "<<");
-            if (response.getPayload() != null && wire.enabled())
-               wire.input(response);
+            logResponse(request, response);
             nativeRequest = null; // response took ownership of streams
             int statusCode = response.getStatusCode();
             if (statusCode >= 300) {
@@ -113,6 +113,8 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
                break;
             }
          } catch (Exception e) {
+            if (sentAt != -1 && response == null)
+               metrics.requestFailed(request, e, System.nanoTime() - sentAt);
             IOException ioe = getFirstThrowableOfType(e, IOException.class);
             if (ioe != null && shouldContinue(command, ioe)) {
                continue;
@@ -125,11 +127,34 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
             cleanup(nativeRequest);
          }
       }
+      metrics.commandCompleted(command, command.getException() == null ? response : null, System.nanoTime() - start);
       if (command.getException() != null)
          throw propagate(command.getException());
       return response;
    }
 
+   /**
+    * Applies the request filters and logs the request which will be sent.
+    */
+   HttpRequest filterAndLogRequest(HttpRequest request) {
+      for (HttpRequestFilter filter : request.getFilters()) {
+         request = filter.filter(request);
+      }
+      checkRequestHasContentLengthOrChunkedEncoding(request,
+            "After filtering, the request has neither chunked encoding nor content length: " + request);
+      logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
+      wirePayloadIfEnabled(wire, request);
+      utils.logRequest(headerLog, request, ">>");
+      return request;
+   }
+
+   void logResponse(HttpRequest request, HttpResponse response) {
+      logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
+      utils.logResponse(headerLog, response, "<<");
+      if (response.getPayload() != null && wire.enabled())
+         wire.input(response);
+   }
+
    @VisibleForTesting
    boolean shouldContinue(HttpCommand command, HttpResponse response) {
       boolean shouldContinue = false;
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.AsyncHttpCommandExecutorService;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpResponse;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Adapts a blocking {@link HttpCommandExecutorService} by invoking it on the user executor.
+ */
+@Singleton
+public class SubmitToUserExecutor implements AsyncHttpCommandExecutorService {
+   private final HttpCommandExecutorService http;
+   private final ListeningExecutorService userExecutor;
+
+   @Inject
+   SubmitToUserExecutor(HttpCommandExecutorService http,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this.http = checkNotNull(http, "http");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+   }
+
+   @Override
+   public ListenableFuture<HttpResponse> submit(final HttpCommand command) {
+      return userExecutor.submit(new Callable<HttpResponse>() {
+         @Override
+         public HttpResponse call() {
+            return http.invoke(command);
+         }
+
+         @Override
+         public String toString() {
+            return "invoke(" + command + ")";
+         }
+      });
+   }
+}
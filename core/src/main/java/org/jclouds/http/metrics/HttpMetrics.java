@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpConnectionPoolStats;
+import org.jclouds.http.HttpMetricsListener;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Aggregates the events of an {@link HttpMetricsListener} into counters and latency histograms.
+ * Connection pool counts are read from the context's {@link HttpCommandExecutorService} when it
+ * implements {@link HttpConnectionPoolStats}.
+ */
+@Singleton
+public class HttpMetrics implements HttpMetricsListener, HttpMetricsMXBean {
+
+   private final Provider<HttpCommandExecutorService> executor;
+
+   private final ConcurrentMap<String, AtomicInteger> inFlight = Maps.newConcurrentMap();
+   private final AtomicLong requestsSent = new AtomicLong();
+   private final AtomicLong requestsFailed = new AtomicLong();
+   private final AtomicLong commandsCompleted = new AtomicLong();
+   private final AtomicLong commandsFailed = new AtomicLong();
+   private final AtomicLong retries = new AtomicLong();
+   private final AtomicLong redirects = new AtomicLong();
+   private final AtomicLong connectionsOpened = new AtomicLong();
+   private final LatencyHistogram connect = new LatencyHistogram();
+   private final LatencyHistogram handshake = new LatencyHistogram();
+   private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+   private final LatencyHistogram command = new LatencyHistogram();
+
+   @Inject
+   HttpMetrics(Provider<HttpCommandExecutorService> executor) {
+      this.executor = executor;
+   }
+
+   @Override
+   public void requestSent(HttpRequest request) {
+      requestsSent.incrementAndGet();
+      inFlight(request).incrementAndGet();
+   }
+
+   @Override
+   public void responseReceived(HttpRequest request, HttpResponse response, long nanos) {
+      inFlight(request).decrementAndGet();
+      timeToFirstByte.record(nanos);
+   }
+
+   @Override
+   public void requestFailed(HttpRequest request, Throwable cause, long nanos) {
+      inFlight(request).decrementAndGet();
+      requestsFailed.incrementAndGet();
+   }
+
+   @Override
+   public void commandCompleted(HttpCommand command, HttpResponse response, long nanos) {
+      if (response != null)
+         commandsCompleted.incrementAndGet();
+      else
+         commandsFailed.incrementAndGet();
+      retries.addAndGet(command.getFailureCount());
+      redirects.addAndGet(command.getRedirectCount());
+      this.command.record(nanos);
+   }
+
+   @Override
+   public void connectionOpened(String host, long connectNanos, long handshakeNanos) {
+      connectionsOpened.incrementAndGet();
+      connect.record(connectNanos);
+      if (handshakeNanos > 0)
+         handshake.record(handshakeNanos);
+   }
+
+   private AtomicInteger inFlight(HttpRequest request) {
+      URI endpoint = request.getEndpoint();
+      String host = endpoint.getPort() == -1 ? endpoint.getHost() : endpoint.getHost() + ":" + endpoint.getPort();
+      AtomicInteger count = inFlight.get(host);
+      if (count == null) {
+         AtomicInteger created = new AtomicInteger();
+         count = inFlight.putIfAbsent(host, created);
+         if (count == null)
+            count = created;
+      }
+      return count;
+   }
+
+   @Override
+   public Map<String, Integer> getInFlightRequests() {
+      ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+      for (Map.Entry<String, AtomicInteger> entry : inFlight.entrySet()) {
+         int count = entry.getValue().get();
+         if (count > 0)
+            builder.put(entry.getKey(), count);
+      }
+      return builder.build();
+   }
+
+   @Override
+   public long getRequestsSent() {
+      return requestsSent.get();
+   }
+
+   @Override
+   public long getRequestsFailed() {
+      return requestsFailed.get();
+   }
+
+   @Override
+   public long getCommandsCompleted() {
+      return commandsCompleted.get();
+   }
+
+   @Override
+   public long getCommandsFailed() {
+      return commandsFailed.get();
+   }
+
+   @Override
+   public long getRetries() {
+      return retries.get();
+   }
+
+   @Override
+   public long getRedirects() {
+      return redirects.get();
+   }
+
+   @Override
+   public long getConnectionsOpened() {
+      return connectionsOpened.get();
+   }
+
+   @Override
+   public int getOpenConnections() {
+      HttpConnectionPoolStats stats = poolStats();
+      return stats == null ? -1 : stats.getOpenConnections();
+   }
+
+   @Override
+   public int getIdleConnections() {
+      HttpConnectionPoolStats stats = poolStats();
+      return stats == null ? -1 : stats.getIdleConnections();
+   }
+
+   @Override
+   public int getLeasedConnections() {
+      HttpConnectionPoolStats stats = poolStats();
+      if (stats == null)
+         return -1;
+      int open = stats.getOpenConnections();
+      int idle = stats.getIdleConnections();
+      return open == -1 || idle == -1 ? -1 : Math.max(0, open - idle);
+   }
+
+   private HttpConnectionPoolStats poolStats() {
+      HttpCommandExecutorService service = executor.get();
+      return service instanceof HttpConnectionPoolStats ? (HttpConnectionPoolStats) service : null;
+   }
+
+   @Override
+   public LatencyHistogram.Snapshot getConnectLatency() {
+      return connect.snapshot();
+   }
+
+   @Override
+   public LatencyHistogram.Snapshot getHandshakeLatency() {
+      return handshake.snapshot();
+   }
+
+   @Override
+   public LatencyHistogram.Snapshot getTimeToFirstByte() {
+      return timeToFirstByte.snapshot();
+   }
+
+   @Override
+   public LatencyHistogram.Snapshot getCommandLatency() {
+      return command.snapshot();
+   }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import java.util.Map;
+
+/**
+ * Management view of {@link HttpMetrics}. The getters are plain values, so that they can equally be
+ * read by a metrics library polling the bean directly.
+ */
+public interface HttpMetricsMXBean {
+
+   /**
+    * Requests sent and not yet answered, by host.
+    */
+   Map<String, Integer> getInFlightRequests();
+
+   long getRequestsSent();
+
+   long getRequestsFailed();
+
+   long getCommandsCompleted();
+
+   long getCommandsFailed();
+
+   /**
+    * Requests repeated after an error response or an I/O failure.
+    */
+   long getRetries();
+
+   long getRedirects();
+
+   long getConnectionsOpened();
+
+   /**
+    * Connections open in the driver's pool, or -1 if the driver does not report them.
+    */
+   int getOpenConnections();
+
+   /**
+    * Connections in the driver's pool waiting to be reused, or -1 if the driver does not report them.
+    */
+   int getIdleConnections();
+
+   /**
+    * Connections in the driver's pool which are serving a request, or -1 if the driver does not
+    * report them.
+    */
+   int getLeasedConnections();
+
+   LatencyHistogram.Snapshot getConnectLatency();
+
+   LatencyHistogram.Snapshot getHandshakeLatency();
+
+   /**
+    * Time from sending a request to receiving its response headers.
+    */
+   LatencyHistogram.Snapshot getTimeToFirstByte();
+
+   /**
+    * Time to complete a command, including retries and redirects.
+    */
+   LatencyHistogram.Snapshot getCommandLatency();
+}
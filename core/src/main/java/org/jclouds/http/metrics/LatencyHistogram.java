@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets whose bounds are powers of two nanoseconds, so that recording is a
+ * couple of atomic increments and percentiles are accurate to within a factor of two.
+ */
+public final class LatencyHistogram {
+
+   private final AtomicLongArray buckets = new AtomicLongArray(64);
+   private final AtomicLong sum = new AtomicLong();
+   private final AtomicLong max = new AtomicLong();
+
+   public void record(long nanos) {
+      if (nanos < 0)
+         nanos = 0;
+      buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos) - (nanos == 0 ? 0 : 1));
+      sum.addAndGet(nanos);
+      for (;;) {
+         long current = max.get();
+         if (nanos <= current || max.compareAndSet(current, nanos))
+            break;
+      }
+   }
+
+   public Snapshot snapshot() {
+      long[] counts = new long[buckets.length()];
+      long count = 0;
+      for (int i = 0; i < counts.length; i++) {
+         counts[i] = buckets.get(i);
+         count += counts[i];
+      }
+      return new Snapshot(count, toMillis(sum.get()), toMillis(max.get()), toMillis(percentile(counts, count, 0.5)),
+            toMillis(percentile(counts, count, 0.9)), toMillis(percentile(counts, count, 0.99)));
+   }
+
+   /**
+    * Returns the upper bound of the bucket holding the given percentile.
+    */
+   private static long percentile(long[] counts, long count, double percentile) {
+      long rank = (long) Math.ceil(count * percentile);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+         seen += counts[i];
+         if (seen >= rank && seen > 0)
+            return i >= 62 ? Long.MAX_VALUE : (2L << i) - 1;
+      }
+      return 0;
+   }
+
+   private static double toMillis(long nanos) {
+      return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+   }
+
+   /**
+    * Latencies recorded so far, in milliseconds.
+    */
+   public static final class Snapshot {
+      private final long count;
+      private final double totalMillis;
+      private final double maxMillis;
+      private final double p50Millis;
+      private final double p90Millis;
+      private final double p99Millis;
+
+      @ConstructorProperties({ "count", "totalMillis", "maxMillis", "p50Millis", "p90Millis", "p99Millis" })
+      public Snapshot(long count, double totalMillis, double maxMillis, double p50Millis, double p90Millis,
+            double p99Millis) {
+         this.count = count;
+         this.totalMillis = totalMillis;
+         this.maxMillis = maxMillis;
+         this.p50Millis = p50Millis;
+         this.p90Millis = p90Millis;
+         this.p99Millis = p99Millis;
+      }
+
+      public long getCount() {
+         return count;
+      }
+
+      public double getTotalMillis() {
+         return totalMillis;
+      }
+
+      public double getMaxMillis() {
+         return maxMillis;
+      }
+
+      public double getP50Millis() {
+         return p50Millis;
+      }
+
+      public double getP90Millis() {
+         return p90Millis;
+      }
+
+      public double getP99Millis() {
+         return p99Millis;
+      }
+
+      @Override
+      public String toString() {
+         return String.format("count=%d, p50=%.3fms, p90=%.3fms, p99=%.3fms, max=%.3fms", count, p50Millis,
+               p90Millis, p99Millis, maxMillis);
+      }
+   }
+}
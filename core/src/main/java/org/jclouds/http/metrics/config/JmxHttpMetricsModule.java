@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics.config;
+
+import java.lang.management.ManagementFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jclouds.http.HttpMetricsListener;
+import org.jclouds.http.metrics.HttpMetrics;
+import org.jclouds.location.Provider;
+
+import com.google.common.base.Throwables;
+import com.google.inject.AbstractModule;
+
+/**
+ * Records the HTTP traffic of a context in {@link HttpMetrics} and registers them with the platform
+ * MBean server as {@code org.jclouds:type=HttpMetrics,provider=<provider>,id=<context>}, until the
+ * context is closed.
+ * <p>
+ * To export the same counters elsewhere, bind {@link HttpMetricsListener} to {@link HttpMetrics}
+ * in your own module and read its getters.
+ */
+public class JmxHttpMetricsModule extends AbstractModule {
+
+   @Override
+   protected void configure() {
+      bind(HttpMetricsListener.class).to(HttpMetrics.class);
+      bind(Registration.class).asEagerSingleton();
+   }
+
+   @Singleton
+   static class Registration {
+      private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      private final ObjectName name;
+
+      @Inject
+      Registration(HttpMetrics metrics, @Provider String provider) {
+         try {
+            this.name = new ObjectName("org.jclouds:type=HttpMetrics,provider=" + ObjectName.quote(provider)
+                  + ",id=" + Integer.toHexString(System.identityHashCode(metrics)));
+            server.registerMBean(metrics, name);
+         } catch (JMException e) {
+            throw Throwables.propagate(e);
+         }
+      }
+
+      @PreDestroy
+      void unregister() throws JMException {
+         if (server.isRegistered(name))
+            server.unregisterMBean(name);
+      }
+   }
+}
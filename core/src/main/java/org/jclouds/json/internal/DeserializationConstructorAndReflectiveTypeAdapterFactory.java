@@ -32,6 +32,8 @@ import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
 import com.google.common.reflect.Invokable;
 import com.google.common.reflect.Parameter;
 import com.google.gson.FieldNamingStrategy;
@@ -147,11 +149,37 @@ public final class DeserializationConstructorAndReflectiveTypeAdapterFactory imp
       private final Invokable<T, T> parameterizedCtor;
       private final Map<String, ParameterReader<?>> parameterReaders;
 
+      // worked out once per type, as listing the parameters of an Invokable reflects on it again
+      private final Object[] defaults;
+      private final int[] primitivePositions;
+      private final int[] optionalPositions;
+
       private DeserializeIntoParameterizedConstructor(TypeAdapter<T> serializer, Invokable<T, T> deserializationCtor,
             Map<String, ParameterReader<?>> parameterReaders) {
          this.serializer = serializer;
          this.parameterizedCtor = deserializationCtor;
          this.parameterReaders = parameterReaders;
+
+         List<Parameter> params = deserializationCtor.getParameters();
+         this.defaults = new Object[params.size()];
+         List<Integer> primitives = Lists.newArrayList();
+         List<Integer> optionals = Lists.newArrayList();
+         // Set all primitive constructor params to defaults
+         for (Parameter param : params) {
+            Class<?> rawType = param.getType().getRawType();
+            if (rawType == boolean.class) {
+               defaults[param.hashCode()] = Boolean.FALSE;
+            } else if (rawType.isPrimitive()) {
+               defaults[param.hashCode()] = 0;
+            }
+            if (rawType.isPrimitive()) {
+               primitives.add(param.hashCode());
+            } else if (rawType == Optional.class) {
+               optionals.add(param.hashCode());
+            }
+         }
+         this.primitivePositions = Ints.toArray(primitives);
+         this.optionalPositions = Ints.toArray(optionals);
       }
 
       @Override
@@ -161,19 +189,9 @@ public final class DeserializationConstructorAndReflectiveTypeAdapterFactory imp
             return null;
          }
 
-         List<Parameter> params = parameterizedCtor.getParameters();
-         Object[] values = new Object[params.size()];
+         Object[] values = defaults.clone();
          boolean empty = true;
 
-         // Set all primitive constructor params to defaults
-         for (Parameter param : params) {
-            if (param.getType().getRawType() == boolean.class) {
-               values[param.hashCode()] = Boolean.FALSE;
-            } else if (param.getType().getRawType().isPrimitive()) {
-               values[param.hashCode()] = 0;
-            }
-         }
-
          try {
             in.beginObject();
             while (in.hasNext()) {
@@ -192,13 +210,13 @@ public final class DeserializationConstructorAndReflectiveTypeAdapterFactory imp
             throw new JsonSyntaxException(e);
          }
 
-         for (Parameter param : params) {
-            if (param.getType().getRawType().isPrimitive()) {
-               checkArgument(values[param.hashCode()] != null,
-                  "Primitive param[%s] in constructor %s cannot be absent!", param.hashCode(), parameterizedCtor);
-            } else if (param.getType().getRawType() == Optional.class && values[param.hashCode()] == null) {
-               values[param.hashCode()] = Optional.absent();
-            }
+         for (int position : primitivePositions) {
+            checkArgument(values[position] != null,
+               "Primitive param[%s] in constructor %s cannot be absent!", position, parameterizedCtor);
+         }
+         for (int position : optionalPositions) {
+            if (values[position] == null)
+               values[position] = Optional.absent();
          }
          in.endObject();
 
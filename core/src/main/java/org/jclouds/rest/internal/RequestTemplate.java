@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.reflect.Reflection2.getInvokableParameters;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.Encoded;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.options.HttpRequestOptions;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.Endpoint;
+import org.jclouds.rest.annotations.EndpointParam;
+import org.jclouds.rest.annotations.FormParams;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.MapBinder;
+import org.jclouds.rest.annotations.OverrideRequestFilters;
+import org.jclouds.rest.annotations.PartParam;
+import org.jclouds.rest.annotations.Payload;
+import org.jclouds.rest.annotations.PayloadParam;
+import org.jclouds.rest.annotations.PayloadParams;
+import org.jclouds.rest.annotations.QueryParams;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.SkipEncoding;
+import org.jclouds.rest.annotations.VirtualHost;
+import org.jclouds.rest.annotations.WrapWith;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Chars;
+import com.google.common.reflect.Invokable;
+import com.google.common.reflect.Parameter;
+
+/**
+ * The parts of a request that depend only on the annotations of an {@link Invokable} and its
+ * declaring type. These are resolved once per method, so that {@link RestAnnotationProcessor}
+ * only substitutes arguments on each invocation.
+ */
+final class RequestTemplate {
+
+   private static final LoadingCache<Invokable<?, ?>, RequestTemplate> templates = CacheBuilder.newBuilder().build(
+         new CacheLoader<Invokable<?, ?>, RequestTemplate>() {
+            @Override
+            public RequestTemplate load(Invokable<?, ?> invokable) {
+               return new RequestTemplate(invokable);
+            }
+         });
+
+   static RequestTemplate of(Invokable<?, ?> invokable) {
+      return templates.getUnchecked(invokable);
+   }
+
+   final int parameterCount;
+   final List<String> paths;
+   @Nullable
+   final List<Character> skipPathEncoding;
+   final boolean encodeFullPath;
+   final boolean virtualHost;
+   @Nullable
+   final Endpoint endpoint;
+   final List<Class<? extends HttpRequestFilter>> typeFilters;
+   final List<Class<? extends HttpRequestFilter>> methodFilters;
+   final boolean overrideRequestFilters;
+   final List<FormParams> formParams;
+   final List<QueryParams> queryParams;
+   final List<Headers> headers;
+   @Nullable
+   final List<String> produces;
+   @Nullable
+   final PayloadParams payloadParams;
+   @Nullable
+   final Class<? extends org.jclouds.rest.MapBinder> mapBinder;
+   final boolean payload;
+   @Nullable
+   final WrapWith wrapWith;
+   final Set<Integer> indexesOfOptions;
+   final List<Parameter> endpointParams;
+   final List<Parameter> pathParams;
+   final List<Parameter> formParamParams;
+   final List<Parameter> queryParamParams;
+   final List<Parameter> headerParams;
+   final List<Parameter> partParams;
+   final List<Parameter> payloadParamParams;
+   final Set<Parameter> binderOrWrapWithParams;
+
+   private RequestTemplate(Invokable<?, ?> invokable) {
+      Class<?> type = invokable.getOwnerType().getRawType();
+      List<Parameter> parameters = getInvokableParameters(invokable);
+      this.parameterCount = parameters.size();
+
+      ImmutableList.Builder<String> paths = ImmutableList.builder();
+      if (type.isAnnotationPresent(Path.class))
+         paths.add(type.getAnnotation(Path.class).value());
+      if (invokable.isAnnotationPresent(Path.class))
+         paths.add(invokable.getAnnotation(Path.class).value());
+      this.paths = paths.build();
+
+      if (invokable.isAnnotationPresent(SkipEncoding.class))
+         this.skipPathEncoding = Chars.asList(invokable.getAnnotation(SkipEncoding.class).value());
+      else if (type.isAnnotationPresent(SkipEncoding.class))
+         this.skipPathEncoding = Chars.asList(type.getAnnotation(SkipEncoding.class).value());
+      else
+         this.skipPathEncoding = null;
+
+      this.virtualHost = type.isAnnotationPresent(VirtualHost.class) || invokable.isAnnotationPresent(VirtualHost.class);
+
+      if (invokable.isAnnotationPresent(Endpoint.class))
+         this.endpoint = invokable.getAnnotation(Endpoint.class);
+      else
+         this.endpoint = type.getAnnotation(Endpoint.class);
+
+      this.typeFilters = type.isAnnotationPresent(RequestFilters.class) ? ImmutableList.copyOf(type.getAnnotation(
+            RequestFilters.class).value()) : ImmutableList.<Class<? extends HttpRequestFilter>> of();
+      this.methodFilters = invokable.isAnnotationPresent(RequestFilters.class) ? ImmutableList.copyOf(invokable
+            .getAnnotation(RequestFilters.class).value()) : ImmutableList.<Class<? extends HttpRequestFilter>> of();
+      this.overrideRequestFilters = invokable.isAnnotationPresent(RequestFilters.class)
+            && invokable.isAnnotationPresent(OverrideRequestFilters.class);
+
+      this.formParams = typeThenMethod(type, invokable, FormParams.class);
+      this.queryParams = typeThenMethod(type, invokable, QueryParams.class);
+      this.headers = typeThenMethod(type, invokable, Headers.class);
+
+      if (invokable.isAnnotationPresent(Produces.class))
+         this.produces = ImmutableList.copyOf(invokable.getAnnotation(Produces.class).value());
+      else if (type.isAnnotationPresent(Produces.class))
+         this.produces = ImmutableList.copyOf(type.getAnnotation(Produces.class).value());
+      else
+         this.produces = null;
+
+      this.payloadParams = invokable.getAnnotation(PayloadParams.class);
+      this.mapBinder = invokable.isAnnotationPresent(MapBinder.class) ? invokable.getAnnotation(MapBinder.class)
+            .value() : null;
+      this.payload = invokable.isAnnotationPresent(Payload.class);
+      this.wrapWith = invokable.getAnnotation(WrapWith.class);
+
+      ImmutableSet.Builder<Integer> indexesOfOptions = ImmutableSet.builder();
+      for (Parameter param : parameters) {
+         Class<?> paramType = param.getType().getRawType();
+         if (HttpRequestOptions.class.isAssignableFrom(paramType)
+               || HttpRequestOptions[].class.isAssignableFrom(paramType))
+            indexesOfOptions.add(param.hashCode());
+      }
+      this.indexesOfOptions = indexesOfOptions.build();
+
+      this.endpointParams = parametersWithAnnotation(parameters, EndpointParam.class);
+      this.pathParams = parametersWithAnnotation(parameters, PathParam.class);
+      this.formParamParams = parametersWithAnnotation(parameters, FormParam.class);
+      this.queryParamParams = parametersWithAnnotation(parameters, QueryParam.class);
+      this.headerParams = parametersWithAnnotation(parameters, HeaderParam.class);
+      this.partParams = parametersWithAnnotation(parameters, PartParam.class);
+      this.payloadParamParams = parametersWithAnnotation(parameters, PayloadParam.class);
+      this.binderOrWrapWithParams = ImmutableSet.<Parameter> builder()
+            .addAll(parametersWithAnnotation(parameters, BinderParam.class))
+            .addAll(parametersWithAnnotation(parameters, WrapWith.class)).build();
+      this.encodeFullPath = parametersWithAnnotation(parameters, Encoded.class).isEmpty();
+   }
+
+   private static <A extends Annotation> List<A> typeThenMethod(Class<?> type, Invokable<?, ?> invokable,
+         Class<A> annotationType) {
+      ImmutableList.Builder<A> annotations = ImmutableList.builder();
+      if (type.isAnnotationPresent(annotationType))
+         annotations.add(type.getAnnotation(annotationType));
+      if (invokable.isAnnotationPresent(annotationType))
+         annotations.add(invokable.getAnnotation(annotationType));
+      return annotations.build();
+   }
+
+   private static List<Parameter> parametersWithAnnotation(List<Parameter> parameters,
+         Class<? extends Annotation> annotationType) {
+      ImmutableList.Builder<Parameter> annotated = ImmutableList.builder();
+      for (Parameter param : parameters) {
+         if (param.isAnnotationPresent(annotationType))
+            annotated.add(param);
+      }
+      return annotated.build();
+   }
+}
@@ -156,6 +156,9 @@ public class Strings2 {
 
    public static String replaceTokens(String input, Multimap<String, ?> tokenValues) {
       for (Entry<String, ?> tokenValue : tokenValues.entries()) {
+         // most values are literals; skip the pattern scans once there is nothing left to replace
+         if (input.indexOf('{') == -1)
+            return input;
          Pattern pattern = TOKEN_TO_PATTERN.getUnchecked(tokenValue.getKey());
          input = pattern.matcher(input).replaceAll(tokenValue.getValue().toString());
       }
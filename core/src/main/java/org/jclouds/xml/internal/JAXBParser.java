@@ -19,6 +19,9 @@ package org.jclouds.xml.internal;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -30,19 +33,38 @@ import javax.xml.bind.Unmarshaller;
 import org.jclouds.Constants;
 import org.jclouds.xml.XMLParser;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.inject.name.Named;
 
 /**
  * Parses XML documents using JAXB.
+ * <p>
+ * Creating a {@link JAXBContext} is expensive, so contexts are created once per type and kept
+ * for the {@link #MAX_CACHED_TYPES} most recently used types. Marshallers and unmarshallers are
+ * not thread-safe; up to {@link #MAX_POOLED} of each are kept per type for reuse.
  * 
  * @see ParseXMLWithJAXB
  */
 @Singleton
 public class JAXBParser implements XMLParser {
 
+   static final int MAX_CACHED_TYPES = 100;
+   static final int MAX_POOLED = 16;
+
    /** Boolean indicating if the output must be pretty printed. */
    private Boolean prettyPrint;
 
+   private final LoadingCache<Class<?>, Binding> bindings = CacheBuilder.newBuilder().weakKeys()
+         .maximumSize(MAX_CACHED_TYPES)
+         .build(new CacheLoader<Class<?>, Binding>() {
+            @Override
+            public Binding load(Class<?> type) throws JAXBException {
+               return new Binding(JAXBContext.newInstance(type));
+            }
+         });
+
    @Inject
    public JAXBParser(@Named(Constants.PROPERTY_PRETTY_PRINT_PAYLOADS) String prettyPrint) {
       super();
@@ -57,11 +79,15 @@ public class JAXBParser implements XMLParser {
    @Override
    public <T> String toXML(final Object src, final Class<T> type) throws IOException {
       try {
-         JAXBContext context = JAXBContext.newInstance(type);
-         Marshaller marshaller = context.createMarshaller();
-         marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, prettyPrint);
+         Binding binding = binding(type);
+         Marshaller marshaller = binding.marshallers.poll();
+         if (marshaller == null) {
+            marshaller = binding.context.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, prettyPrint);
+         }
          StringWriter writer = new StringWriter();
          marshaller.marshal(src, writer);
+         binding.marshallers.offer(marshaller);
          return writer.toString();
       } catch (JAXBException ex) {
          throw new IOException("Could not marshall object", ex);
@@ -73,11 +99,39 @@ public class JAXBParser implements XMLParser {
    public <T> T fromXML(final String xml, final Class<T> type) throws IOException {
       try {
          StringReader reader = new StringReader(xml);
-         JAXBContext context = JAXBContext.newInstance(type);
-         Unmarshaller unmarshaller = context.createUnmarshaller();
-         return (T) unmarshaller.unmarshal(reader);
+         Binding binding = binding(type);
+         Unmarshaller unmarshaller = binding.unmarshallers.poll();
+         if (unmarshaller == null)
+            unmarshaller = binding.context.createUnmarshaller();
+         T result = (T) unmarshaller.unmarshal(reader);
+         binding.unmarshallers.offer(unmarshaller);
+         return result;
       } catch (Exception ex) {
          throw new IOException("Could not unmarshal document into type: " + type.getSimpleName() + "\n" + xml, ex);
       }
    }
+
+   private Binding binding(Class<?> type) throws JAXBException {
+      try {
+         return bindings.get(type);
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof JAXBException)
+            throw (JAXBException) e.getCause();
+         throw new JAXBException(e.getCause());
+      }
+   }
+
+   /**
+    * The context of a type, with the marshallers and unmarshallers that are not in use. Those that
+    * failed are not returned to the pool.
+    */
+   private static final class Binding {
+      private final JAXBContext context;
+      private final BlockingQueue<Marshaller> marshallers = new ArrayBlockingQueue<Marshaller>(MAX_POOLED);
+      private final BlockingQueue<Unmarshaller> unmarshallers = new ArrayBlockingQueue<Unmarshaller>(MAX_POOLED);
+
+      private Binding(JAXBContext context) {
+         this.context = context;
+      }
+   }
 }
@@ -24,12 +24,15 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.Constants.PROPERTY_VIRTUAL_USER_THREADS;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 
 import org.jclouds.lifecycle.Closer;
@@ -42,6 +45,7 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.ProvisionException;
 
 @Test
 public class ExecutorServiceModuleTest {
@@ -104,6 +108,42 @@ public class ExecutorServiceModuleTest {
       }
    }
 
+   @Test
+   public void testVirtualUserThreads() throws Exception {
+      Injector i = Guice.createInjector(new ExecutorServiceModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(named(PROPERTY_USER_THREADS)).to(1);
+            bindConstant().annotatedWith(named(PROPERTY_VIRTUAL_USER_THREADS)).to(true);
+            super.configure();
+         }
+      });
+      boolean supported;
+      try {
+         Thread.class.getMethod("ofVirtual");
+         supported = true;
+      } catch (NoSuchMethodException e) {
+         supported = false;
+      }
+      ListeningExecutorService exec;
+      try {
+         exec = i.getInstance(Key.get(ListeningExecutorService.class, named(PROPERTY_USER_THREADS)));
+      } catch (ProvisionException e) {
+         assertFalse(supported, getStackTraceAsString(e));
+         return;
+      }
+      try {
+         assertTrue(exec.submit(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+               return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+            }
+         }).get());
+      } finally {
+         i.getInstance(Closer.class).close();
+      }
+      assertTrue(exec.isShutdown());
+   }
+
    static void assertTraceHasSubmission(String trace, String expected) {
       assertEquals(trace.indexOf(WithSubmissionTrace.class.getName()), -1, trace);
       assertNotEquals(trace.indexOf(expected), -1, trace + " " + expected);
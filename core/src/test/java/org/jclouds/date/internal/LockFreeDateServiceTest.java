@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.date.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.jclouds.date.DateService;
+import org.testng.annotations.Test;
+
+/**
+ * Checks that dates are formatted and parsed as by {@link SimpleDateFormatDateService}
+ */
+@Test(groups = "unit", testName = "LockFreeDateServiceTest")
+public class LockFreeDateServiceTest {
+   private final DateService dateService = new LockFreeDateService();
+
+   public void testSameAsSimpleDateFormat() {
+      DateService expected = new SimpleDateFormatDateService();
+      Random random = new Random(0);
+      for (int i = 0; i < 10000; i++) {
+         // between 1900 and 2100
+         Date date = new Date(-2208988800000L + (long) (random.nextDouble() * 6311433600000L));
+         assertEquals(dateService.iso8601DateFormat(date), expected.iso8601DateFormat(date));
+         assertEquals(dateService.iso8601SecondsDateFormat(date), expected.iso8601SecondsDateFormat(date));
+         assertEquals(dateService.rfc822DateFormat(date), expected.rfc822DateFormat(date));
+         assertEquals(dateService.cDateFormat(date), expected.cDateFormat(date));
+
+         assertEquals(dateService.iso8601DateParse(expected.iso8601DateFormat(date)), date);
+         assertEquals(dateService.rfc822DateParse(expected.rfc822DateFormat(date)),
+               expected.rfc822DateParse(expected.rfc822DateFormat(date)));
+         assertEquals(dateService.cDateParse(expected.cDateFormat(date)),
+               expected.cDateParse(expected.cDateFormat(date)));
+      }
+   }
+
+   public void testRfc1123() {
+      Date date = new Date(1236823207000L);
+      assertEquals(dateService.rfc1123DateFormat(date), "Thu, 12 Mar 02009 02:00:07 +0000");
+      assertEquals(dateService.rfc1123DateParse("Thu, 12 Mar 02009 02:00:07 +0000"), date);
+      assertEquals(dateService.rfc1123DateParse("Thu, 01 Dec 1994 16:00:00 GMT"), new Date(786297600000L));
+   }
+
+   /**
+    * SimpleDateFormatDateService formats RFC 1123 dates in the default time zone it was loaded with,
+    * while LockFreeDateService always uses UTC; the texts differ outside UTC, but denote the same
+    * instant.
+    */
+   public void testRfc1123OutsideUtc() {
+      TimeZone defaultZone = TimeZone.getDefault();
+      TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+      try {
+         DateService expected = new SimpleDateFormatDateService();
+         Date date = new Date(1236823207000L);
+         assertEquals(dateService.rfc1123DateFormat(date), "Thu, 12 Mar 02009 02:00:07 +0000");
+         assertEquals(dateService.rfc1123DateParse(expected.rfc1123DateFormat(date)), date);
+         assertEquals(expected.rfc1123DateParse(dateService.rfc1123DateFormat(date)), date);
+         assertEquals(dateService.rfc1123DateParse("Wed, 11 Mar 02009 22:00:07 -0400"), date);
+      } finally {
+         TimeZone.setDefault(defaultZone);
+      }
+   }
+
+   public void testIso8601Variants() {
+      assertEquals(dateService.iso8601DateParse("2011-11-07T11:19:13.38225Z").getTime(), 1320664753382L);
+      assertEquals(dateService.iso8601DateParse("2009-02-03T05:26:32.612278").getTime(), 1233638792612L);
+      assertEquals(dateService.iso8601DateParse("2009-03-12T06:00:07.5+04").getTime(), 1236823207500L);
+      assertEquals(dateService.iso8601SecondsDateParse("2000-02-29T00:00:00-0130").getTime(), 951787800000L);
+   }
+
+   public void testBeforeEpoch() {
+      Date date = new Date(-1L);
+      assertEquals(dateService.iso8601DateFormat(date), "1969-12-31T23:59:59.999Z");
+      assertEquals(dateService.rfc822DateFormat(date), "Wed, 31 Dec 1969 23:59:59 GMT");
+      assertEquals(dateService.iso8601DateParse("1969-12-31T23:59:59.999Z"), date);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testInvalidDayOfMonth() {
+      dateService.iso8601SecondsDateParse("2009-02-29T00:00:00Z");
+   }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseJsonArrayElements.JsonArrayIterator;
+import org.jclouds.io.Payloads;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.json.internal.GsonWrapper;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import com.google.inject.TypeLiteral;
+
+@Test(testName = "ParseJsonArrayElementsTest")
+public class ParseJsonArrayElementsTest {
+
+   GsonWrapper json = Guice.createInjector(new GsonModule()).getInstance(GsonWrapper.class);
+
+   static class Event {
+      private String name;
+      private String source;
+
+      @Override
+      public String toString() {
+         return String.format("(name=%s, source=%s)", name, source);
+      }
+   }
+
+   private static final TypeLiteral<Event> EVENT = TypeLiteral.get(Event.class);
+
+   public void testParseTopLevelArray() {
+      HttpResponse response = response("[ {name:'GREETINGS',source:'guest'}, {name:'FAREWELL',source:'host'} ]");
+      assertEquals(ImmutableList.copyOf(new ParseJsonArrayElements<Event>(json, EVENT).apply(response)).toString(),
+            "[(name=GREETINGS, source=guest), (name=FAREWELL, source=host)]");
+   }
+
+   public void testParseNestedArrayNamed() {
+      HttpResponse response = response(
+            "{ \"listaccountsresponse\" : { \"count\":1 ,\"event\" : [  {name:'GREETINGS',source:'guest'} ] } }");
+      assertEquals(ImmutableList.copyOf(new ParseJsonArrayElements<Event>(json, EVENT, "event").apply(response))
+            .toString(), "[(name=GREETINGS, source=guest)]");
+   }
+
+   public void testParseArrayNotFoundIsEmpty() {
+      HttpResponse response = response("{ \"count\":1 ,\"evant\" : [  {name:'GREETINGS',source:'guest'} ] }");
+      assertFalse(new ParseJsonArrayElements<Event>(json, EVENT, "event").apply(response).hasNext());
+   }
+
+   public void testParseNullArrayIsEmpty() {
+      HttpResponse response = response("{ \"count\":0 ,\"event\" : null }");
+      assertFalse(new ParseJsonArrayElements<Event>(json, EVENT, "event").apply(response).hasNext());
+   }
+
+   public void testPayloadReleasedAtEndOfArray() throws IOException {
+      TrackingInputStream body = new TrackingInputStream(
+            "[ {name:'GREETINGS',source:'guest'}, {name:'FAREWELL',source:'host'} ]");
+      HttpResponse response = HttpResponse.builder().statusCode(200).message("ok")
+            .payload(Payloads.newInputStreamPayload(body)).build();
+
+      JsonArrayIterator<Event> events = new ParseJsonArrayElements<Event>(json, EVENT).apply(response);
+      assertEquals(events.next().toString(), "(name=GREETINGS, source=guest)");
+      assertFalse(body.closed);
+      assertEquals(events.next().toString(), "(name=FAREWELL, source=host)");
+      assertFalse(events.hasNext());
+      assertTrue(body.closed);
+   }
+
+   public void testCloseBeforeEndReleasesPayload() throws IOException {
+      TrackingInputStream body = new TrackingInputStream("[ {name:'GREETINGS',source:'guest'}, {} ]");
+      HttpResponse response = HttpResponse.builder().statusCode(200).message("ok")
+            .payload(Payloads.newInputStreamPayload(body)).build();
+
+      JsonArrayIterator<Event> events = new ParseJsonArrayElements<Event>(json, EVENT).apply(response);
+      events.next();
+      events.close();
+      assertTrue(body.closed);
+   }
+
+   private static HttpResponse response(String body) {
+      return HttpResponse.builder().statusCode(200).message("ok").payload(Payloads.newPayload(body)).build();
+   }
+
+   private static final class TrackingInputStream extends ByteArrayInputStream {
+      private boolean closed;
+
+      TrackingInputStream(String body) {
+         super(body.getBytes(Charsets.UTF_8));
+      }
+
+      @Override
+      public void close() throws IOException {
+         closed = true;
+         super.close();
+      }
+   }
+}
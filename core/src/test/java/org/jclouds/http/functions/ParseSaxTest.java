@@ -21,11 +21,13 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
 
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.utils.TestUtils;
 import org.testng.annotations.Test;
+import org.xml.sax.Attributes;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXParseException;
 
@@ -42,6 +44,20 @@ public class ParseSaxTest extends BaseHandlerTest {
       }
    }
 
+   public static class ElementNamesHandler extends ParseSax.HandlerWithResult<String> {
+      private final StringBuilder names = new StringBuilder();
+
+      @Override
+      public void startElement(String uri, String localName, String qName, Attributes attributes) {
+         names.append(qName);
+      }
+
+      @Override
+      public String getResult() {
+         return names.toString();
+      }
+   }
+
    ParseSax<String> createParser() {
       return factory.create(injector.getInstance(TestHandler.class));
    }
@@ -131,4 +147,16 @@ public class ParseSaxTest extends BaseHandlerTest {
          assertEquals(e.getCause(), input);
       }
    }
+
+   @Test
+   public void testParsersFromFactoryAreIndependentAfterAFailure() {
+      assertEquals(factory.create(new ElementNamesHandler()).parse("<a><b/></a>"), "ab");
+      try {
+         factory.create(new ElementNamesHandler()).parse("<a><b></a>");
+         fail("expected the malformed document to be rejected");
+      } catch (RuntimeException expected) {
+      }
+      assertEquals(factory.create(new ElementNamesHandler()).parse("<c><d/></c>"), "cd");
+      assertEquals(factory.create(new ElementNamesHandler()).parse("<e/>"), "e");
+   }
 }
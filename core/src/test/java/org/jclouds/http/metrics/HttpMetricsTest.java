@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+
+import javax.inject.Provider;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpConnectionPoolStats;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+@Test(groups = "unit", testName = "HttpMetricsTest")
+public class HttpMetricsTest {
+
+   private final HttpRequest request = HttpRequest.builder().method("GET").endpoint("http://localhost:8080/foo")
+         .build();
+   private final HttpResponse response = HttpResponse.builder().statusCode(200).build();
+
+   public void testTracksRequestsInFlightByHost() {
+      HttpMetrics metrics = new HttpMetrics(executor(null));
+      metrics.requestSent(request);
+      metrics.requestSent(request);
+      assertEquals(metrics.getInFlightRequests(), ImmutableMap.of("localhost:8080", 2));
+
+      metrics.responseReceived(request, response, MILLISECONDS.toNanos(3));
+      metrics.requestFailed(request, new IOException(), MILLISECONDS.toNanos(5));
+      assertEquals(metrics.getInFlightRequests(), ImmutableMap.of());
+      assertEquals(metrics.getRequestsSent(), 2);
+      assertEquals(metrics.getRequestsFailed(), 1);
+      assertEquals(metrics.getTimeToFirstByte().getCount(), 1);
+   }
+
+   public void testCountsRetriesAndRedirectsOfCompletedCommands() {
+      HttpMetrics metrics = new HttpMetrics(executor(null));
+      HttpCommand command = new HttpCommand(request);
+      command.incrementFailureCount();
+      command.incrementRedirectCount();
+      command.incrementRedirectCount();
+      metrics.commandCompleted(command, response, MILLISECONDS.toNanos(10));
+      metrics.commandCompleted(new HttpCommand(request), null, MILLISECONDS.toNanos(1));
+
+      assertEquals(metrics.getCommandsCompleted(), 1);
+      assertEquals(metrics.getCommandsFailed(), 1);
+      assertEquals(metrics.getRetries(), 1);
+      assertEquals(metrics.getRedirects(), 2);
+      assertEquals(metrics.getCommandLatency().getCount(), 2);
+   }
+
+   public void testRecordsHandshakesOnlyForTls() {
+      HttpMetrics metrics = new HttpMetrics(executor(null));
+      metrics.connectionOpened("localhost:80", MILLISECONDS.toNanos(1), 0);
+      metrics.connectionOpened("localhost:443", MILLISECONDS.toNanos(1), MILLISECONDS.toNanos(20));
+
+      assertEquals(metrics.getConnectionsOpened(), 2);
+      assertEquals(metrics.getConnectLatency().getCount(), 2);
+      assertEquals(metrics.getHandshakeLatency().getCount(), 1);
+   }
+
+   public void testReadsPoolCountsFromTheExecutor() {
+      HttpMetrics metrics = new HttpMetrics(executor(new HttpConnectionPoolStats() {
+         @Override
+         public int getOpenConnections() {
+            return 5;
+         }
+
+         @Override
+         public int getIdleConnections() {
+            return 2;
+         }
+      }));
+      assertEquals(metrics.getOpenConnections(), 5);
+      assertEquals(metrics.getIdleConnections(), 2);
+      assertEquals(metrics.getLeasedConnections(), 3);
+   }
+
+   public void testPoolCountsAreUnknownWithoutStats() {
+      HttpMetrics metrics = new HttpMetrics(executor(null));
+      assertEquals(metrics.getOpenConnections(), -1);
+      assertEquals(metrics.getIdleConnections(), -1);
+      assertEquals(metrics.getLeasedConnections(), -1);
+   }
+
+   public void testHistogramPercentilesAreWithinABucket() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int i = 1; i <= 100; i++) {
+         histogram.record(MILLISECONDS.toNanos(i));
+      }
+      LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+      assertEquals(snapshot.getCount(), 100);
+      assertEquals(snapshot.getMaxMillis(), 100.0);
+      assertEquals(snapshot.getTotalMillis(), 5050.0);
+      assertTrue(snapshot.getP50Millis() >= 50 && snapshot.getP50Millis() < 100, snapshot.toString());
+      assertTrue(snapshot.getP99Millis() >= 99 && snapshot.getP99Millis() < 200, snapshot.toString());
+   }
+
+   private static Provider<HttpCommandExecutorService> executor(final HttpConnectionPoolStats stats) {
+      return new Provider<HttpCommandExecutorService>() {
+         @Override
+         public HttpCommandExecutorService get() {
+            return stats == null ? new Executor() : new PooledExecutor(stats);
+         }
+      };
+   }
+
+   private static class Executor implements HttpCommandExecutorService {
+      @Override
+      public HttpResponse invoke(HttpCommand command) {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   private static class PooledExecutor extends Executor implements HttpConnectionPoolStats {
+      private final HttpConnectionPoolStats stats;
+
+      PooledExecutor(HttpConnectionPoolStats stats) {
+         this.stats = stats;
+      }
+
+      @Override
+      public int getOpenConnections() {
+         return stats.getOpenConnections();
+      }
+
+      @Override
+      public int getIdleConnections() {
+         return stats.getIdleConnections();
+      }
+   }
+}
@@ -155,6 +155,16 @@ public final class DeserializationConstructorAndReflectiveTypeAdapterFactoryTest
         gson.fromJson("{\"bar\":1}", ValidatedConstructor.class);
     }
 
+    public void testDefaultsNotCarriedBetweenObjects() throws IOException {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(parameterizedCtorFactory)
+                .registerTypeAdapterFactory(new OptionalTypeAdapterFactory()).create();
+
+        assertEquals(gson.fromJson("{\"foo\":2,\"bar\":3}", ValidatedConstructor.class),
+                new ValidatedConstructor(Optional.of(2), 3));
+        assertEquals(gson.fromJson("{\"foo\":2}", ValidatedConstructor.class),
+                new ValidatedConstructor(Optional.of(2), 0));
+    }
+
    private abstract static class ValueTypeWithFactory {
       abstract List<String> foo();
       abstract Map<String, String> bar();
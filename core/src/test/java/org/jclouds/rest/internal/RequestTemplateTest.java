@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.options.HttpRequestOptions;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.OverrideRequestFilters;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.SkipEncoding;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.Invokable;
+
+@Test(groups = "unit", testName = "RequestTemplateTest")
+public class RequestTemplateTest {
+
+   static class TypeFilter implements HttpRequestFilter {
+      public HttpRequest filter(HttpRequest request) {
+         return request;
+      }
+   }
+
+   static class MethodFilter implements HttpRequestFilter {
+      public HttpRequest filter(HttpRequest request) {
+         return request;
+      }
+   }
+
+   @Path("/type")
+   @Headers(keys = "x-type", values = "type")
+   @Produces("text/plain")
+   @SkipEncoding('/')
+   @RequestFilters(TypeFilter.class)
+   interface Annotated {
+      @GET
+      @Path("/{id}")
+      @Headers(keys = "x-method", values = "{id}")
+      @Produces("application/json")
+      void get(@PathParam("id") String id, @HeaderParam("x-arg") String header, HttpRequestOptions... options);
+
+      @GET
+      @RequestFilters(MethodFilter.class)
+      @OverrideRequestFilters
+      void override();
+   }
+
+   public void testTypeThenMethodAnnotations() {
+      Invokable<?, ?> get = method(Annotated.class, "get", String.class, String.class, HttpRequestOptions[].class);
+      RequestTemplate template = RequestTemplate.of(get);
+
+      assertEquals(template.paths, ImmutableList.of("/type", "/{id}"));
+      assertEquals(template.headers.size(), 2);
+      assertEquals(template.headers.get(0).keys()[0], "x-type");
+      assertEquals(template.headers.get(1).keys()[0], "x-method");
+      assertEquals(template.produces, ImmutableList.of("application/json"));
+      assertEquals(template.skipPathEncoding, ImmutableList.of('/'));
+      assertEquals(template.typeFilters, ImmutableList.of(TypeFilter.class));
+      assertFalse(template.overrideRequestFilters);
+      assertEquals(template.pathParams.size(), 1);
+      assertEquals(template.headerParams.size(), 1);
+      assertEquals(template.indexesOfOptions, ImmutableSet.of(2));
+      assertEquals(template.parameterCount, 3);
+      assertTrue(template.encodeFullPath);
+      assertNull(template.endpoint);
+   }
+
+   public void testOverrideRequestFilters() {
+      RequestTemplate template = RequestTemplate.of(method(Annotated.class, "override"));
+
+      assertTrue(template.overrideRequestFilters);
+      assertEquals(template.methodFilters, ImmutableList.of(MethodFilter.class));
+      assertEquals(template.produces, ImmutableList.of("text/plain"));
+   }
+
+   public void testTemplateIsCachedPerInvokable() {
+      Invokable<?, ?> override = method(Annotated.class, "override");
+      assertSame(RequestTemplate.of(override), RequestTemplate.of(override));
+   }
+}
@@ -23,6 +23,7 @@ import static org.testng.Assert.assertEquals;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
 
 @Test(groups = "unit")
 public class Strings2Test {
@@ -31,6 +32,16 @@ public class Strings2Test {
       assertEquals(Strings2.replaceTokens("hello {where}", ImmutableMap.of("where", "world")), "hello world");
    }
 
+   public void testReplaceTokensMultimap() {
+      assertEquals(Strings2.replaceTokens("{greeting} {where}", ImmutableMultimap.of("greeting", "hello", "where",
+            "world")), "hello world");
+   }
+
+   public void testReplaceTokensMultimapWithoutTokensReturnsInput() {
+      String input = "hello world";
+      assertEquals(Strings2.replaceTokens(input, ImmutableMultimap.of("where", "there")), input);
+   }
+
    public void testUrlEncodeDecodeShouldGiveTheSameString() {
       String actual = "ssh-rsa AAAAB3NzaC1yc2EAAAADAQABAAABAQCc903twxU2zcQnIJdXv61RwZNZW94uId9qz08fgsBJsCOnHNIC4+L9k" +
          "DOA2IHV9cUfEDBm1Be5TbpadWwSbS/05E+FARH2/MCO932UgcKUq5PGymS0249fLCBPci5zoLiG5vIym+1ij1hL/nHvkK99NIwe7io+Lmp" +
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.xml.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.jclouds.xml.XMLParser;
+import org.testng.annotations.Test;
+
+/**
+ * Tests behavior of {@code JAXBParser}.
+ */
+@Test(groups = "unit", testName = "JAXBParserTest")
+public class JAXBParserTest {
+   XMLParser xml = new JAXBParser("false");
+
+   public void testContextIsReusedAcrossCalls() throws IOException {
+      for (String elem : new String[] { "one", "two", "three" }) {
+         TestJAXBDomain obj = new TestJAXBDomain();
+         obj.setElem(elem);
+         String serialized = xml.toXML(obj);
+         assertEquals(serialized, XMLParser.DEFAULT_XML_HEADER + "<test><elem>" + elem + "</elem></test>");
+         assertEquals(xml.fromXML(serialized, TestJAXBDomain.class).getElem(), elem);
+      }
+   }
+
+   public void testParsesAfterAFailure() throws IOException {
+      try {
+         xml.fromXML("<test><elem>unterminated", TestJAXBDomain.class);
+         fail("expected an IOException");
+      } catch (IOException expected) {
+      }
+      assertEquals(xml.fromXML("<test><elem>Hello World</elem></test>", TestJAXBDomain.class).getElem(),
+            "Hello World");
+   }
+
+   @XmlRootElement(name = "test")
+   public static class TestJAXBDomain {
+      private String elem;
+
+      public String getElem() {
+         return elem;
+      }
+
+      public void setElem(String elem) {
+         this.elem = elem;
+      }
+   }
+}
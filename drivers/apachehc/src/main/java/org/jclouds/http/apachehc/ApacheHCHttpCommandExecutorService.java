@@ -32,6 +32,9 @@ import org.apache.http.HttpHost;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.jclouds.http.HttpConnectionPoolStats;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpUtils;
@@ -51,7 +54,8 @@ import com.google.common.collect.Multimap;
 /**
  * Simple implementation of a {@link HttpCommandExecutorService}, Apache Components HttpClient 4.x.
  */
-public class ApacheHCHttpCommandExecutorService extends BaseHttpCommandExecutorService<HttpUriRequest> {
+public class ApacheHCHttpCommandExecutorService extends BaseHttpCommandExecutorService<HttpUriRequest> implements
+      HttpConnectionPoolStats {
    private final HttpClient client;
    private final ApacheHCUtils apacheHCUtils;
 
@@ -117,4 +121,20 @@ public class ApacheHCHttpCommandExecutorService extends BaseHttpCommandExecutorS
    protected void cleanup(HttpUriRequest nativeResponse) {
       // No cleanup necessary
    }
+
+   @SuppressWarnings("deprecation")
+   @Override
+   public int getOpenConnections() {
+      ClientConnectionManager cm = client.getConnectionManager();
+      return cm instanceof ThreadSafeClientConnManager ? ((ThreadSafeClientConnManager) cm).getConnectionsInPool()
+            : -1;
+   }
+
+   /**
+    * The connection manager does not say which of its connections are leased.
+    */
+   @Override
+   public int getIdleConnections() {
+      return -1;
+   }
 }
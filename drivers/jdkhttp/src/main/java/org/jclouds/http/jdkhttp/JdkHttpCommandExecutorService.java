@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.jdkhttp;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.net.HttpHeaders.ACCEPT;
+import static com.google.common.net.HttpHeaders.EXPECT;
+import static com.google.common.net.HttpHeaders.TRANSFER_ENCODING;
+import static com.google.common.net.HttpHeaders.USER_AGENT;
+import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.jclouds.http.HttpUtils.filterOutContentHeaders;
+import static org.jclouds.io.Payloads.newInputStreamPayload;
+import static org.jclouds.util.Closeables2.closeQuietly;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.inject.Named;
+
+import org.jclouds.JcloudsVersion;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.internal.BaseHttpCommandExecutorService;
+import org.jclouds.http.internal.HttpWire;
+import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.io.Payload;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Inject;
+
+/**
+ * Sends requests with the {@link HttpClient} of Java 11, which negotiates HTTP/2 over TLS and then
+ * multiplexes concurrent requests to a host over a single connection. Retries, redirects and error
+ * handling are left to {@link BaseHttpCommandExecutorService}, as with the other drivers.
+ */
+public final class JdkHttpCommandExecutorService extends BaseHttpCommandExecutorService<java.net.http.HttpRequest> {
+
+   private static final String DEFAULT_USER_AGENT = String.format("jclouds-jdkhttp/%s java/%s", JcloudsVersion.get(),
+         System.getProperty("java.version"));
+
+   /**
+    * Headers the client writes itself and refuses to take from the request; the framing of the
+    * body follows from its {@link BodyPublisher} instead.
+    */
+   private static final Set<String> CLIENT_HEADERS = ImmutableSet.of("connection", "content-length", "expect", "host",
+         "transfer-encoding", "upgrade");
+
+   private final HttpClient client;
+
+   @Inject
+   JdkHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+         DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+         DelegatingErrorHandler errorHandler, HttpWire wire, HttpClient client,
+         @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods) {
+      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods);
+      this.client = client;
+   }
+
+   @Override
+   protected java.net.http.HttpRequest convert(HttpRequest request) throws IOException, InterruptedException {
+      java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(request.getEndpoint());
+      // the client has no read timeout, and counts the upload of a body against its request timeout
+      if (request.getPayload() == null && utils.getSocketOpenTimeout() > 0) {
+         builder.timeout(Duration.ofMillis(utils.getSocketOpenTimeout()));
+      }
+      if (request.getFirstHeaderOrNull(ACCEPT) == null) {
+         builder.header(ACCEPT, "*/*");
+      }
+      if (request.getFirstHeaderOrNull(USER_AGENT) == null) {
+         builder.header(USER_AGENT, DEFAULT_USER_AGENT);
+      }
+      for (Map.Entry<String, String> entry : request.getHeaders().entries()) {
+         addHeader(builder, entry.getKey(), entry.getValue());
+      }
+      Payload payload = request.getPayload();
+      if (payload != null) {
+         for (Map.Entry<String, String> entry : contentMetadataCodec.toHeaders(payload.getContentMetadata())
+               .entries()) {
+            addHeader(builder, entry.getKey(), entry.getValue());
+         }
+      }
+      builder.method(request.getMethod(), generateBodyPublisher(request));
+      return builder.build();
+   }
+
+   private static void addHeader(java.net.http.HttpRequest.Builder builder, String name, String value) {
+      if (EXPECT.equalsIgnoreCase(name)) {
+         builder.expectContinue("100-continue".equalsIgnoreCase(value));
+      } else if (!CLIENT_HEADERS.contains(name.toLowerCase(Locale.ENGLISH))) {
+         builder.header(name, value);
+      }
+   }
+
+   protected BodyPublisher generateBodyPublisher(HttpRequest request) {
+      final Payload payload = request.getPayload();
+      if (payload == null) {
+         return BodyPublishers.noBody();
+      }
+      long length = -1;
+      if (!"chunked".equals(request.getFirstHeaderOrNull(TRANSFER_ENCODING))) {
+         length = checkNotNull(payload.getContentMetadata().getContentLength(), "payload.getContentLength");
+         if (length == 0) {
+            return BodyPublishers.noBody();
+         }
+      }
+      // opened only once the client sends the body
+      BodyPublisher stream = BodyPublishers.ofInputStream(new Supplier<InputStream>() {
+         @Override
+         public InputStream get() {
+            try {
+               return payload.openStream();
+            } catch (IOException e) {
+               throw new UncheckedIOException(e);
+            }
+         }
+      });
+      return length > 0 ? BodyPublishers.fromPublisher(stream, length) : stream;
+   }
+
+   @Override
+   protected HttpResponse invoke(java.net.http.HttpRequest nativeRequest) throws IOException, InterruptedException {
+      java.net.http.HttpResponse<InputStream> response = client.send(nativeRequest, BodyHandlers.ofInputStream());
+
+      // the client exposes no reason phrase, and HTTP/2 has none
+      HttpResponse.Builder<?> builder = HttpResponse.builder();
+      builder.statusCode(response.statusCode());
+
+      ImmutableMultimap.Builder<String, String> headerBuilder = ImmutableMultimap.builder();
+      for (Map.Entry<String, List<String>> entry : response.headers().map().entrySet()) {
+         headerBuilder.putAll(entry.getKey(), entry.getValue());
+      }
+      ImmutableMultimap<String, String> headers = headerBuilder.build();
+
+      if (response.statusCode() == 204) {
+         closeQuietly(response.body());
+      } else {
+         Payload payload = newInputStreamPayload(response.body());
+         contentMetadataCodec.fromHeaders(payload.getContentMetadata(), headers);
+         builder.payload(payload);
+      }
+
+      builder.headers(filterOutContentHeaders(headers));
+
+      return builder.build();
+   }
+
+   @Override
+   protected void cleanup(java.net.http.HttpRequest nativeRequest) {
+
+   }
+}
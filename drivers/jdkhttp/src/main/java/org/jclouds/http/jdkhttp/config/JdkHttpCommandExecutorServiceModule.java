@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.jdkhttp.config;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.net.ssl.SSLContext;
+
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
+import org.jclouds.http.config.SSLModule;
+import org.jclouds.http.jdkhttp.JdkHttpCommandExecutorService;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Scopes;
+
+/**
+ * Configures the {@link JdkHttpCommandExecutorService}.
+ *
+ * Note that this requires Java 11, and that the client runs its own threads.
+ */
+@ConfiguresHttpCommandExecutorService
+public class JdkHttpCommandExecutorServiceModule extends AbstractModule {
+
+   @Override
+   protected void configure() {
+      install(new SSLModule());
+      bind(HttpCommandExecutorService.class).to(JdkHttpCommandExecutorService.class).in(Scopes.SINGLETON);
+      bind(HttpClient.class).toProvider(HttpClientProvider.class).in(Scopes.SINGLETON);
+   }
+
+   private static final class HttpClientProvider implements Provider<HttpClient> {
+      @Resource
+      private Logger logger = Logger.NULL;
+
+      private final HttpUtils utils;
+      private final Supplier<SSLContext> untrustedSSLContextProvider;
+      private final Function<URI, Proxy> proxyForURI;
+
+      @Inject
+      HttpClientProvider(HttpUtils utils, @Named("untrusted") Supplier<SSLContext> untrustedSSLContextProvider,
+            Function<URI, Proxy> proxyForURI) {
+         this.utils = utils;
+         this.untrustedSSLContextProvider = untrustedSSLContextProvider;
+         this.proxyForURI = proxyForURI;
+      }
+
+      @Override
+      public HttpClient get() {
+         HttpClient.Builder builder = HttpClient.newBuilder();
+         builder.version(HttpClient.Version.HTTP_2);
+         // redirects are followed by the retry handlers, as with the other drivers
+         builder.followRedirects(HttpClient.Redirect.NEVER);
+         builder.proxy(new ProxyForURISelector(proxyForURI));
+         if (utils.getConnectionTimeout() > 0) {
+            builder.connectTimeout(Duration.ofMillis(utils.getConnectionTimeout()));
+         }
+         if (utils.trustAllCerts()) {
+            builder.sslContext(untrustedSSLContextProvider.get());
+         }
+         if (utils.relaxHostname()) {
+            logger.warn("the JDK HTTP client always verifies hostnames unless the "
+                  + "jdk.internal.httpclient.disableHostnameVerification system property is set");
+         }
+         return builder.build();
+      }
+   }
+
+   /**
+    * Chooses the proxy of each request as the other drivers do, since the client takes a
+    * {@link ProxySelector} rather than a proxy per request.
+    */
+   private static final class ProxyForURISelector extends ProxySelector {
+      private final Function<URI, Proxy> proxyForURI;
+
+      ProxyForURISelector(Function<URI, Proxy> proxyForURI) {
+         this.proxyForURI = proxyForURI;
+      }
+
+      @Override
+      public List<Proxy> select(URI uri) {
+         return ImmutableList.of(proxyForURI.apply(uri));
+      }
+
+      @Override
+      public void connectFailed(URI uri, SocketAddress address, IOException e) {
+      }
+   }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.jdkhttp;
+
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_HOST;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.util.Closeables2.closeQuietly;
+import static org.testng.Assert.assertEquals;
+
+import java.io.Closeable;
+import java.net.http.HttpClient;
+import java.util.Properties;
+
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.BaseHttpCommandExecutorServiceIntegrationTest;
+import org.jclouds.http.IntegrationTestClient;
+import org.jclouds.http.jdkhttp.config.JdkHttpCommandExecutorServiceModule;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.providers.AnonymousProviderMetadata;
+import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.PATCH;
+import org.jclouds.rest.binders.BindToStringPayload;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Tests the functionality of the {@link JdkHttpCommandExecutorService}
+ */
+@Test
+public class JdkHttpCommandExecutorServiceTest extends BaseHttpCommandExecutorServiceIntegrationTest {
+
+   @Override
+   protected Module createConnectionModule() {
+      return new JdkHttpCommandExecutorServiceModule();
+   }
+
+   @Override
+   protected void addOverrideProperties(final Properties props) {
+      props.setProperty(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, 50 + "");
+      props.setProperty(PROPERTY_MAX_CONNECTIONS_PER_HOST, 0 + "");
+      props.setProperty(PROPERTY_USER_THREADS, 5 + "");
+   }
+
+   private interface PatchApi extends Closeable {
+      @PATCH
+      @Path("/objects/{id}")
+      @Produces("text/plain")
+      String patch(@PathParam("id") String id, @BinderParam(BindToStringPayload.class) String body);
+   }
+
+   @Test
+   public void testPatch() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody("fooPATCH"));
+      PatchApi api = api(PatchApi.class, server.getUrl("/").toString());
+      try {
+         String result = api.patch("", "foo");
+         RecordedRequest request = server.takeRequest();
+         assertEquals(request.getMethod(), "PATCH");
+         assertEquals(new String(request.getBody(), Charsets.UTF_8), "foo");
+         assertEquals(request.getHeader("Content-Type"), "text/plain");
+         assertEquals(Integer.valueOf(request.getHeader("Content-Length")).intValue(), "foo".getBytes().length);
+         assertEquals(result, "fooPATCH");
+      } finally {
+         closeQuietly(api);
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testClientPrefersHttp2AndLeavesRedirectsToRetries() {
+      Injector injector = ContextBuilder.newBuilder(AnonymousProviderMetadata.forApiOnEndpoint(
+            IntegrationTestClient.class, "http://localhost")).modules(ImmutableSet.of(createConnectionModule()))
+            .buildInjector();
+      try {
+         HttpClient client = injector.getInstance(HttpClient.class);
+         assertEquals(client.version(), HttpClient.Version.HTTP_2);
+         assertEquals(client.followRedirects(), HttpClient.Redirect.NEVER);
+      } finally {
+         closeQuietly(injector.getInstance(Closer.class));
+      }
+   }
+}
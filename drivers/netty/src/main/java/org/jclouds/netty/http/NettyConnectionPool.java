@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.group.ChannelGroup;
+import org.jboss.netty.channel.group.DefaultChannelGroup;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.handler.codec.http.HttpClientCodec;
+import org.jboss.netty.handler.ssl.SslHandler;
+import org.jboss.netty.handler.stream.ChunkedWriteHandler;
+import org.jboss.netty.handler.timeout.ReadTimeoutHandler;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jclouds.http.HttpMetricsListener;
+import org.jclouds.http.HttpUtils;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Keeps idle HTTP/1.1 connections per scheme, host and port, opening new ones on a shared Netty
+ * event loop when none are available.
+ */
+@Singleton
+public class NettyConnectionPool {
+
+   private final HttpUtils utils;
+   private final Supplier<SSLContext> untrustedSSLContextProvider;
+   private final HashedWheelTimer timer;
+   private final ClientBootstrap bootstrap;
+   private final ChannelGroup channels = new DefaultChannelGroup("jclouds-netty");
+   private final ConcurrentMap<String, Queue<Channel>> idle = Maps.newConcurrentMap();
+
+   @com.google.inject.Inject(optional = true)
+   HttpMetricsListener metrics = HttpMetricsListener.NONE;
+
+   @Inject
+   NettyConnectionPool(HttpUtils utils, @Named("untrusted") Supplier<SSLContext> untrustedSSLContextProvider) {
+      this.utils = utils;
+      this.untrustedSSLContextProvider = untrustedSSLContextProvider;
+      ThreadFactory threads = new ThreadFactoryBuilder().setNameFormat("jclouds-netty-%d").setDaemon(true).build();
+      this.timer = new HashedWheelTimer(threads);
+      this.bootstrap = new ClientBootstrap(new NioClientSocketChannelFactory(Executors.newCachedThreadPool(threads),
+            Executors.newCachedThreadPool(threads)));
+      this.bootstrap.setOption("connectTimeoutMillis", utils.getConnectionTimeout());
+      this.bootstrap.setOption("tcpNoDelay", true);
+      this.bootstrap.setOption("keepAlive", true);
+      final int readTimeout = utils.getSocketOpenTimeout();
+      this.bootstrap.setPipelineFactory(new ChannelPipelineFactory() {
+         @Override
+         public ChannelPipeline getPipeline() {
+            return Channels.pipeline(new ReadTimeoutHandler(timer, readTimeout, MILLISECONDS), new HttpClientCodec(),
+                  new ChunkedWriteHandler(), new NettyResponseHandler(NettyConnectionPool.this));
+         }
+      });
+   }
+
+   /**
+    * Returns an idle connection to the endpoint's host, or connects a new one.
+    */
+   public ListenableFuture<Channel> acquire(URI endpoint) {
+      Queue<Channel> connections = idle.get(key(endpoint));
+      if (connections != null) {
+         for (Channel channel = connections.poll(); channel != null; channel = connections.poll()) {
+            if (channel.isConnected())
+               return Futures.immediateFuture(channel);
+         }
+      }
+      return connect(endpoint);
+   }
+
+   /**
+    * Returns a connection whose last response has been completely read, so that it can be reused.
+    */
+   void release(String key, Channel channel) {
+      if (!channel.isConnected())
+         return;
+      Queue<Channel> connections = idle.get(key);
+      if (connections == null) {
+         Queue<Channel> created = new ConcurrentLinkedQueue<Channel>();
+         connections = idle.putIfAbsent(key, created);
+         if (connections == null)
+            connections = created;
+      }
+      int maxIdle = utils.getMaxConnectionsPerHost();
+      if (maxIdle > 0 && connections.size() >= maxIdle)
+         channel.close();
+      else
+         connections.offer(channel);
+   }
+
+   private ListenableFuture<Channel> connect(URI endpoint) {
+      final SettableFuture<Channel> result = SettableFuture.create();
+      final boolean secure = "https".equalsIgnoreCase(endpoint.getScheme());
+      final String host = endpoint.getHost();
+      final int port = port(endpoint);
+      final long start = System.nanoTime();
+      bootstrap.connect(new InetSocketAddress(host, port)).addListener(new ChannelFutureListener() {
+         @Override
+         public void operationComplete(ChannelFuture future) {
+            if (!future.isSuccess()) {
+               result.setException(future.getCause());
+               return;
+            }
+            final Channel channel = future.getChannel();
+            channels.add(channel);
+            final long connected = System.nanoTime();
+            if (!secure) {
+               metrics.connectionOpened(host + ":" + port, connected - start, 0);
+               result.set(channel);
+               return;
+            }
+            SslHandler ssl = new SslHandler(newEngine(host, port));
+            channel.getPipeline().addFirst("ssl", ssl);
+            ssl.handshake().addListener(new ChannelFutureListener() {
+               @Override
+               public void operationComplete(ChannelFuture handshake) {
+                  if (handshake.isSuccess()) {
+                     metrics.connectionOpened(host + ":" + port, connected - start, System.nanoTime() - connected);
+                     result.set(channel);
+                  } else {
+                     result.setException(handshake.getCause());
+                     channel.close();
+                  }
+               }
+            });
+         }
+      });
+      return result;
+   }
+
+   private SSLEngine newEngine(String host, int port) {
+      SSLContext context;
+      try {
+         context = utils.trustAllCerts() ? untrustedSSLContextProvider.get() : SSLContext.getDefault();
+      } catch (NoSuchAlgorithmException e) {
+         throw Throwables.propagate(e);
+      }
+      SSLEngine engine = context.createSSLEngine(host, port);
+      engine.setUseClientMode(true);
+      if (!utils.relaxHostname()) {
+         SSLParameters parameters = engine.getSSLParameters();
+         parameters.setEndpointIdentificationAlgorithm("HTTPS");
+         engine.setSSLParameters(parameters);
+      }
+      return engine;
+   }
+
+   /**
+    * Returns the number of open connections, whether serving a request or idle.
+    */
+   int openConnections() {
+      return channels.size();
+   }
+
+   int idleConnections() {
+      int count = 0;
+      for (Queue<Channel> connections : idle.values()) {
+         count += connections.size();
+      }
+      return count;
+   }
+
+   static String key(URI endpoint) {
+      return endpoint.getScheme().toLowerCase() + "://" + endpoint.getHost().toLowerCase() + ":" + port(endpoint);
+   }
+
+   private static int port(URI endpoint) {
+      if (endpoint.getPort() != -1)
+         return endpoint.getPort();
+      return "https".equalsIgnoreCase(endpoint.getScheme()) ? 443 : 80;
+   }
+
+   @PreDestroy
+   public void close() {
+      idle.clear();
+      channels.close().awaitUninterruptibly();
+      bootstrap.releaseExternalResources();
+      timer.stop();
+   }
+}
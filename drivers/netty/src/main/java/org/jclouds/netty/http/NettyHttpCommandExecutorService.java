@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import static com.google.common.net.HttpHeaders.ACCEPT;
+import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.HOST;
+import static com.google.common.net.HttpHeaders.TRANSFER_ENCODING;
+import static com.google.common.net.HttpHeaders.USER_AGENT;
+import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.DefaultFileRegion;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.jboss.netty.handler.ssl.SslHandler;
+import org.jboss.netty.handler.stream.ChunkedNioFile;
+import org.jboss.netty.handler.stream.ChunkedStream;
+import org.jclouds.JcloudsVersion;
+import org.jclouds.http.HttpConnectionPoolStats;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.internal.BaseAsyncHttpCommandExecutorService;
+import org.jclouds.http.internal.HttpWire;
+import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.io.MutableContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Sends requests over pooled HTTP/1.1 connections on a Netty event loop, so that no thread waits
+ * for a response. Request payloads are read on the event loop as they are written; file payloads
+ * sent without TLS go from the file to the socket without being copied through the heap.
+ */
+@Singleton
+public final class NettyHttpCommandExecutorService extends
+      BaseAsyncHttpCommandExecutorService<NettyHttpCommandExecutorService.NettyRequest> implements
+      HttpConnectionPoolStats {
+
+   private static final String DEFAULT_USER_AGENT = String.format("jclouds-netty/%s java/%s", JcloudsVersion.get(),
+         System.getProperty("java.version"));
+   private static final int FILE_CHUNK_SIZE = 64 * 1024;
+
+   public static final class NettyRequest {
+      private final URI endpoint;
+      private final org.jboss.netty.handler.codec.http.HttpRequest head;
+      @Nullable
+      private final Payload payload;
+
+      NettyRequest(URI endpoint, org.jboss.netty.handler.codec.http.HttpRequest head, @Nullable Payload payload) {
+         this.endpoint = endpoint;
+         this.head = head;
+         this.payload = payload;
+      }
+   }
+
+   private final NettyConnectionPool pool;
+
+   @Inject
+   NettyHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+         DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+         DelegatingErrorHandler errorHandler, HttpWire wire,
+         @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, NettyConnectionPool pool) {
+      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods,
+            userExecutor);
+      this.pool = pool;
+   }
+
+   @Override
+   protected NettyRequest convert(HttpRequest request) throws IOException, InterruptedException {
+      URI endpoint = request.getEndpoint();
+      String path = endpoint.getRawPath() == null || endpoint.getRawPath().isEmpty() ? "/" : endpoint.getRawPath();
+      if (endpoint.getRawQuery() != null)
+         path += "?" + endpoint.getRawQuery();
+      DefaultHttpRequest head = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.valueOf(request.getMethod()),
+            path);
+
+      if (request.getFirstHeaderOrNull(HOST) == null)
+         head.setHeader(HOST, endpoint.getPort() == -1 ? endpoint.getHost() : endpoint.getHost() + ":"
+               + endpoint.getPort());
+      if (request.getFirstHeaderOrNull(ACCEPT) == null)
+         head.setHeader(ACCEPT, "*/*");
+      if (request.getFirstHeaderOrNull(USER_AGENT) == null)
+         head.setHeader(USER_AGENT, DEFAULT_USER_AGENT);
+      for (Map.Entry<String, String> entry : request.getHeaders().entries()) {
+         head.addHeader(entry.getKey(), entry.getValue());
+      }
+
+      Payload payload = request.getPayload();
+      if (payload != null) {
+         MutableContentMetadata md = payload.getContentMetadata();
+         for (Map.Entry<String, String> entry : contentMetadataCodec.toHeaders(md).entries()) {
+            head.setHeader(entry.getKey(), entry.getValue());
+         }
+         if (md.getContentLength() == null) {
+            head.setHeader(TRANSFER_ENCODING, "chunked");
+            head.setChunked(true);
+         } else if (payload.getRawContent() instanceof byte[]) {
+            // small enough to write with the headers
+            head.setContent(ChannelBuffers.wrappedBuffer((byte[]) payload.getRawContent()));
+            payload = null;
+         }
+      } else if (request.getMethod().equals("PUT") || request.getMethod().equals("POST")) {
+         head.setHeader(CONTENT_LENGTH, "0");
+      }
+      return new NettyRequest(endpoint, head, payload);
+   }
+
+   @Override
+   protected ListenableFuture<HttpResponse> invokeAsync(final NettyRequest request) {
+      final SettableFuture<HttpResponse> response = SettableFuture.create();
+      Futures.addCallback(pool.acquire(request.endpoint), new FutureCallback<Channel>() {
+         @Override
+         public void onSuccess(Channel channel) {
+            try {
+               write(channel, request, response);
+            } catch (IOException e) {
+               response.setException(e);
+               channel.close();
+            }
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            response.setException(t);
+         }
+      });
+      return response;
+   }
+
+   private void write(Channel channel, NettyRequest request, SettableFuture<HttpResponse> response)
+         throws IOException {
+      Object body = null;
+      FileChannel file = null;
+      if (request.payload != null) {
+         if (request.payload.getRawContent() instanceof File && !request.head.isChunked()) {
+            file = new RandomAccessFile((File) request.payload.getRawContent(), "r").getChannel();
+            body = fileBody(channel, file, request.payload.getContentMetadata().getContentLength());
+         } else {
+            InputStream in = request.payload.openStream();
+            body = request.head.isChunked() ? new HttpChunkedInput(in) : new ChunkedStream(in);
+         }
+      }
+      final NettyResponseHandler handler = channel.getPipeline().get(NettyResponseHandler.class);
+      handler.expect(new NettyResponseHandler.Exchange(NettyConnectionPool.key(request.endpoint), response,
+            contentMetadataCodec));
+      ChannelFuture written = channel.write(request.head);
+      if (body != null)
+         written = channel.write(body);
+      final FileChannel source = file;
+      written.addListener(new ChannelFutureListener() {
+         @Override
+         public void operationComplete(ChannelFuture future) {
+            if (!future.isSuccess()) {
+               // the file is only released by a completed transfer
+               Closeables2.closeQuietly(source);
+               handler.fail(future.getCause());
+               future.getChannel().close();
+            }
+         }
+      });
+   }
+
+   /**
+    * Sends a file from the kernel's page cache to the socket, unless it has to be encrypted first.
+    */
+   private static Object fileBody(Channel channel, FileChannel in, long length) {
+      if (channel.getPipeline().get(SslHandler.class) != null)
+         return new ChunkedNioFile(in, 0, length, FILE_CHUNK_SIZE);
+      return new DefaultFileRegion(in, 0, length, true);
+   }
+
+   @Override
+   public int getOpenConnections() {
+      return pool.openConnections();
+   }
+
+   @Override
+   public int getIdleConnections() {
+      return pool.idleConnections();
+   }
+
+   @Override
+   protected void cleanup(NettyRequest nativeRequest) {
+      // payload streams are closed once written, or when the connection closes
+   }
+}
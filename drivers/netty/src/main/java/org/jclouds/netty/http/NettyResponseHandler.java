@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import static org.jclouds.http.HttpUtils.filterOutContentHeaders;
+import static org.jclouds.io.Payloads.newByteArrayPayload;
+import static org.jclouds.io.Payloads.newInputStreamPayload;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.timeout.ReadTimeoutException;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.io.Payload;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Completes the exchange in progress on a connection. The response future is completed as soon as
+ * the headers arrive; larger bodies are handed to the caller as a {@link ResponseBodyInputStream}
+ * and the connection is returned to the pool after the last chunk.
+ */
+final class NettyResponseHandler extends SimpleChannelUpstreamHandler {
+
+   static final class Exchange {
+      private final String poolKey;
+      private final SettableFuture<HttpResponse> response;
+      private final ContentMetadataCodec contentMetadataCodec;
+      private ResponseBodyInputStream body;
+      private boolean keepAlive;
+
+      Exchange(String poolKey, SettableFuture<HttpResponse> response, ContentMetadataCodec contentMetadataCodec) {
+         this.poolKey = poolKey;
+         this.response = response;
+         this.contentMetadataCodec = contentMetadataCodec;
+      }
+   }
+
+   private final NettyConnectionPool pool;
+   private volatile Exchange exchange;
+
+   NettyResponseHandler(NettyConnectionPool pool) {
+      this.pool = pool;
+   }
+
+   void expect(Exchange exchange) {
+      this.exchange = exchange;
+   }
+
+   @Override
+   public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+      Exchange current = exchange;
+      if (current == null)
+         return;
+      Object message = e.getMessage();
+      if (message instanceof org.jboss.netty.handler.codec.http.HttpResponse) {
+         org.jboss.netty.handler.codec.http.HttpResponse response = (org.jboss.netty.handler.codec.http.HttpResponse) message;
+         int code = response.getStatus().getCode();
+         // the final response follows
+         if (code == 100)
+            return;
+         current.keepAlive = HttpHeaders.isKeepAlive(response);
+         if (response.isChunked()) {
+            current.body = new ResponseBodyInputStream(e.getChannel());
+            current.response.set(toResponse(current, response, newInputStreamPayload(current.body)));
+         } else {
+            Payload payload = code == 204 ? null : newByteArrayPayload(toByteArray(response.getContent()));
+            current.response.set(toResponse(current, response, payload));
+            complete(current, e);
+         }
+      } else if (message instanceof HttpChunk && current.body != null) {
+         HttpChunk chunk = (HttpChunk) message;
+         if (chunk.isLast()) {
+            current.body.end();
+            complete(current, e);
+         } else {
+            current.body.offer(chunk.getContent());
+         }
+      }
+   }
+
+   private void complete(Exchange current, MessageEvent e) {
+      exchange = null;
+      if (current.keepAlive)
+         pool.release(current.poolKey, e.getChannel());
+      else
+         e.getChannel().close();
+   }
+
+   /**
+    * Fails the exchange in progress, if any, whether or not its headers have arrived yet.
+    */
+   void fail(Throwable cause) {
+      Exchange current = exchange;
+      exchange = null;
+      if (current == null)
+         return;
+      IOException ioe = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+      if (!current.response.setException(ioe) && current.body != null)
+         current.body.fail(ioe);
+   }
+
+   @Override
+   public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ReadTimeoutException)
+         cause = new SocketTimeoutException("Read timed out");
+      fail(cause);
+      e.getChannel().close();
+   }
+
+   @Override
+   public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+      fail(new IOException("connection closed before the response was complete"));
+      super.channelClosed(ctx, e);
+   }
+
+   private static HttpResponse toResponse(Exchange current, org.jboss.netty.handler.codec.http.HttpResponse response,
+         Payload payload) {
+      HttpResponse.Builder<?> builder = HttpResponse.builder();
+      builder.statusCode(response.getStatus().getCode());
+      builder.message(response.getStatus().getReasonPhrase());
+      ImmutableMultimap.Builder<String, String> headerBuilder = ImmutableMultimap.builder();
+      for (Map.Entry<String, String> header : response.getHeaders()) {
+         headerBuilder.put(header.getKey(), header.getValue());
+      }
+      ImmutableMultimap<String, String> headers = headerBuilder.build();
+      if (payload != null) {
+         current.contentMetadataCodec.fromHeaders(payload.getContentMetadata(), headers);
+         builder.payload(payload);
+      }
+      builder.headers(filterOutContentHeaders(headers));
+      return builder.build();
+   }
+
+   private static byte[] toByteArray(ChannelBuffer content) {
+      byte[] bytes = new byte[content.readableBytes()];
+      content.readBytes(bytes);
+      return bytes;
+   }
+}
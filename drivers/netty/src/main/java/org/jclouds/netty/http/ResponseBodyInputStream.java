@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+
+/**
+ * Exposes the chunks of a response body, as they arrive on the event loop, to a blocking reader.
+ * <p>
+ * Reading from the connection is suspended while more than {@link #HIGH_WATER_MARK} bytes are
+ * waiting to be read, so that a slow reader does not buffer the whole body in memory.
+ */
+final class ResponseBodyInputStream extends InputStream {
+
+   static final int HIGH_WATER_MARK = 1024 * 1024;
+   static final int LOW_WATER_MARK = 256 * 1024;
+
+   private static final Object END = new Object();
+
+   private final Channel channel;
+   private final BlockingQueue<Object> chunks = new LinkedBlockingQueue<Object>();
+
+   // guarded by this
+   private int buffered;
+   private boolean suspended;
+   private boolean complete;
+
+   // accessed only by the reader
+   private ChannelBuffer current = ChannelBuffers.EMPTY_BUFFER;
+   private boolean eof;
+   private volatile boolean closed;
+
+   ResponseBodyInputStream(Channel channel) {
+      this.channel = channel;
+   }
+
+   synchronized void offer(ChannelBuffer content) {
+      buffered += content.readableBytes();
+      chunks.add(content);
+      if (!suspended && buffered > HIGH_WATER_MARK) {
+         suspended = true;
+         channel.setReadable(false);
+      }
+   }
+
+   synchronized void end() {
+      complete = true;
+      chunks.add(END);
+      // the connection goes back to the pool
+      if (suspended) {
+         suspended = false;
+         channel.setReadable(true);
+      }
+   }
+
+   void fail(IOException cause) {
+      chunks.add(cause);
+   }
+
+   private synchronized void consumed(int bytes) {
+      buffered -= bytes;
+      if (suspended && buffered < LOW_WATER_MARK) {
+         suspended = false;
+         channel.setReadable(true);
+      }
+   }
+
+   private synchronized boolean isComplete() {
+      return complete;
+   }
+
+   @Override
+   public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+   }
+
+   @Override
+   public int read(byte[] b, int off, int len) throws IOException {
+      if (closed)
+         throw new IOException("stream closed");
+      if (len == 0)
+         return 0;
+      while (!current.readable()) {
+         if (eof)
+            return -1;
+         Object next;
+         try {
+            next = chunks.take();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+         }
+         if (next == END) {
+            eof = true;
+            return -1;
+         }
+         if (next instanceof IOException)
+            throw new IOException(((IOException) next).getMessage(), (IOException) next);
+         current = (ChannelBuffer) next;
+      }
+      int read = Math.min(len, current.readableBytes());
+      current.readBytes(b, off, read);
+      consumed(read);
+      return read;
+   }
+
+   @Override
+   public int available() {
+      return current.readableBytes();
+   }
+
+   /**
+    * Closing before the end of the body leaves the connection in the middle of a response, so it
+    * cannot be reused.
+    */
+   @Override
+   public void close() {
+      if (closed)
+         return;
+      closed = true;
+      if (!isComplete())
+         channel.close();
+   }
+}
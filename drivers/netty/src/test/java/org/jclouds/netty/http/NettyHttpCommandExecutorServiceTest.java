@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_HOST;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.AsyncHttpCommandExecutorService;
+import org.jclouds.http.BaseHttpCommandExecutorServiceIntegrationTest;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.IntegrationTestClient;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.netty.config.NettyHttpCommandExecutorServiceModule;
+import org.jclouds.providers.AnonymousProviderMetadata;
+import org.jclouds.util.Strings2;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+/**
+ * Tests the functionality of the {@link NettyHttpCommandExecutorService}
+ */
+@Test(groups = "integration", testName = "NettyHttpCommandExecutorServiceTest")
+public class NettyHttpCommandExecutorServiceTest extends BaseHttpCommandExecutorServiceIntegrationTest {
+
+   @Override
+   protected Module createConnectionModule() {
+      return new NettyHttpCommandExecutorServiceModule();
+   }
+
+   @Override
+   protected void addOverrideProperties(Properties props) {
+      props.setProperty(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, 50 + "");
+      props.setProperty(PROPERTY_MAX_CONNECTIONS_PER_HOST, 0 + "");
+      props.setProperty(PROPERTY_USER_THREADS, 5 + "");
+   }
+
+   public void testSubmitRetriesServerErrorAndReusesConnection() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(500), new MockResponse().setBody("foo"),
+            new MockResponse().setBody("bar"));
+      Properties overrides = new Properties();
+      addOverrideProperties(overrides);
+      Injector injector = ContextBuilder
+            .newBuilder(AnonymousProviderMetadata.forApiOnEndpoint(IntegrationTestClient.class,
+                  server.getUrl("/").toString())).modules(ImmutableSet.of(createConnectionModule()))
+            .overrides(overrides).buildInjector();
+      AsyncHttpCommandExecutorService http = injector.getInstance(AsyncHttpCommandExecutorService.class);
+      try {
+         HttpRequest request = HttpRequest.builder().method("GET").endpoint(server.getUrl("/").toURI()).build();
+         ListenableFuture<HttpResponse> first = http.submit(new HttpCommand(request));
+         assertEquals(Strings2.toStringAndClose(first.get(10, TimeUnit.SECONDS).getPayload().openStream()), "foo");
+         HttpResponse second = http.submit(new HttpCommand(request)).get(10, TimeUnit.SECONDS);
+         assertEquals(Strings2.toStringAndClose(second.getPayload().openStream()), "bar");
+         assertEquals(server.getRequestCount(), 3);
+         server.takeRequest();
+         server.takeRequest();
+         assertEquals(server.takeRequest().getSequenceNumber(), 2);
+      } finally {
+         injector.getInstance(Closer.class).close();
+         server.shutdown();
+      }
+   }
+}
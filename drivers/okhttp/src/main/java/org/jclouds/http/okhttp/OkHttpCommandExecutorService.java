@@ -35,6 +35,7 @@ import okio.Okio;
 import okio.Source;
 
 import org.jclouds.JcloudsVersion;
+import org.jclouds.http.HttpConnectionPoolStats;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpUtils;
@@ -51,6 +52,7 @@ import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableMultimap.Builder;
 import com.google.inject.Inject;
+import com.squareup.okhttp.ConnectionPool;
 import com.squareup.okhttp.Headers;
 import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.OkHttpClient;
@@ -58,7 +60,8 @@ import com.squareup.okhttp.Request;
 import com.squareup.okhttp.RequestBody;
 import com.squareup.okhttp.Response;
 
-public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorService<Request> {
+public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorService<Request> implements
+      HttpConnectionPoolStats {
 
    private static final String DEFAULT_USER_AGENT = String.format("jclouds-okhttp/%s java/%s", JcloudsVersion.get(),
          System.getProperty("java.version"));
@@ -183,4 +186,23 @@ public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorS
 
    }
 
+   /**
+    * OkHttp holds HTTP/1.1 connections in its pool only between requests, so connections serving a
+    * request are not counted.
+    */
+   @Override
+   public int getOpenConnections() {
+      return connectionPool().getConnectionCount();
+   }
+
+   @Override
+   public int getIdleConnections() {
+      return connectionPool().getIdleConnectionCount();
+   }
+
+   private ConnectionPool connectionPool() {
+      ConnectionPool pool = globalClient.getConnectionPool();
+      // requests use the default pool unless the client was given one
+      return pool != null ? pool : ConnectionPool.getDefault();
+   }
 }
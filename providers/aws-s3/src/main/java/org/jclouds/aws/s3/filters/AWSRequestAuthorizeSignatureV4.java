@@ -19,8 +19,10 @@ package org.jclouds.aws.s3.filters;
 import static org.jclouds.http.utils.Queries.queryParser;
 import static org.jclouds.aws.s3.blobstore.AWSS3BlobRequestSigner.TEMPORARY_SIGNATURE_PARAM;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_SIGNATURE_PARAM;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import com.google.common.collect.Multimap;
@@ -40,8 +42,9 @@ public class AWSRequestAuthorizeSignatureV4 extends RequestAuthorizeSignatureV4
    @Inject
    public AWSRequestAuthorizeSignatureV4(Aws4SignerForAuthorizationHeader signerForAuthorizationHeader,
          Aws4SignerForChunkedUpload signerForChunkedUpload,
-         Aws4SignerForQueryString signerForQueryString) {
-      super(signerForAuthorizationHeader, signerForChunkedUpload, signerForQueryString);
+         Aws4SignerForQueryString signerForQueryString,
+         @Named(PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD) String chunkedUploadMode) {
+      super(signerForAuthorizationHeader, signerForChunkedUpload, signerForQueryString, chunkedUploadMode);
    }
 
    @Override
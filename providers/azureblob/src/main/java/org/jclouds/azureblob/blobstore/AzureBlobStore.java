@@ -451,8 +451,7 @@ public class AzureBlobStore extends BaseBlobStore {
       for (BlobBlockProperties properties : response.getBlocks()) {
          int partNumber = Ints.fromByteArray(BaseEncoding.base64().decode(properties.getBlockName()));
          String eTag = "";  // getBlockList does not return ETag
-         long partSize = -1;  // TODO: could call getContentLength but did not above
-         parts.add(MultipartPart.create(partNumber, partSize, eTag));
+         parts.add(MultipartPart.create(partNumber, properties.getContentLength(), eTag));
       }
       return parts.build();
    }